@@ -17,22 +17,26 @@ package simple.escp;
 
 import simple.escp.data.DataSource;
 import simple.escp.data.DataSources;
+import simple.escp.fill.BatchFillJob;
 import simple.escp.fill.FillJob;
-import javax.print.Doc;
-import javax.print.DocFlavor;
+import simple.escp.printer.PrintQueue;
+import simple.escp.printer.PrintResult;
+import simple.escp.printer.PrintSink;
+import simple.escp.printer.ServicePrintSink;
+import simple.escp.printer.PrinterRegistry;
+import simple.escp.util.EscpWriter;
 import javax.print.DocPrintJob;
 import javax.print.PrintException;
 import javax.print.PrintService;
-import javax.print.PrintServiceLookup;
-import javax.print.SimpleDoc;
 import javax.print.attribute.AttributeSet;
 import javax.print.attribute.HashAttributeSet;
 import javax.print.attribute.standard.PrinterName;
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -56,12 +60,25 @@ import java.util.logging.Logger;
  *     SimpleEscp simpleEscp = new SimpleEscp();
  *     simpleEscp.print(template, data);
  * </pre>
+ *
+ * <p>To print directly to a network printer or a device file without <code>javax.print</code>, use a
+ * {@link PrintSink}:
+ *
+ * <pre>
+ *     SimpleEscp simpleEscp = new SimpleEscp(new SocketPrintSink("192.168.1.20"));
+ * </pre>
+ *
+ * <p>Methods whose name starts with <code>printAsync</code> add the document to a {@link PrintQueue} that is
+ * shared by every <code>SimpleEscp</code> for the same printer or <code>PrintSink</code>, and return immediately.
  */
 public class SimpleEscp {
 
     private static final Logger LOG = Logger.getLogger("simple.escp");
 
+    private static final ConcurrentMap<PrintSink, PrintQueue> PRINT_QUEUES = new ConcurrentHashMap<>();
+
     private PrintService printService;
+    private PrintSink printSink;
 
     /**
      * Create a new instance of <code>SimpleEscp</code> that will use default printer.
@@ -81,6 +98,15 @@ public class SimpleEscp {
         usePrinter(attributeSet);
     }
 
+    /**
+     * Create a new instance of <code>SimpleEscp</code> that will print to a <code>PrintSink</code>.
+     *
+     * @param printSink the destination of printed documents.
+     */
+    public SimpleEscp(PrintSink printSink) {
+        usePrintSink(printSink);
+    }
+
     /**
      * Use the printer that matches the specified <code>AttributeSet</code>.
      *
@@ -89,20 +115,38 @@ public class SimpleEscp {
      *
      */
     public void usePrinter(AttributeSet attributeSet) {
-        PrintService[] services = PrintServiceLookup.lookupPrintServices(null, attributeSet);
+        PrintService[] services = PrinterRegistry.getDefault().lookup(attributeSet);
         if (services.length == 0) {
             throw new IllegalArgumentException("Printer not found.");
         } else if (services.length > 1) {
             LOG.warning("Found more than one printer. Only the first printer will be used.");
         }
         printService = services[0];
+        printSink = new ServicePrintSink(printService);
     }
 
     /**
      * Use printer that was marked as default printer in operating system's control panel.
      */
     public void useDefaultPrinter() {
-        printService = PrintServiceLookup.lookupDefaultPrintService();
+        printService = PrinterRegistry.getDefault().getDefaultPrintService();
+        printSink = printService == null ? null : new ServicePrintSink(printService);
+    }
+
+    /**
+     * Print to a <code>PrintSink</code>, such as a network printer or a device file.  If <code>printSink</code> is
+     * not a <code>ServicePrintSink</code>, print methods will return <code>null</code> instead of
+     * <code>DocPrintJob</code>.
+     *
+     * @param printSink the destination of printed documents.
+     */
+    public void usePrintSink(PrintSink printSink) {
+        if (printSink == null) {
+            throw new IllegalArgumentException("Print sink can't be null.");
+        }
+        this.printSink = printSink;
+        this.printService = printSink instanceof ServicePrintSink ?
+            ((ServicePrintSink) printSink).getPrintService() : null;
     }
 
     /**
@@ -113,18 +157,64 @@ public class SimpleEscp {
      * @return a <code>DocPrintJob</code> that is associated with this operation.
      */
     public DocPrintJob print(String text)  {
-        Charset charset = Charset.isSupported("ISO-8859-1") ? Charset.forName("ISO-8859-1") :
-            StandardCharsets.US_ASCII;
-        InputStream in = new ByteArrayInputStream(text.getBytes(charset));
-        Doc doc = new SimpleDoc(in, DocFlavor.INPUT_STREAM.AUTOSENSE, null);
-        DocPrintJob job = printService.createPrintJob();
+        return print(EscpWriter.toBytes(text));
+    }
+
+    /**
+     * Print the result of a <code>FillJob</code> to current printer.  The result is encoded directly into bytes
+     * without creating an intermediate <code>String</code>.  If current printer is a <code>PrintSink</code> other
+     * than <code>ServicePrintSink</code>, the text of every page is streamed to it as soon as it is produced.
+     *
+     * @param fillJob the <code>FillJob</code> that will be executed.
+     * @return a <code>DocPrintJob</code> that is associated with this operation.
+     */
+    public DocPrintJob print(FillJob fillJob) {
+        if (getPrintSink() instanceof ServicePrintSink) {
+            return print(fill(fillJob));
+        }
         try {
-            job.print(doc, null);
-        } catch (PrintException e) {
+            fillJob.fill(printSink);
+        } catch (IOException e) {
             LOG.log(Level.SEVERE, "Error during printing.", e);
             throw new RuntimeException("Error during printing", e);
         }
-        return job;
+        return null;
+    }
+
+    /**
+     * Print raw bytes to current printer.
+     *
+     * @param bytes the bytes to print.  They may contains ESC/P code.
+     * @return a <code>DocPrintJob</code> that is associated with this operation.
+     */
+    private DocPrintJob print(byte[] bytes) {
+        try {
+            if (getPrintSink() instanceof ServicePrintSink) {
+                return ((ServicePrintSink) printSink).print(bytes);
+            }
+            printSink.write(bytes);
+            return null;
+        } catch (PrintException | IOException e) {
+            LOG.log(Level.SEVERE, "Error during printing.", e);
+            throw new RuntimeException("Error during printing", e);
+        }
+    }
+
+    /**
+     * Fill a <code>FillJob</code> into bytes.
+     *
+     * @param fillJob the <code>FillJob</code> that will be executed.
+     * @return the result of <code>fillJob</code>.
+     */
+    private static byte[] fill(FillJob fillJob) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            fillJob.fill(out);
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Error while filling report.", e);
+            throw new RuntimeException("Error while filling report", e);
+        }
+        return out.toByteArray();
     }
 
     /**
@@ -138,7 +228,7 @@ public class SimpleEscp {
      */
     public DocPrintJob print(Template template, Map mapSource, Object objectSource) {
         FillJob fillJob = new FillJob(template.parse(), DataSources.from(mapSource, objectSource));
-        return print(fillJob.fill());
+        return print(fillJob);
     }
 
     /**
@@ -150,7 +240,7 @@ public class SimpleEscp {
      */
     public DocPrintJob print(Template template, Map mapSource) {
         FillJob fillJob = new FillJob(template.parse(), DataSources.from(mapSource));
-        return print(fillJob.fill());
+        return print(fillJob);
     }
 
     /**
@@ -162,7 +252,7 @@ public class SimpleEscp {
      */
     public DocPrintJob print(Template template, DataSource dataSource) {
         FillJob fillJob = new FillJob(template.parse(), dataSource);
-        return print(fillJob.fill());
+        return print(fillJob);
     }
 
     /**
@@ -174,16 +264,147 @@ public class SimpleEscp {
      */
     public DocPrintJob print(Template template, DataSource[] dataSources) {
         FillJob fillJob = new FillJob(template.parse(), dataSources);
-        return print(fillJob.fill());
+        return print(fillJob);
+    }
+
+    /**
+     * Fill a template once for every element of <code>dataSources</code> and print all documents as a single
+     * job.  Documents are filled in parallel by using <code>BatchFillJob</code>, but they are printed in the same
+     * order as <code>dataSources</code>.
+     *
+     * @param template an instance of <code>Template</code>.
+     * @param dataSources the data sources for every document.
+     * @return a <code>DocPrintJob</code> that is associated with this operation.
+     */
+    public DocPrintJob print(Template template, Iterable<DataSource[]> dataSources) {
+        BatchFillJob batchFillJob = new BatchFillJob(template.parse());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            batchFillJob.fill(dataSources, out);
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Error while filling report.", e);
+            throw new RuntimeException("Error while filling report", e);
+        }
+        return print(out.toByteArray());
+    }
+
+    /**
+     * Add a string to the print queue of current printer.
+     *
+     * @param text the string to print.  This string may contains ESC/P code.
+     * @return a <code>CompletableFuture</code> that is completed when the string has been printed.
+     */
+    public CompletableFuture<PrintResult> printAsync(String text) {
+        return getPrintQueue().submit(EscpWriter.toBytes(text));
+    }
+
+    /**
+     * Execute a <code>FillJob</code> and add its result to the print queue of current printer.  The report is
+     * filled by the calling thread, so errors in template or data sources are thrown immediately.
+     *
+     * @param fillJob the <code>FillJob</code> that will be executed.
+     * @return a <code>CompletableFuture</code> that is completed when the report has been printed.
+     */
+    public CompletableFuture<PrintResult> printAsync(FillJob fillJob) {
+        return getPrintQueue().submit(fill(fillJob));
+    }
+
+    /**
+     * Fill a template based on value and add it to the print queue of current printer.
+     *
+     * @param template an instance of <code>Template</code>.
+     * @param dataSources one or more <code>DataSource</code> to fill <code>template</code>.
+     * @return a <code>CompletableFuture</code> that is completed when the report has been printed.
+     */
+    public CompletableFuture<PrintResult> printAsync(Template template, DataSource[] dataSources) {
+        return printAsync(new FillJob(template.parse(), dataSources));
+    }
+
+    /**
+     * Get the print queue of current printer.  The queue is created with default configuration on first use
+     * unless it has been configured by {@link #configurePrintQueue(PrintSink, int, PrintQueue.Backpressure)}.
+     *
+     * @return the <code>PrintQueue</code> for current printer.
+     * @throws IllegalStateException if there is no current printer.
+     */
+    public PrintQueue getPrintQueue() {
+        return PRINT_QUEUES.computeIfAbsent(getPrintSink(), sink ->
+            createPrintQueue(sink, PrintQueue.DEFAULT_CAPACITY, PrintQueue.Backpressure.BLOCK));
+    }
+
+    /**
+     * Replace the print queue of a printer.  Documents that are waiting in the previous queue will still be
+     * printed.
+     *
+     * @param printService the printer.
+     * @param capacity maximum number of documents waiting for <code>printService</code>.
+     * @param backpressure what to do when the queue is full.
+     * @return the new <code>PrintQueue</code>.
+     */
+    public static PrintQueue configurePrintQueue(PrintService printService, int capacity,
+                                                 PrintQueue.Backpressure backpressure) {
+        if (printService == null) {
+            throw new IllegalArgumentException("Print service can't be null.");
+        }
+        return configurePrintQueue(new ServicePrintSink(printService), capacity, backpressure);
+    }
+
+    /**
+     * Replace the print queue of a <code>PrintSink</code>.  Documents that are waiting in the previous queue will
+     * still be printed.
+     *
+     * @param printSink the destination of printed documents.
+     * @param capacity maximum number of documents waiting for <code>printSink</code>.
+     * @param backpressure what to do when the queue is full.
+     * @return the new <code>PrintQueue</code>.
+     */
+    public static PrintQueue configurePrintQueue(PrintSink printSink, int capacity,
+                                                 PrintQueue.Backpressure backpressure) {
+        if (printSink == null) {
+            throw new IllegalArgumentException("Print sink can't be null.");
+        }
+        PrintQueue printQueue = createPrintQueue(printSink, capacity, backpressure);
+        PrintQueue previous = PRINT_QUEUES.put(printSink, printQueue);
+        if (previous != null) {
+            previous.close();
+        }
+        return printQueue;
+    }
+
+    /**
+     * Create a new print queue for a printer.
+     *
+     * @param printSink the destination of printed documents.
+     * @param capacity maximum number of waiting documents.
+     * @param backpressure what to do when the queue is full.
+     * @return a new <code>PrintQueue</code>.
+     */
+    private static PrintQueue createPrintQueue(PrintSink printSink, int capacity,
+                                               PrintQueue.Backpressure backpressure) {
+        return new PrintQueue(printSink.getName(), capacity, backpressure, printSink::write);
     }
 
     /**
      * Get printer or print service associated with this instance.
      *
-     * @return an instance of <code>PrintService</code>.
+     * @return an instance of <code>PrintService</code> or <code>null</code> if this instance prints to a
+     *         <code>PrintSink</code> that doesn't use <code>javax.print</code>.
      */
     public PrintService getPrintService() {
         return printService;
     }
 
+    /**
+     * Get the destination of printed documents.
+     *
+     * @return the current <code>PrintSink</code>.
+     * @throws IllegalStateException if there is no current printer.
+     */
+    public PrintSink getPrintSink() {
+        if (printSink == null) {
+            throw new IllegalStateException("Printer not found.");
+        }
+        return printSink;
+    }
+
 }
@@ -0,0 +1,219 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.data;
+
+import simple.escp.exception.InvalidPlaceholder;
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.MethodDescriptor;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Introspection result of a Java Bean class that is shared by every <code>BeanDataSource</code> of that class.
+ * Properties and methods are indexed by name and their accessors are created only once, so reading a member
+ * costs one lookup and a direct call.
+ */
+final class BeanClassInfo {
+
+    private static final ClassValue<BeanClassInfo> CACHE = new ClassValue<BeanClassInfo>() {
+        @Override
+        protected BeanClassInfo computeValue(Class<?> type) {
+            return new BeanClassInfo(type);
+        }
+    };
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Map<String, PropertyDescriptor> properties = new HashMap<>();
+    private final Map<String, MethodDescriptor> methods = new HashMap<>();
+    private final String[] members;
+    private final Map<String, Accessor> accessors = new ConcurrentHashMap<>();
+    private final Map<String, String[]> paths = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new instance of <code>BeanClassInfo</code>.
+     *
+     * @param type the Java Bean class.
+     */
+    private BeanClassInfo(Class<?> type) {
+        final BeanInfo beanInfo;
+        try {
+            beanInfo = Introspector.getBeanInfo(type);
+        } catch (IntrospectionException e) {
+            throw new RuntimeException("Can't read information from object.", e);
+        }
+        final PropertyDescriptor[] propertyDescriptors = beanInfo.getPropertyDescriptors();
+        members = new String[propertyDescriptors.length];
+        for (int i = 0; i < propertyDescriptors.length; i++) {
+            members[i] = propertyDescriptors[i].getName();
+            properties.putIfAbsent(members[i], propertyDescriptors[i]);
+        }
+        for (MethodDescriptor methodDescriptor : beanInfo.getMethodDescriptors()) {
+            methods.putIfAbsent(methodDescriptor.getName(), methodDescriptor);
+        }
+    }
+
+    /**
+     * Get the <code>BeanClassInfo</code> for a class.
+     *
+     * @param type the Java Bean class.
+     * @return cached information for <code>type</code>.
+     */
+    static BeanClassInfo of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * Find a property by its name.
+     *
+     * @param propertyName name of property.
+     * @return a <code>PropertyDescriptor</code> or <code>null</code> if it doesn't exist.
+     */
+    PropertyDescriptor getProperty(String propertyName) {
+        return properties.get(propertyName);
+    }
+
+    /**
+     * Find a method by its name.
+     *
+     * @param methodName name of method.
+     * @return a <code>MethodDescriptor</code> or <code>null</code> if it doesn't exist.
+     */
+    MethodDescriptor getMethod(String methodName) {
+        return methods.get(methodName);
+    }
+
+    /**
+     * Get names of all properties.
+     *
+     * @return a new array that contains the name of every property.
+     */
+    String[] getMembers() {
+        return members.clone();
+    }
+
+    /**
+     * Split a dotted member, such as <code>customer.address.city</code>, into its parts.  The result is cached.
+     *
+     * @param member the member.
+     * @return parts of <code>member</code>.  The result must not be modified.
+     */
+    String[] getPath(String member) {
+        String[] path = paths.get(member);
+        if (path == null) {
+            path = member.split("\\.");
+            paths.put(member, path);
+        }
+        return path;
+    }
+
+    /**
+     * Find the accessor for a simple member.  A member that starts with <code>@</code> refers to a method, other
+     * members refer to properties.
+     *
+     * @param member the member without dot.
+     * @return an <code>Accessor</code> or <code>null</code> if this class doesn't have <code>member</code>.
+     */
+    Accessor getAccessor(String member) {
+        Accessor accessor = accessors.get(member);
+        if (accessor == null) {
+            if (member.startsWith("@")) {
+                final MethodDescriptor methodDescriptor = getMethod(member.substring(1));
+                if (methodDescriptor == null) {
+                    return null;
+                }
+                accessor = new Accessor(methodDescriptor.getMethod(), "Can't execute [" + member + "].");
+            } else {
+                final PropertyDescriptor propertyDescriptor = getProperty(member);
+                if (propertyDescriptor == null) {
+                    return null;
+                }
+                accessor = new Accessor(propertyDescriptor.getReadMethod(), "Can't read [" + member + "].");
+            }
+            accessors.put(member, accessor);
+        }
+        return accessor;
+    }
+
+    /**
+     * Read a member from an object by calling its getter or method.  A <code>MethodHandle</code> is used when
+     * it is possible, otherwise the method will be invoked by using reflection.
+     */
+    static final class Accessor {
+
+        private final Method method;
+        private final MethodHandle methodHandle;
+        private final String errorMessage;
+
+        /**
+         * Create a new instance of <code>Accessor</code>.
+         *
+         * @param method the method to call or <code>null</code> if the member can't be read.
+         * @param errorMessage message for <code>InvalidPlaceholder</code> if the call fails.
+         */
+        private Accessor(Method method, String errorMessage) {
+            this.method = method;
+            this.errorMessage = errorMessage;
+            MethodHandle handle = null;
+            if (method != null) {
+                try {
+                    handle = MethodHandles.publicLookup().unreflect(method).asType(GETTER_TYPE);
+                } catch (IllegalAccessException | WrongMethodTypeException e) {
+                    handle = null;
+                }
+            }
+            this.methodHandle = handle;
+        }
+
+        /**
+         * Read the value of this member.
+         *
+         * @param target the object to read from.
+         * @return value of this member.
+         * @throws InvalidPlaceholder if the value can't be read.
+         */
+        Object get(Object target) throws InvalidPlaceholder {
+            if (method == null) {
+                throw new InvalidPlaceholder(errorMessage);
+            }
+            if (methodHandle == null) {
+                try {
+                    return method.invoke(target);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new InvalidPlaceholder(errorMessage, e);
+                }
+            }
+            try {
+                return (Object) methodHandle.invokeExact(target);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvalidPlaceholder(errorMessage, e);
+            }
+        }
+    }
+
+}
@@ -16,24 +16,22 @@
 package simple.escp.data;
 
 import simple.escp.exception.InvalidPlaceholder;
-import java.beans.BeanInfo;
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
 import java.beans.MethodDescriptor;
 import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.logging.Logger;
 
 /**
  * A <code>BeanDataSource</code> is a <code>DataSource</code> that obtains its value from a Java Bean object.
+ *
+ * <p>Introspection is performed once for every class and shared by all instances, so creating a
+ * <code>BeanDataSource</code> for every row of a table is cheap.
  */
 public class BeanDataSource implements DataSource {
 
     private static final Logger LOG = Logger.getLogger("simple.escp");
 
     private Object source;
-    private PropertyDescriptor[] propertyDescriptors;
-    private MethodDescriptor[] methodDescriptors;
+    private BeanClassInfo classInfo;
 
     /**
      * Create a new <code>BeanDataSource</code>.
@@ -42,13 +40,7 @@ public class BeanDataSource implements DataSource {
      */
     public BeanDataSource(Object source) {
         this.source = source;
-        try {
-            BeanInfo beanInfo = Introspector.getBeanInfo(source.getClass());
-            propertyDescriptors = beanInfo.getPropertyDescriptors();
-            methodDescriptors = beanInfo.getMethodDescriptors();
-        } catch (IntrospectionException e) {
-            throw new RuntimeException("Can't read information from object.", e);
-        }
+        this.classInfo = BeanClassInfo.of(source.getClass());
     }
 
     /**
@@ -59,13 +51,11 @@ public class BeanDataSource implements DataSource {
      *         the specified method name.
      */
     public MethodDescriptor getMethod(String methodName) {
-        for (MethodDescriptor methodDescriptor : methodDescriptors) {
-            if (methodDescriptor.getName().equals(methodName)) {
-                return methodDescriptor;
-            }
+        MethodDescriptor methodDescriptor = classInfo.getMethod(methodName);
+        if (methodDescriptor == null) {
+            LOG.fine("Can't find method [" + methodName + "] in this bean.");
         }
-        LOG.fine("Can't find method [" + methodName + "] in this bean.");
-        return null;
+        return methodDescriptor;
     }
 
     /**
@@ -76,13 +66,11 @@ public class BeanDataSource implements DataSource {
      *         the specified property name.
      */
     public PropertyDescriptor getProperty(String propertyName) {
-        for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
-            if (propertyDescriptor.getName().equals(propertyName)) {
-                return propertyDescriptor;
-            }
+        PropertyDescriptor propertyDescriptor = classInfo.getProperty(propertyName);
+        if (propertyDescriptor == null) {
+            LOG.fine("Can't find property [" + propertyName + "] in this bean.");
         }
-        LOG.fine("Can't find property [" + propertyName + "] in this bean.");
-        return null;
+        return propertyDescriptor;
     }
 
     /**
@@ -90,22 +78,23 @@ public class BeanDataSource implements DataSource {
      */
     @Override
     public boolean has(String member) {
-        if (member.contains(".")) {
-            String[] memberParts = member.split("\\.", 2);
-            String curentPart = memberParts[0];
-            String compositePart = memberParts[1];
-            if (!has(curentPart)) {
+        if (member.indexOf('.') < 0) {
+            return classInfo.getAccessor(member) != null;
+        }
+        String[] path = classInfo.getPath(member);
+        Object target = source;
+        BeanClassInfo targetInfo = classInfo;
+        for (int i = 0; i < path.length; i++) {
+            BeanClassInfo.Accessor accessor = targetInfo.getAccessor(path[i]);
+            if (accessor == null) {
                 return false;
-            } else {
-                return (new BeanDataSource(get(curentPart))).has(compositePart);
             }
-        } else {
-            if (member.startsWith("@")) {
-                return getMethod(member.substring(1)) != null ? true : false;
-            } else {
-                return getProperty(member) != null ? true : false;
+            if (i < path.length - 1) {
+                target = accessor.get(target);
+                targetInfo = BeanClassInfo.of(target.getClass());
             }
         }
+        return true;
     }
 
     /**
@@ -113,29 +102,27 @@ public class BeanDataSource implements DataSource {
      */
     @Override
     public Object get(String member) throws InvalidPlaceholder {
-        if (!has(member)) {
-            throw new InvalidPlaceholder("Can't find [" + member + "] in this data source.");
+        if (member.indexOf('.') < 0) {
+            BeanClassInfo.Accessor accessor = classInfo.getAccessor(member);
+            if (accessor == null) {
+                throw new InvalidPlaceholder("Can't find [" + member + "] in this data source.");
+            }
+            return accessor.get(source);
         }
-        if (member.contains(".")) {
-            String[] memberParts = member.split("\\.", 2);
-            String curentPart = memberParts[0];
-            String compositePart = memberParts[1];
-            return (new BeanDataSource(get(curentPart))).get(compositePart);
-        } else {
-            if (member.startsWith("@")) {
-                try {
-                    return getMethod(member.substring(1)).getMethod().invoke(source);
-                } catch (IllegalAccessException | InvocationTargetException e) {
-                    throw new InvalidPlaceholder("Can't execute [" + member + "].", e);
-                }
-            } else {
-                try {
-                    return getProperty(member).getReadMethod().invoke(source);
-                } catch (IllegalAccessException | InvocationTargetException e) {
-                    throw new InvalidPlaceholder("Can't read [" + member + "].", e);
-                }
+        String[] path = classInfo.getPath(member);
+        Object target = source;
+        BeanClassInfo targetInfo = classInfo;
+        for (int i = 0; i < path.length; i++) {
+            BeanClassInfo.Accessor accessor = targetInfo.getAccessor(path[i]);
+            if (accessor == null) {
+                throw new InvalidPlaceholder("Can't find [" + member + "] in this data source.");
+            }
+            target = accessor.get(target);
+            if (i < path.length - 1) {
+                targetInfo = BeanClassInfo.of(target.getClass());
             }
         }
+        return target;
     }
 
     /**
@@ -151,12 +138,7 @@ public class BeanDataSource implements DataSource {
      */
     @Override
     public String[] getMembers() {
-        String[] result = new String[propertyDescriptors.length];
-        int i = 0;
-        for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
-            result[i++] = propertyDescriptor.getName();
-        }
-        return result;
+        return classInfo.getMembers();
     }
 
 }
@@ -17,22 +17,44 @@ package simple.escp.data;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
 import jakarta.json.JsonObject;
 
 /**
  * A factory class to create <code>DataSource</code>.
+ *
+ * <p>The registry of data sources is copy-on-write, so it can be read by concurrent fills while custom data
+ * sources are registered.  The entry for every class of value is resolved once and cached until the registry
+ * changes.
  */
 @SuppressWarnings("unchecked")
 public abstract class DataSources {
 
     private static final Logger LOG = Logger.getLogger("simple.escp");
     private static EmptyDataSource emptyDataSource = new EmptyDataSource();
-    public static final List<DataSourceEntry> DATA_SOURCES;
+    private static volatile Registry registry;
+
+    /**
+     * A read-only view of the registered data sources.  Use <code>register()</code> and <code>unregister()</code>
+     * to change it.
+     */
+    public static final List<DataSourceEntry> DATA_SOURCES = new AbstractList<DataSourceEntry>() {
+        @Override
+        public DataSourceEntry get(int index) {
+            return registry.entries[index];
+        }
+
+        @Override
+        public int size() {
+            return registry.entries.length;
+        }
+    };
 
     static {
         final List<DataSourceEntry> newDataSource = new ArrayList<>();
@@ -40,7 +62,7 @@ public abstract class DataSources {
         newDataSource.add(new DataSourceEntry(Map.class, MapDataSource.class));
         newDataSource.add(new DataSourceEntry(String.class, JsonDataSource.class));
         newDataSource.add(new DataSourceEntry(JsonObject.class, JsonDataSource.class));
-        DATA_SOURCES = newDataSource;
+        registry = new Registry(newDataSource);
     }
 
     /**
@@ -51,7 +73,29 @@ public abstract class DataSources {
      * @param dataSourceType an implementation of <code>DataSource</code> that will be created by this entry.
      */
     public static void register(Class supportedType, Class dataSourceType) {
-        DATA_SOURCES.add(new DataSourceEntry(supportedType, dataSourceType));
+        register(new DataSourceEntry(supportedType, dataSourceType));
+    }
+
+    /**
+     * Register a factory for a custom data source.  This avoids reflection when a data source is created.
+     *
+     * @param supportedType class of object that can be handled by this data source.
+     * @param factory creates the data source from a value of <code>supportedType</code>.
+     * @param <T> the supported type.
+     */
+    public static <T> void register(Class<T> supportedType, Function<? super T, ? extends DataSource> factory) {
+        register(new DataSourceEntry(supportedType, factory));
+    }
+
+    /**
+     * Add an entry to the registry.  Entries that are registered later have higher priority.
+     *
+     * @param entry the new entry.
+     */
+    private static synchronized void register(DataSourceEntry entry) {
+        final List<DataSourceEntry> entries = new ArrayList<>(DATA_SOURCES);
+        entries.add(entry);
+        registry = new Registry(entries);
     }
 
     /**
@@ -59,12 +103,21 @@ public abstract class DataSources {
      *
      * @param dataSourceType an implementation of <code>DataSource</code> that will be created by this entry.
      */
-    public static void unregister(Class dataSourceType) {
-        for (final DataSourceEntry entry : DATA_SOURCES.toArray(new DataSourceEntry[0])) {
-            if (entry.getDataSourceType().equals(dataSourceType)) {
-                DATA_SOURCES.remove(entry);
-            }
-        }
+    public static synchronized void unregister(Class dataSourceType) {
+        final List<DataSourceEntry> entries = new ArrayList<>(DATA_SOURCES);
+        entries.removeIf(entry -> dataSourceType.equals(entry.getDataSourceType()));
+        registry = new Registry(entries);
+    }
+
+    /**
+     * Unregister a custom data source factory.
+     *
+     * @param factory a factory that was registered by <code>register(Class, Function)</code>.
+     */
+    public static synchronized void unregister(Function<?, ? extends DataSource> factory) {
+        final List<DataSourceEntry> entries = new ArrayList<>(DATA_SOURCES);
+        entries.removeIf(entry -> entry.factory == factory);
+        registry = new Registry(entries);
     }
 
     /**
@@ -79,11 +132,9 @@ public abstract class DataSources {
         if (object == null) {
             return emptyDataSource;
         }
-        for (int i = DATA_SOURCES.size() - 1; i >= 0; i--) {
-            final DataSourceEntry dataSourceEntry = DATA_SOURCES.get(i);
-            if (dataSourceEntry.support(object)) {
-                return dataSourceEntry.create(object);
-            }
+        final DataSourceEntry dataSourceEntry = registry.resolved.get(object.getClass());
+        if (dataSourceEntry != null) {
+            return dataSourceEntry.newDataSource(object);
         }
         LOG.severe("Can't create data source for [" + object + "] class [" + object.getClass() + "]");
         throw new UnsupportedOperationException("No data source available for [" + object + "] class [" +
@@ -123,6 +174,8 @@ public abstract class DataSources {
 
         private final Class supportedType;
         private final Class dataSourceType;
+        private final Function<Object, DataSource> factory;
+        private volatile Constructor<?> constructor;
 
         /**
          * Create new instance of <code>DataSourceEntry</code>.
@@ -133,6 +186,19 @@ public abstract class DataSources {
         public DataSourceEntry(Class supportedType, Class dataSourceType) {
             this.supportedType = supportedType;
             this.dataSourceType = dataSourceType;
+            this.factory = null;
+        }
+
+        /**
+         * Create new instance of <code>DataSourceEntry</code> that uses a factory to create data sources.
+         *
+         * @param supportedType class of object that can be handled by this data source.
+         * @param factory creates the data source from a value of <code>supportedType</code>.
+         */
+        public DataSourceEntry(Class supportedType, Function<?, ? extends DataSource> factory) {
+            this.supportedType = supportedType;
+            this.dataSourceType = null;
+            this.factory = (Function<Object, DataSource>) factory;
         }
 
         /**
@@ -148,7 +214,8 @@ public abstract class DataSources {
         /**
          * Get the <code>DataSource</code> that will be created if a matching value was found.
          *
-         * @return a <code>Class</code> that should be an implementation of <code>DataSource</code>.
+         * @return a <code>Class</code> that should be an implementation of <code>DataSource</code> or
+         *         <code>null</code> if this entry uses a factory.
          */
         public Class getDataSourceType() {
             return dataSourceType;
@@ -163,7 +230,17 @@ public abstract class DataSources {
          * @return <code>true</code> if this object can be used as value source for <code>DataSource</code>.
          */
         public boolean support(Object object) {
-            return supportedType.isAssignableFrom(object.getClass());
+            return support(object.getClass());
+        }
+
+        /**
+         * Determine if the <code>DataSource</code> can be used for values of a class.
+         *
+         * @param type the class of value.
+         * @return <code>true</code> if <code>type</code> is <code>supportedType</code> or its subclass.
+         */
+        public boolean support(Class type) {
+            return supportedType.isAssignableFrom(type);
         }
 
         /**
@@ -177,8 +254,26 @@ public abstract class DataSources {
                 throw new UnsupportedOperationException("[" + object + "] type [" + object.getClass() +
                     "] is not supported by [" + dataSourceType + "]");
             }
+            return newDataSource(object);
+        }
+
+        /**
+         * Create a new instance of <code>DataSource</code> from an <code>object</code> that is known to be
+         * supported.  The constructor of <code>dataSourceType</code> is looked up only once.
+         *
+         * @param object the object that contains value.
+         * @return a new <code>DataSource</code>.
+         */
+        DataSource newDataSource(Object object) {
+            if (factory != null) {
+                return factory.apply(object);
+            }
             try {
-                final Constructor constructor = dataSourceType.getConstructor(supportedType);
+                Constructor<?> constructor = this.constructor;
+                if (constructor == null) {
+                    constructor = dataSourceType.getConstructor(supportedType);
+                    this.constructor = constructor;
+                }
                 return (DataSource) constructor.newInstance(object);
             } catch (final NoSuchMethodException e) {
                 LOG.severe("Can't find constructor that accept [" + object.getClass().getName() + "] for [" +
@@ -192,4 +287,32 @@ public abstract class DataSources {
 
     }
 
+    /**
+     * An immutable snapshot of registered data sources together with the entry resolved for every class.
+     */
+    private static final class Registry {
+
+        private final DataSourceEntry[] entries;
+        private final ClassValue<DataSourceEntry> resolved = new ClassValue<DataSourceEntry>() {
+            @Override
+            protected DataSourceEntry computeValue(Class<?> type) {
+                for (int i = entries.length - 1; i >= 0; i--) {
+                    if (entries[i].support(type)) {
+                        return entries[i];
+                    }
+                }
+                return null;
+            }
+        };
+
+        /**
+         * Create a new instance of <code>Registry</code>.
+         *
+         * @param entries registered entries in order of registration.
+         */
+        private Registry(List<DataSourceEntry> entries) {
+            this.entries = entries.toArray(new DataSourceEntry[0]);
+        }
+    }
+
 }
@@ -17,6 +17,9 @@ package simple.escp.dom;
 
 /**
  * DOM class to represent each line in <code>Page</code>.
+ *
+ * <p>A line may be shared by a report and the reports cloned from it.  Pages of a cloned report never store
+ * numbers in their lines, use {@link Page#getLineNumber(Line)} and {@link Page#getGlobalLineNumber(int)} instead.
  */
 public abstract class Line {
 
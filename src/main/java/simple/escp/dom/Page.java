@@ -20,9 +20,12 @@ import simple.escp.dom.line.ListLine;
 import simple.escp.dom.line.TableLine;
 import simple.escp.dom.line.TextLine;
 import simple.escp.util.EscpUtil;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.logging.Logger;
 
 /**
@@ -35,24 +38,39 @@ public class Page {
 
     private TextLine[] header;
     private TextLine[] footer;
-    private List<Line> content;
+    private ContentList content;
     private Integer pageNumber;
     private Integer pageLength;
+    private Report report;
+    private Line[] lines;
+    private int[] globalLineNumbers;
+    private boolean sharedHeaderAndFooter;
+    private boolean sharesLines;
+    private int numberOfTableLines;
+    private int numberOfListLines;
+    private int numberOfDynamicLines;
 
     /**
-     * Create a clone from another Page.
+     * Create a clone from another Page.  The clone shares its content, header and footer with
+     * <code>anotherPage</code> until one of them adds, removes or replaces a line, so cloning doesn't copy
+     * anything.  The clone never stores numbers in the lines it shares, see {@link #getLineNumber(Line)}.
      *
      * @param anotherPage a <code>Page</code> to clone.
      * @param pageLength maximum number of lines for this page.  Set <code>null</code> for unlimited lines in this
      *                   page.
      */
     public Page(Page anotherPage, Integer pageLength) {
-        content = new ArrayList<>();
-        for (Line line : anotherPage.content) {
-            content.add(line);
+        content = anotherPage.content.share(this);
+        numberOfTableLines = anotherPage.numberOfTableLines;
+        numberOfListLines = anotherPage.numberOfListLines;
+        numberOfDynamicLines = anotherPage.numberOfDynamicLines;
+        header = anotherPage.header;
+        footer = anotherPage.footer;
+        sharedHeaderAndFooter = true;
+        if (!anotherPage.sharedHeaderAndFooter) {
+            anotherPage.sharedHeaderAndFooter = true;
         }
-        header = Arrays.copyOf(anotherPage.getHeader(), anotherPage.getHeader().length);
-        footer = Arrays.copyOf(anotherPage.getFooter(), anotherPage.getFooter().length);
+        sharesLines = true;
         pageNumber = anotherPage.getPageNumber();
         this.pageLength = pageLength;
     }
@@ -71,7 +89,7 @@ public class Page {
      *                   page.
      */
     public Page(List<Line> content, TextLine[] header, TextLine[] footer, Integer pageNumber, Integer pageLength) {
-        this.content = content;
+        this.content = new ContentList(content, false);
         this.header = header == null ? new TextLine[0] : header;
         this.footer = footer == null ? new TextLine[0] : footer;
         this.pageNumber = pageNumber;
@@ -93,6 +111,7 @@ public class Page {
      */
     public void setHeader(TextLine[] header) {
         this.header = Arrays.copyOf(header, header.length);
+        layoutChanged();
     }
 
     /**
@@ -110,10 +129,11 @@ public class Page {
      */
     public void setFooter(TextLine[] footer) {
         this.footer = Arrays.copyOf(footer, footer.length);
+        layoutChanged();
     }
 
     /**
-     * Get the content of this page.
+     * Get the content of this page.  Changes to the returned <code>List</code> will be reflected in this page.
      *
      * @return content of this page.
      */
@@ -133,7 +153,12 @@ public class Page {
                 throw new IllegalArgumentException("Page overflow.");
             }
         }
-        this.content = content;
+        numberOfTableLines = 0;
+        numberOfListLines = 0;
+        numberOfDynamicLines = 0;
+        this.content = new ContentList(content, false);
+        notifyReport();
+        layoutChanged();
     }
 
     /**
@@ -154,6 +179,67 @@ public class Page {
         this.pageNumber = pageNumber;
     }
 
+    /**
+     * Set the <code>Report</code> that owns this page.  The report will be notified when this page gains its
+     * first, or loses its last, dynamic line of every kind.
+     *
+     * @param report the owner of this page.
+     */
+    void setReport(Report report) {
+        this.report = report;
+    }
+
+    /**
+     * Mark this page as a page of a report that shares its lines with another report.  Numbers of lines are
+     * kept by this page only and <code>header</code> and <code>footer</code> are copied before they are changed.
+     * This is called by <code>Report</code> for new pages of a cloned report.
+     */
+    void shareLines() {
+        sharesLines = true;
+        sharedHeaderAndFooter = true;
+    }
+
+    /**
+     * Inform the owner of this page that this page may have started or stopped having a kind of dynamic line.
+     */
+    private void notifyReport() {
+        if (report != null) {
+            report.dynamicLinesChanged(this);
+        }
+    }
+
+    /**
+     * Discard the numbering of lines in this page because lines have been added, removed or moved.  The lines
+     * will be numbered again the next time they are retrieved.
+     */
+    private void layoutChanged() {
+        lines = null;
+        globalLineNumbers = null;
+        if (report != null) {
+            report.layoutChanged();
+        }
+    }
+
+    /**
+     * Keep the numbering of lines when a line is replaced by another line at the same position.
+     *
+     * @param index the index of replaced line, starting from <code>0</code> for the first line of header.
+     * @param oldLine the replaced line.
+     * @param newLine the new line.
+     */
+    private void lineReplaced(int index, Line oldLine, Line newLine) {
+        if (lines == null) {
+            return;
+        }
+        lines[index] = newLine;
+        if (newLine != null && !sharesLines) {
+            newLine.setLineNumber(index + 1);
+            if (globalLineNumbers != null) {
+                newLine.setGlobalLineNumber(getGlobalLineNumberAt(index));
+            }
+        }
+    }
+
     /**
      * Get maximum number of lines for this page.
      *
@@ -283,6 +369,37 @@ public class Page {
         return result;
     }
 
+    /**
+     * Move every content line from <code>lineNumber</code> to the end of <code>pending</code>, then fill this page
+     * with lines taken from the head of <code>pending</code> until this page is full.  This is used by
+     * <code>Report</code> to insert many lines and reflow the following pages in one pass.
+     *
+     * @param lineNumber the line number position in which lines from <code>pending</code> will be placed.
+     * @param pending lines that are waiting to be placed.  Lines that don't fit in this page are left in it.
+     * @return number of lines from <code>pending</code> that were placed in this page.
+     */
+    int reflow(int lineNumber, Deque<Line> pending) {
+        if (lineNumber < header.length) {
+            throw new IllegalArgumentException("Line number can't be inserted before header: " + lineNumber);
+        }
+        if ((pageLength != null) && (lineNumber > pageLength)) {
+            throw new IllegalArgumentException("Invalid line number: " + lineNumber);
+        }
+        int index = lineNumber - header.length - 1;
+        if (index > content.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + content.size());
+        }
+        List<Line> tail = content.subList(index, content.size());
+        pending.addAll(tail);
+        tail.clear();
+        int available = pageLength == null ? pending.size() :
+            Math.min(pending.size(), pageLength - header.length - footer.length - content.size());
+        for (int i = 0; i < available; i++) {
+            content.add(pending.removeFirst());
+        }
+        return Math.max(available, 0);
+    }
+
     /**
      * Change the content of a line.  Line number for the first line (starting from header) is <code>1</code>.
      *
@@ -294,14 +411,48 @@ public class Page {
             throw new IllegalArgumentException("Invalid line number: " + lineNumber);
         }
         if (lineNumber <= header.length) {
+            ownHeaderAndFooter();
+            Line oldLine = header[lineNumber - 1];
             header[lineNumber - 1] = (TextLine) line;
+            lineReplaced(lineNumber - 1, oldLine, line);
         } else if (lineNumber > header.length + content.size()) {
+            ownHeaderAndFooter();
+            Line oldLine = footer[lineNumber - header.length - content.size() - 1];
             footer[lineNumber - header.length - content.size() - 1] = (TextLine) line;
+            lineReplaced(lineNumber - 1, oldLine, line);
         } else {
             content.set(lineNumber - header.length - 1, line);
         }
     }
 
+    /**
+     * Show another line at a line number without changing the header, content or footer of this page.  This is
+     * used to store the result of evaluating a line, so a page that shares its lines with another page doesn't
+     * have to copy them.  The replacement is discarded when lines of this page are added, removed or moved.
+     *
+     * @param lineNumber the line number of the replaced line, starting from <code>1</code>.
+     * @param line the line that will be returned by {@link #getLines()} at <code>lineNumber</code>.
+     */
+    public void overlay(int lineNumber, Line line) {
+        if (lineNumber < 1 || lineNumber > getNumberOfLines()) {
+            throw new IllegalArgumentException("Invalid line number: " + lineNumber);
+        }
+        Line[] current = lines();
+        lineReplaced(lineNumber - 1, current[lineNumber - 1], line);
+    }
+
+    /**
+     * Copy header and footer if they are shared with another page, so they can be modified without affecting
+     * other pages.
+     */
+    private void ownHeaderAndFooter() {
+        if (sharedHeaderAndFooter) {
+            header = Arrays.copyOf(header, header.length);
+            footer = Arrays.copyOf(footer, footer.length);
+            sharedHeaderAndFooter = false;
+        }
+    }
+
     /**
      * Get current number of lines in this page that have been written.
      *
@@ -312,28 +463,112 @@ public class Page {
     }
 
     /**
-     * Get all lines in this page.
+     * Get all lines in this page.  Lines are numbered only when this page has been changed since the last call.
+     * Pages that share their lines with another report don't number the returned lines, see
+     * {@link #getLineNumber(Line)}.
      *
      * @return all lines of this page (excluding empty lines).
      */
     public Line[] getLines() {
-        Line[] result = new Line[getNumberOfLines()];
-        int index = 0;
-        for (TextLine line : header) {
-            line.setLineNumber(index + 1);
-            result[index++] = line;
-        }
-        for (Line line : content) {
-            if (line != null) {
-                line.setLineNumber(index + 1);
+        return lines().clone();
+    }
+
+    /**
+     * Get the numbered lines of this page without copying them.  The returned array must not be modified.
+     *
+     * @return all lines of this page.
+     */
+    Line[] lines() {
+        if (lines == null) {
+            Line[] result = new Line[getNumberOfLines()];
+            int index = 0;
+            for (TextLine line : header) {
+                result[index++] = line;
+            }
+            for (Line line : content) {
+                result[index++] = line;
+            }
+            for (Line line : footer) {
+                result[index++] = line;
             }
-            result[index++] = line;
+            if (!sharesLines) {
+                for (int i = 0; i < result.length; i++) {
+                    if (result[i] != null) {
+                        result[i].setLineNumber(i + 1);
+                    }
+                }
+            }
+            lines = result;
         }
-        for (Line line : footer) {
-            line.setLineNumber(index + 1);
-            result[index++] = line;
+        return lines;
+    }
+
+    /**
+     * Assign global line numbers to the lines of this page.  This is called by <code>Report</code> for every
+     * page, in order, when the layout of the report has been changed.
+     *
+     * @param globalLineNumber the global line number for the first line of this page.
+     * @return the global line number for the first line of the next page.
+     */
+    int numberLines(int globalLineNumber) {
+        Line[] current = lines();
+        int[] result = new int[current.length];
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != null) {
+                result[i] = globalLineNumber++;
+                if (!sharesLines) {
+                    current[i].setGlobalLineNumber(result[i]);
+                }
+            }
         }
-        return result;
+        globalLineNumbers = result;
+        return globalLineNumber;
+    }
+
+    /**
+     * Get the line number of a line in this page.  Unlike {@link Line#getLineNumber()}, this method also works
+     * for lines that are shared with another report.
+     *
+     * @param line a line of this page.
+     * @return the line number starting from <code>1</code>, or <code>null</code> if <code>line</code> is not in
+     *         this page.
+     */
+    public Integer getLineNumber(Line line) {
+        Line[] current = lines();
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == line) {
+                return i + 1;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the global line number of a line in this page.  Unlike {@link Line#getGlobalLineNumber()}, this method
+     * also works for lines that are shared with another report.
+     *
+     * @param lineNumber a line number starting from <code>1</code>.
+     * @return the global line number, or <code>null</code> if this page doesn't belong to a report.
+     */
+    public Integer getGlobalLineNumber(int lineNumber) {
+        if (lineNumber < 1 || lineNumber > getNumberOfLines()) {
+            throw new IllegalArgumentException("Number of lines [" + lineNumber + "] is out of range.");
+        }
+        if (report != null) {
+            report.numberLines();
+        }
+        return globalLineNumbers == null ? null : getGlobalLineNumberAt(lineNumber - 1);
+    }
+
+    /**
+     * Get the global line number at an index of <code>globalLineNumbers</code>.
+     *
+     * @param index the index of line, starting from <code>0</code>.
+     * @return the global line number, or <code>null</code> for a <code>null</code> line.
+     */
+    private Integer getGlobalLineNumberAt(int index) {
+        int result = globalLineNumbers[index];
+        return result == 0 ? null : result;
     }
 
     /**
@@ -346,15 +581,7 @@ public class Page {
         if (lineNumber < 0 || lineNumber > getNumberOfLines()) {
             throw new IllegalArgumentException("Number of lines [" + lineNumber + "] is out of range.");
         }
-        if (lineNumber <= header.length) {
-            return header[lineNumber - 1];
-        }
-        lineNumber = lineNumber - header.length;
-        if (lineNumber <= content.size()) {
-            return content.get(lineNumber - 1);
-        }
-        lineNumber = lineNumber - content.size();
-        return footer[lineNumber - 1];
+        return lines()[lineNumber - 1];
     }
 
     /**
@@ -395,7 +622,7 @@ public class Page {
      */
     public String convertToString(boolean autoLinefeed, boolean autoFormfeed) {
         StringBuilder result = new StringBuilder();
-        for (Line line: getLines()) {
+        for (Line line: lines()) {
             if (line instanceof TextLine) {
                 result.append(((TextLine) line).getText());
                 result.append(autoLinefeed ? EscpUtil.CR : EscpUtil.CRLF);
@@ -413,29 +640,47 @@ public class Page {
      * @return <code>true</code> if this page contains dynamic line or <code>false</code> if otherwise.
      */
     public boolean hasDynamicLine() {
-        for (Line line: content) {
-            if (line != null && line.isDynamic()) {
-                return true;
-            }
-        }
-        return false;
+        return numberOfDynamicLines > 0;
+    }
+
+    /**
+     * Check if this page contains one or more <code>TableLine</code>.
+     *
+     * @return <code>true</code> if this page contains <code>TableLine</code> or <code>false</code> if otherwise.
+     */
+    public boolean hasTableLine() {
+        return numberOfTableLines > 0;
+    }
+
+    /**
+     * Check if this page contains one or more <code>ListLine</code>.
+     *
+     * @return <code>true</code> if this page contains <code>ListLine</code> or <code>false</code> if otherwise.
+     */
+    public boolean hasListLine() {
+        return numberOfListLines > 0;
     }
 
     /**
-     * Get all <code>TableLine</code> in this page.  This method also stores line number for each returned
-     * <code>TableLine</code>.  To inspect line number for <code>TableLine</code>,
-     * use <code>TableLine.getLineNumber()</code> method.
+     * Get all <code>TableLine</code> in this page.  Unless this page shares its lines with another report, this
+     * method also stores line number for each returned <code>TableLine</code>.  To inspect line number for
+     * <code>TableLine</code>, use <code>TableLine.getLineNumber()</code> or {@link #getLineNumber(Line)}.
      *
      * @return <code>List</code> that contains <code>TableLine</code> in this page.  If no <code>TableLine</code>
      *         exists in this page, it will return an empty <code>List</code>.
      */
     public List<TableLine> getTableLines() {
-        List<TableLine> result = new ArrayList<>();
+        List<TableLine> result = new ArrayList<>(numberOfTableLines);
+        if (numberOfTableLines == 0) {
+            return result;
+        }
         int offset = header.length + 1;
         for (int i = 0; i < content.size(); i++) {
             if (content.get(i) instanceof TableLine) {
                 TableLine tableLine = (TableLine) content.get(i);
-                tableLine.setLineNumber(offset + i);
+                if (!sharesLines) {
+                    tableLine.setLineNumber(offset + i);
+                }
                 result.add(tableLine);
             }
         }
@@ -443,24 +688,156 @@ public class Page {
     }
 
     /**
-     * Get all <code>ListLine</code> in this page.  This method also stores line number for each returned
-     * <code>ListLine</code>.  To inspect line number for <code>ListLine</code>,
-     * use <code>ListLine.getLineNumber()</code> method.
+     * Get all <code>ListLine</code> in this page.  Unless this page shares its lines with another report, this
+     * method also stores line number for each returned <code>ListLine</code>.  To inspect line number for
+     * <code>ListLine</code>, use <code>ListLine.getLineNumber()</code> or {@link #getLineNumber(Line)}.
      *
      * @return <code>List</code> that contains <code>TableLine</code> in this page.  If no <code>TableLine</code>
      *         exists in this page, it will return an empty <code>List</code>.
      */
     public List<ListLine> getListLines() {
-        List<ListLine> result = new ArrayList<>();
+        List<ListLine> result = new ArrayList<>(numberOfListLines);
+        if (numberOfListLines == 0) {
+            return result;
+        }
         int offset = header.length + 1;
         for (int i = 0; i < content.size(); i++) {
             if (content.get(i) instanceof ListLine) {
                 ListLine listLine = (ListLine) content.get(i);
-                listLine.setLineNumber(offset + i);
+                if (!sharesLines) {
+                    listLine.setLineNumber(offset + i);
+                }
                 result.add(listLine);
             }
         }
         return result;
     }
 
+    /**
+     * The content of a <code>Page</code>.  Every change goes through this list, so the page always knows how many
+     * dynamic lines it has without scanning its content.  The lines can be shared with the content of cloned pages,
+     * in that case they are copied before the first change.
+     */
+    private final class ContentList extends AbstractList<Line> implements RandomAccess {
+
+        private List<Line> backing;
+        private boolean shared;
+
+        /**
+         * Create a new instance of <code>ContentList</code>.
+         *
+         * @param lines the lines that store the content.
+         * @param shared <code>true</code> if <code>lines</code> belongs to another page.  Dynamic lines of a
+         *               shared content are not counted because they are copied from the other page.
+         */
+        private ContentList(List<Line> lines, boolean shared) {
+            this.backing = lines;
+            this.shared = shared;
+            if (!shared) {
+                for (Line line : lines) {
+                    count(line, 1);
+                }
+            }
+        }
+
+        /**
+         * Create the content of a cloned page that shares the lines of this content.
+         *
+         * @param page the cloned page.
+         * @return content for <code>page</code>.
+         */
+        private ContentList share(Page page) {
+            if (!shared) {
+                shared = true;
+            }
+            return page.new ContentList(backing, true);
+        }
+
+        /**
+         * Copy the shared lines so they can be modified without affecting other pages.
+         */
+        private void own() {
+            if (shared) {
+                backing = new ArrayList<>(backing);
+                shared = false;
+            }
+        }
+
+        /**
+         * Update the number of dynamic lines of this page.
+         *
+         * @param line the line that was added or removed.
+         * @param delta <code>1</code> if the line was added or <code>-1</code> if it was removed.
+         */
+        private void count(Line line, int delta) {
+            if (line == null || !line.isDynamic()) {
+                return;
+            }
+            boolean hadDynamicLine = hasDynamicLine();
+            boolean hadTableLine = hasTableLine();
+            boolean hadListLine = hasListLine();
+            numberOfDynamicLines += delta;
+            if (line instanceof TableLine) {
+                numberOfTableLines += delta;
+            } else if (line instanceof ListLine) {
+                numberOfListLines += delta;
+            }
+            if (hadDynamicLine != hasDynamicLine() || hadTableLine != hasTableLine() ||
+                    hadListLine != hasListLine()) {
+                notifyReport();
+            }
+        }
+
+        @Override
+        public Line get(int index) {
+            return backing.get(index);
+        }
+
+        @Override
+        public int size() {
+            return backing.size();
+        }
+
+        @Override
+        public Line set(int index, Line line) {
+            own();
+            Line old = backing.set(index, line);
+            count(old, -1);
+            count(line, 1);
+            lineReplaced(header.length + index, old, line);
+            return old;
+        }
+
+        @Override
+        public void add(int index, Line line) {
+            own();
+            backing.add(index, line);
+            modCount++;
+            count(line, 1);
+            layoutChanged();
+        }
+
+        @Override
+        public Line remove(int index) {
+            own();
+            Line old = backing.remove(index);
+            modCount++;
+            count(old, -1);
+            layoutChanged();
+            return old;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            own();
+            List<Line> range = backing.subList(fromIndex, toIndex);
+            for (Line line : range) {
+                count(line, -1);
+            }
+            range.clear();
+            modCount++;
+            layoutChanged();
+        }
+    }
+
 }
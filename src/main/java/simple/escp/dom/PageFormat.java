@@ -16,6 +16,8 @@
 package simple.escp.dom;
 
 import simple.escp.util.EscpUtil;
+import simple.escp.util.EscpWriter;
+import java.io.IOException;
 
 /**
  *  <code>PageFormat</code> represent page format section of a template.  It will be used
@@ -36,6 +38,7 @@ public class PageFormat {
     private boolean autoLineFeed = false;
     private boolean autoFormFeed = true;
     private boolean usePageLengthFromPrinter = true;
+    private byte[] preamble;
 
     /**
      * Set vertical line spacing.
@@ -44,6 +47,7 @@ public class PageFormat {
      *              <code>"1/6"</code>, or <code>"ONE_PER_SIX_INCH"</code>.
      */
     public void setLineSpacing(String value) {
+        preamble = null;
         if ("1/8".equals(value) || "ONE_PER_EIGHT_INCH".equals(value)) {
             this.lineSpacing = LINE_SPACING.ONE_PER_EIGHT_INCH;
         } else if ("1/6".equals(value) || "ONE_PER_SIX_INCH".equals(value)) {
@@ -72,6 +76,7 @@ public class PageFormat {
      *              <code>"17"</code>, and <code>"20"</code>.
      */
     public void setCharacterPitch(String value) {
+        preamble = null;
         if ("5".equals(value) || "5 cpi".equals(value)) {
             this.characterPitch = EscpUtil.CHARACTER_PITCH.CPI_5;
         } else if ("6".equals(value) || "6 cpi".equals(value)) {
@@ -105,6 +110,7 @@ public class PageFormat {
      *              and <code>"sans-serif"</code> or <code>"1"</code> for Sans serif's type face.
      */
     public void setTypeface(String value) {
+        preamble = null;
         if ("roman".equals(value) || "0".equals(value)) {
             this.typeface = EscpUtil.TYPEFACE.ROMAN;
         } else if ("sans-serif".equals(value) || "1".equals(value)) {
@@ -120,6 +126,7 @@ public class PageFormat {
      * @param pageLength number of lines that count as a page.
      */
     public void setPageLength(Integer pageLength) {
+        preamble = null;
         this.pageLength = pageLength;
     }
 
@@ -139,6 +146,7 @@ public class PageFormat {
      * @param pageWidth number of characters measured from the left-most printable column.
      */
     public void setPageWidth(Integer pageWidth) {
+        preamble = null;
         this.pageWidth = pageWidth;
     }
 
@@ -157,6 +165,7 @@ public class PageFormat {
      * @param leftMargin number of characters measured from the left-most printable column.
      */
     public void setLeftMargin(Integer leftMargin) {
+        preamble = null;
         this.leftMargin = leftMargin;
     }
 
@@ -176,6 +185,7 @@ public class PageFormat {
      * @param rightMargin number of characters before reaching page width.
      */
     public void setRightMargin(Integer rightMargin) {
+        preamble = null;
         this.rightMargin = rightMargin;
     }
 
@@ -195,6 +205,7 @@ public class PageFormat {
      * @param bottomMargin number of line above top-of-form position of the next page.
      */
     public void setBottomMargin(Integer bottomMargin) {
+        preamble = null;
         this.bottomMargin = bottomMargin;
     }
 
@@ -214,6 +225,7 @@ public class PageFormat {
      * @param autoLineFeed current auto line-feed status.  Default value is <code>false</code>.
      */
     public void setAutoLineFeed(boolean autoLineFeed) {
+        preamble = null;
         this.autoLineFeed = autoLineFeed;
     }
 
@@ -234,6 +246,7 @@ public class PageFormat {
      * @param autoFormFeed enable or disable auto form-feed.  Default value is <code>true</code>.
      */
     public void setAutoFormFeed(boolean autoFormFeed) {
+        preamble = null;
         this.autoFormFeed = autoFormFeed;
     }
 
@@ -264,6 +277,7 @@ public class PageFormat {
      *                             <code>false</code>, page length from software configuration will be used.
      */
     public void setUsePrinterPageLength(boolean usePageLengthFromPrinter) {
+        preamble = null;
         this.usePageLengthFromPrinter = usePageLengthFromPrinter;
     }
 
@@ -327,6 +341,22 @@ public class PageFormat {
         return result.toString();
     }
 
+    /**
+     * Write ESC/P commands for this page format as bytes.  The bytes are computed once and reused until this
+     * page format is modified.
+     *
+     * @param writer the destination of ESC/P commands.
+     * @throws IOException if an I/O error occurs while writing to <code>writer</code>.
+     */
+    public void build(EscpWriter writer) throws IOException {
+        byte[] bytes = preamble;
+        if (bytes == null) {
+            bytes = EscpWriter.toBytes(build());
+            preamble = bytes;
+        }
+        writer.write(bytes);
+    }
+
     /**
      * This enum represents available fixed vertical line spacings.
      */
@@ -16,9 +16,14 @@
 package simple.escp.dom;
 
 import simple.escp.dom.line.EmptyLine;
+import simple.escp.dom.line.ListLine;
 import simple.escp.dom.line.TextLine;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Logger;
@@ -40,23 +45,35 @@ public class Report implements Iterable<Page> {
     private TextLine[] footer;
     private TextLine[] lastPageFooter;
     private boolean lineBreak;
+    private BitSet dynamicPages = new BitSet();
+    private BitSet tablePages = new BitSet();
+    private BitSet listPages = new BitSet();
+    private boolean numbered;
+    private boolean sharesLines;
 
     /**
-     * Create a clone from another report.
+     * Create a clone from another report.  Pages of the clone share their content, header and footer with
+     * <code>anotherReport</code> and only a page that is modified copies them.  The clone never stores line
+     * numbers in the lines it shares, so cloning a report is cheap and filling a clone never changes the lines
+     * of <code>anotherReport</code>.
      *
      * @param anotherReport a <code>Report</code> to clone.
      */
     public Report(Report anotherReport) {
         init(anotherReport.getPageFormat(), anotherReport.getHeader(), anotherReport.getFooter(),
             anotherReport.getLastPageFooter());
-        pages = new ArrayList<>();
-        for (Page page : anotherReport) {
-            pages.add(new Page(page, anotherReport.getPageFormat().getPageLength()));
+        pages = new ArrayList<>(anotherReport.pages.size());
+        for (Page page : anotherReport.pages) {
+            Page copy = new Page(page, anotherReport.getPageFormat().getPageLength());
+            pages.add(copy);
+            copy.setReport(this);
+            dynamicLinesChanged(copy);
         }
         if (!pages.isEmpty()) {
             currentPage = pages.get(pages.size() - 1);
         }
         lastPageNumber = anotherReport.getLastPageNumber();
+        sharesLines = true;
     }
 
     /**
@@ -251,12 +268,8 @@ public class Report implements Iterable<Page> {
      *         in this report has <code>TableLine</code>.
      */
     public Page getFirstPageWithTableLines() {
-        for (Page page : pages) {
-            if (!page.getTableLines().isEmpty()) {
-                return page;
-            }
-        }
-        return null;
+        int index = tablePages.nextSetBit(0);
+        return index < 0 ? null : pages.get(index);
     }
 
     /**
@@ -266,12 +279,35 @@ public class Report implements Iterable<Page> {
      *         in this report has <code>ListLine</code>.
      */
     public Page getFirstPageWithListLines() {
-        for (Page page : pages) {
-            if (!page.getListLines().isEmpty()) {
-                return page;
+        int index = listPages.nextSetBit(0);
+        return index < 0 ? null : pages.get(index);
+    }
+
+    /**
+     * Discard the global numbering of lines.  This is called by a <code>Page</code> of this report when its lines
+     * have been added, removed or moved.
+     */
+    void layoutChanged() {
+        numbered = false;
+    }
+
+    /**
+     * Update the index of pages that have dynamic lines.  This is called by a <code>Page</code> of this report
+     * when it gains its first, or loses its last, dynamic line of a kind.
+     *
+     * @param page the page that has been changed.
+     */
+    void dynamicLinesChanged(Page page) {
+        int index = page.getPageNumber() == null ? -1 : page.getPageNumber() - 1;
+        if (index < 0 || index >= pages.size() || pages.get(index) != page) {
+            index = pages.indexOf(page);
+            if (index < 0) {
+                return;
             }
         }
-        return null;
+        dynamicPages.set(index, page.hasDynamicLine());
+        tablePages.set(index, page.hasTableLine());
+        listPages.set(index, page.hasListLine());
     }
 
     /**
@@ -327,12 +363,20 @@ public class Report implements Iterable<Page> {
         if (plain) {
             LOG.fine("Creating a new page without any header and footer.");
             page = new Page(new ArrayList<Line>(), null, null, lastPageNumber, pageFormat.getPageLength());
+        } else if (sharesLines) {
+            LOG.fine("Creating a new page that shares report's header and footer.");
+            page = new Page(new ArrayList<Line>(), header, footer, lastPageNumber, pageFormat.getPageLength());
         } else {
             LOG.fine("Creating a new page that has report's header and footer.");
             page = new Page(new ArrayList<Line>(), copyHeader(), copyFooter(), lastPageNumber,
                 pageFormat.getPageLength());
         }
+        if (sharesLines) {
+            page.shareLines();
+        }
         pages.add(page);
+        page.setReport(this);
+        numbered = false;
         currentPage = page;
         return page;
     }
@@ -411,23 +455,55 @@ public class Report implements Iterable<Page> {
      * @param newPageFirstLines these lines will be added to the new page if this insertion creates new page.
      */
     public void insert(Line line, int pageNumber, int lineNumber, List<? extends Line> newPageFirstLines) {
+        splice(pageNumber, lineNumber, Collections.singletonList(line), newPageFirstLines);
+    }
+
+    /**
+     * Insert multiple lines at certain page and certain position.  Lines that no longer fit in a page are moved
+     * to the beginning of the next page, and new pages will be created if necessary.  All pages are reflowed in a
+     * single forward pass, so the cost doesn't depend on the number of lines multiplied by the number of pages.
+     *
+     * @param pageNumber the page number in which the new lines will be inserted.
+     * @param lineNumber the line number in the page where the first new line will be inserted.
+     * @param lines the new lines in order.
+     */
+    public void splice(int pageNumber, int lineNumber, List<? extends Line> lines) {
+        splice(pageNumber, lineNumber, lines, null);
+    }
+
+    /**
+     * Insert multiple lines at certain page and certain position.  Lines that no longer fit in a page are moved
+     * to the next page after <code>newPageFirstLines</code>, and new pages will be created if necessary.
+     *
+     * @param pageNumber the page number in which the new lines will be inserted.
+     * @param lineNumber the line number in the page where the first new line will be inserted.
+     * @param lines the new lines in order.
+     * @param newPageFirstLines these lines will be added to every new page created by this insertion.
+     */
+    public void splice(int pageNumber, int lineNumber, List<? extends Line> lines,
+                       List<? extends Line> newPageFirstLines) {
         if (pageNumber < 1 || pageNumber > pages.size()) {
             throw new IllegalArgumentException("Invalid page number: " + pageNumber);
         }
-        Page startPage = pages.get(pageNumber - 1);
-        Line discardedLine = startPage.insert(line, lineNumber);
-        Page currentPage = nextPage(startPage);
-        while (discardedLine != null) {
-            if (currentPage == null) {
-                currentPage = newPage(false);
+        int nextLineNumber = header.length + 1 + (newPageFirstLines == null ? 0 : newPageFirstLines.size());
+        Deque<Line> pending = new ArrayDeque<>(lines);
+        Page page = pages.get(pageNumber - 1);
+        page.reflow(lineNumber, pending);
+        while (!pending.isEmpty()) {
+            page = nextPage(page);
+            if (page == null) {
+                page = newPage(false);
                 if (newPageFirstLines != null) {
-                    currentPage.append(newPageFirstLines);
+                    page.append(newPageFirstLines);
                 }
+                if (page.reflow(nextLineNumber, pending) == 0) {
+                    throw new IllegalStateException("New page doesn't have enough space for [" + pending.size() +
+                        "] remaining lines.");
+                }
+            } else {
+                page.reflow(nextLineNumber, pending);
             }
-            discardedLine = currentPage.insert(discardedLine, header.length + 1  +
-                (newPageFirstLines == null ? 0 : newPageFirstLines.size()));
-            LOG.fine("Discarded line for next page is [" + discardedLine + "]");
-            currentPage = nextPage(currentPage);
+            LOG.fine("Lines for next page: [" + pending.size() + "]");
         }
     }
 
@@ -448,12 +524,40 @@ public class Report implements Iterable<Page> {
      * @return <code>true</code> if this report contains dynamic line or <code>false</code> if otherwise.
      */
     public boolean hasDynamicLine() {
+        return !dynamicPages.isEmpty();
+    }
+
+    /**
+     * Compile the text of every lines in this report into <code>CompiledText</code>.  This is usually executed
+     * once after parsing, so that every subsequent fills can reuse the compiled form instead of scanning the
+     * text for placeholders again.
+     */
+    public void compile() {
+        compile(header);
+        compile(footer);
+        compile(lastPageFooter);
         for (Page page : pages) {
-            if (page.hasDynamicLine()) {
-                return true;
+            for (Line line : page.lines()) {
+                if (line instanceof TextLine) {
+                    ((TextLine) line).getCompiledText();
+                } else if (line instanceof ListLine) {
+                    ((ListLine) line).getCompiledLineSource();
+                }
+            }
+        }
+    }
+
+    /**
+     * Compile the text of lines.
+     *
+     * @param lines the lines that will be compiled.
+     */
+    private void compile(TextLine[] lines) {
+        for (TextLine line : lines) {
+            if (line != null) {
+                line.getCompiledText();
             }
         }
-        return false;
     }
 
     /**
@@ -464,7 +568,7 @@ public class Report implements Iterable<Page> {
     public List<Line> getFlatLines() {
         List<Line> result = new ArrayList<>();
         for (Page page : pages) {
-            for (Line line : page.getLines()) {
+            for (Line line : page.lines()) {
                 if (line instanceof EmptyLine) {
                     continue;
                 }
@@ -495,16 +599,28 @@ public class Report implements Iterable<Page> {
         return header.length + getContentLinesPerPage();
     }
 
+    /**
+     * Iterate pages of this report.  Global line numbers are assigned to every line only if pages have been changed
+     * since the last iteration.
+     *
+     * @return an <code>Iterator</code> of pages.
+     */
     @Override
     public Iterator<Page> iterator() {
-        int globalLineNumber = 1;
-        for (Page page : pages) {
-            for (Line line : page.getLines()) {
-                if (line != null) {
-                    line.setGlobalLineNumber(globalLineNumber++);
-                }
+        numberLines();
+        return pages.iterator();
+    }
+
+    /**
+     * Assign global line numbers to every page if pages have been changed since they were numbered.
+     */
+    void numberLines() {
+        if (!numbered) {
+            int globalLineNumber = 1;
+            for (Page page : pages) {
+                globalLineNumber = page.numberLines(globalLineNumber);
             }
+            numbered = true;
         }
-        return pages.iterator();
     }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.dom;
+
+import simple.escp.placeholder.Aggregate;
+
+/**
+ * This class represents an aggregate of a {@link simple.escp.dom.line.TableLine} that is maintained while rows
+ * are filled, such as the total of a column on the current page or the running total that is carried forward to
+ * the next page.  Its current value is available by name to placeholders in the page header and page footer of
+ * the table.
+ */
+public class TableTotal {
+
+    private String name;
+    private String source;
+    private Aggregate aggregate;
+    private boolean running;
+
+    /**
+     * Construct a new <code>TableTotal</code>.
+     *
+     * @param name the name that placeholders use to refer to this total, such as <code>pageTotal</code>.
+     * @param source the member of every row that will be aggregated, such as <code>amount</code>.
+     * @param aggregate the aggregate function.
+     * @param running <code>true</code> if this total includes all rows so far, or <code>false</code> if it only
+     *                includes rows on the current page.
+     */
+    public TableTotal(String name, String source, Aggregate aggregate, boolean running) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Name of total can't be empty.");
+        }
+        if (source == null || source.isEmpty()) {
+            throw new IllegalArgumentException("Source of total can't be empty.");
+        }
+        if (aggregate == null) {
+            throw new IllegalArgumentException("Aggregate of total can't be null.");
+        }
+        this.name = name;
+        this.source = source;
+        this.aggregate = aggregate;
+        this.running = running;
+    }
+
+    /**
+     * Get the name of this total.
+     *
+     * @return the name that placeholders use to refer to this total.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the member of every row that will be aggregated.
+     *
+     * @return the member name, such as <code>amount</code>.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Get the aggregate function of this total.
+     *
+     * @return the aggregate function.
+     */
+    public Aggregate getAggregate() {
+        return aggregate;
+    }
+
+    /**
+     * Determine if this total is a running total.
+     *
+     * @return <code>true</code> if this total includes all rows so far, or <code>false</code> if it is reset at
+     *         every page.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+}
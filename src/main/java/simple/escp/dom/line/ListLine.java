@@ -16,6 +16,7 @@
 package simple.escp.dom.line;
 
 import simple.escp.dom.Line;
+import simple.escp.placeholder.CompiledText;
 import java.util.Arrays;
 
 /**
@@ -26,6 +27,7 @@ public class ListLine extends Line {
 
     private String source;
     private String lineSource;
+    private CompiledText compiledLineSource;
     private TextLine[] header;
     private TextLine[] footer;
 
@@ -64,6 +66,20 @@ public class ListLine extends Line {
         return lineSource;
     }
 
+    /**
+     * Get the compiled form of the placeholder text for every lines in this list.
+     *
+     * @return an instance of <code>CompiledText</code> for line source.
+     */
+    public CompiledText getCompiledLineSource() {
+        CompiledText result = compiledLineSource;
+        if (result == null) {
+            result = CompiledText.compile(lineSource);
+            compiledLineSource = result;
+        }
+        return result;
+    }
+
     /**
      * Get the header for this list.
      *
@@ -17,11 +17,13 @@ package simple.escp.dom.line;
 
 import simple.escp.dom.Line;
 import simple.escp.dom.TableColumn;
-import simple.escp.placeholder.BasicPlaceholder;
+import simple.escp.dom.TableTotal;
+import simple.escp.placeholder.PlaceholderSpec;
 import simple.escp.util.EscpUtil;
 import simple.escp.util.StringUtil;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -37,6 +39,9 @@ public class TableLine extends Line implements Iterable<TableColumn> {
     private boolean drawUnderlineSeparator;
     private TextLine[] header;
     private TextLine[] footer;
+    private List<TableTotal> totals = new ArrayList<>();
+    private TextLine[] pageHeader = new TextLine[0];
+    private TextLine[] pageFooter = new TextLine[0];
 
     /**
      * Create a new <code>TableLine</code>.
@@ -217,7 +222,7 @@ public class TableLine extends Line implements Iterable<TableColumn> {
             for (int columnIndex = 0; columnIndex < columns.size(); columnIndex++) {
                 TableColumn column = columns.get(columnIndex);
                 int width = column.getWidth() - (isDrawBorder() ? 1 : 0);
-                StringUtil.ALIGNMENT alignment = (new BasicPlaceholder(column.getText())).getAlignment();
+                StringUtil.ALIGNMENT alignment = PlaceholderSpec.basic(column.getText()).getAlignment();
                 if (alignment == null) {
                     alignment = StringUtil.ALIGNMENT.LEFT;
                 }
@@ -281,6 +286,66 @@ public class TableLine extends Line implements Iterable<TableColumn> {
         return Arrays.copyOf(footer, footer.length);
     }
 
+    /**
+     * Add a new total that is maintained while rows of this table are filled.
+     *
+     * @param total the new total.
+     * @return the added total.
+     */
+    public TableTotal addTotal(TableTotal total) {
+        totals.add(total);
+        return total;
+    }
+
+    /**
+     * Get all totals of this table.
+     *
+     * @return an unmodifiable list of totals.
+     */
+    public List<TableTotal> getTotals() {
+        return Collections.unmodifiableList(totals);
+    }
+
+    /**
+     * Retrieve the lines that are written after the header on every page of this table, except the first page.
+     * These lines may refer to totals of this table, for example to print the total that is brought forward from
+     * previous page.
+     *
+     * @return the page header, may be empty.
+     */
+    public TextLine[] getPageHeader() {
+        return Arrays.copyOf(pageHeader, pageHeader.length);
+    }
+
+    /**
+     * Set the lines that are written after the header on every page of this table, except the first page.
+     *
+     * @param pageHeader the page header or <code>null</code> to remove it.
+     */
+    public void setPageHeader(TextLine[] pageHeader) {
+        this.pageHeader = pageHeader == null ? new TextLine[0] : Arrays.copyOf(pageHeader, pageHeader.length);
+    }
+
+    /**
+     * Retrieve the lines that are written before the footer on every page of this table, including the last
+     * page.  These lines may refer to totals of this table, for example to print page total and the total that
+     * is carried forward to the next page.
+     *
+     * @return the page footer, may be empty.
+     */
+    public TextLine[] getPageFooter() {
+        return Arrays.copyOf(pageFooter, pageFooter.length);
+    }
+
+    /**
+     * Set the lines that are written before the footer on every page of this table, including the last page.
+     *
+     * @param pageFooter the page footer or <code>null</code> to remove it.
+     */
+    public void setPageFooter(TextLine[] pageFooter) {
+        this.pageFooter = pageFooter == null ? new TextLine[0] : Arrays.copyOf(pageFooter, pageFooter.length);
+    }
+
     @Override
     public Iterator<TableColumn> iterator() {
         return columns.iterator();
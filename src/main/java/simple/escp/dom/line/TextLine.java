@@ -16,6 +16,7 @@
 package simple.escp.dom.line;
 
 import simple.escp.dom.Line;
+import simple.escp.placeholder.CompiledText;
 
 /**
  * Implementation of <code>Line</code> for a line that consists of text.
@@ -23,6 +24,7 @@ import simple.escp.dom.Line;
 public class TextLine extends Line {
 
     private String text;
+    private CompiledText compiledText;
 
     /**
      * Create a new instance of <code>TextLine</code> from a string.
@@ -40,6 +42,7 @@ public class TextLine extends Line {
      */
     public TextLine(TextLine another) {
         this(another.getText());
+        this.compiledText = another.compiledText;
         setLineNumber(another.getLineNumber());
         setGlobalLineNumber(another.getGlobalLineNumber());
     }
@@ -60,6 +63,22 @@ public class TextLine extends Line {
      */
     public void setText(String text) {
         this.text = text;
+        this.compiledText = null;
+    }
+
+    /**
+     * Get the compiled form of the text of this line.  The text is compiled only once and the result is
+     * reused until the text is changed.
+     *
+     * @return an instance of <code>CompiledText</code> for this line.
+     */
+    public CompiledText getCompiledText() {
+        CompiledText result = compiledText;
+        if (result == null) {
+            result = CompiledText.compile(text);
+            compiledText = result;
+        }
+        return result;
     }
 
     /**
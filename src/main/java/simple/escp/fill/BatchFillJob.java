@@ -0,0 +1,312 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.fill;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import simple.escp.data.DataSource;
+import simple.escp.dom.Report;
+import simple.escp.fill.function.FunctionRegistry;
+
+/**
+ * <code>BatchFillJob</code> fills the same <code>Report</code> with many data sources in parallel.  Every element
+ * of the input produces one document.  Documents are filled on an <code>Executor</code>, but they are always
+ * written in input order.  The number of documents that are filled but not yet written is limited, so a batch
+ * of any size can be processed with a bounded amount of memory.
+ *
+ * <p>Every document is filled from its own clone of the <code>Report</code>.  A clone never writes to the lines it
+ * shares with the original report, so the original report can be read by concurrent fills.  Functions are shared by all documents and are not reset, so functions that keep state must
+ * store it in <code>FunctionContext</code> (see {@link simple.escp.fill.function.ContextFunction}).
+ *
+ * <p>For example, to print all invoices as a single job:
+ *
+ * <pre>
+ *     BatchFillJob batch = new BatchFillJob(template.parse());
+ *     batch.fill(invoices.stream().map(i -&gt; new DataSource[] {DataSources.from(i)}), outputStream);
+ * </pre>
+ */
+public class BatchFillJob {
+
+    private static final Logger LOG = Logger.getLogger("simple.escp");
+
+    private final Report report;
+    private Executor executor = ForkJoinPool.commonPool();
+    private FunctionRegistry functions;
+    private ScriptEngineProvider scriptEngineProvider;
+    private Locale locale;
+    private int maxPending = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * Create a new instance of <code>BatchFillJob</code>.
+     *
+     * @param report the <code>Report</code> that will be filled for every document.  It will not be modified.
+     */
+    public BatchFillJob(Report report) {
+        this.report = report;
+    }
+
+    /**
+     * Get the <code>Executor</code> that fills documents.
+     *
+     * @return the executor.  The default value is the common <code>ForkJoinPool</code>.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Set the <code>Executor</code> that fills documents.
+     *
+     * @param executor the executor.
+     */
+    public void setExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor can't be null.");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Get the functions that will be used for every document.
+     *
+     * @return the functions or <code>null</code> if global functions will be used.
+     */
+    public FunctionRegistry getFunctions() {
+        return functions;
+    }
+
+    /**
+     * Set the functions that will be used for every document instead of the global functions.
+     *
+     * @param functions an immutable <code>FunctionRegistry</code>.
+     */
+    public void setFunctions(FunctionRegistry functions) {
+        this.functions = functions;
+    }
+
+    /**
+     * Get the <code>ScriptEngineProvider</code> that will be used for every document.
+     *
+     * @return the provider or <code>null</code> if the global provider will be used.
+     */
+    public ScriptEngineProvider getScriptEngineProvider() {
+        return scriptEngineProvider;
+    }
+
+    /**
+     * Set the <code>ScriptEngineProvider</code> that will be used for every document instead of the global
+     * provider.
+     *
+     * @param scriptEngineProvider a thread-safe <code>ScriptEngineProvider</code>.
+     */
+    public void setScriptEngineProvider(ScriptEngineProvider scriptEngineProvider) {
+        this.scriptEngineProvider = scriptEngineProvider;
+    }
+
+    /**
+     * Get the locale that is used to format placeholders in every document.
+     *
+     * @return the locale or <code>null</code> if the default locale for formatting is used.
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Set the locale that is used to format placeholders in every document.
+     *
+     * @param locale the locale or <code>null</code> to use the default locale for formatting.
+     */
+    public void setLocale(Locale locale) {
+        this.locale = locale;
+    }
+
+    /**
+     * Get the maximum number of documents that can be filled ahead of the document that is being written.
+     *
+     * @return maximum number of pending documents.
+     */
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    /**
+     * Set the maximum number of documents that can be filled ahead of the document that is being written.
+     *
+     * @param maxPending maximum number of pending documents.  It must be at least <code>1</code>.
+     */
+    public void setMaxPending(int maxPending) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("Maximum number of pending documents must be at least 1.");
+        }
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Fill all documents and write them as one concatenated job.
+     *
+     * @param sources the data sources for every document.
+     * @param out the stream that will receive all documents in input order.  It will not be closed.
+     * @throws IOException if an I/O error occurs while writing to <code>out</code>.
+     */
+    public void fill(Iterable<DataSource[]> sources, OutputStream out) throws IOException {
+        fill(sources, (index, document) -> out.write(document));
+        out.flush();
+    }
+
+    /**
+     * Fill all documents and write them as one concatenated job.
+     *
+     * @param sources the data sources for every document.
+     * @param out the stream that will receive all documents in input order.  It will not be closed.
+     * @throws IOException if an I/O error occurs while writing to <code>out</code>.
+     */
+    public void fill(Stream<DataSource[]> sources, OutputStream out) throws IOException {
+        fill(sources::iterator, out);
+    }
+
+    /**
+     * Fill all documents and pass each of them to a <code>DocumentWriter</code>.
+     *
+     * @param sources the data sources for every document.
+     * @param writer receives every document in input order.
+     * @throws IOException if <code>writer</code> throws <code>IOException</code>.
+     */
+    public void fill(Stream<DataSource[]> sources, DocumentWriter writer) throws IOException {
+        fill(sources::iterator, writer);
+    }
+
+    /**
+     * Fill all documents and pass each of them to a <code>DocumentWriter</code>.  Documents are filled in parallel,
+     * but <code>writer</code> is always called from the calling thread and in input order.  If filling a document
+     * fails, documents that are not yet written will be cancelled and the failure is rethrown.
+     *
+     * @param sources the data sources for every document.
+     * @param writer receives every document in input order.
+     * @throws IOException if <code>writer</code> throws <code>IOException</code>.
+     */
+    public void fill(Iterable<DataSource[]> sources, DocumentWriter writer) throws IOException {
+        final Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+        final Iterator<DataSource[]> iterator = sources.iterator();
+        int submitted = 0;
+        int written = 0;
+        try {
+            while (iterator.hasNext() || !pending.isEmpty()) {
+                while (iterator.hasNext() && pending.size() < maxPending) {
+                    final DataSource[] dataSources = iterator.next();
+                    pending.add(CompletableFuture.supplyAsync(() -> fillDocument(dataSources), executor));
+                    submitted++;
+                }
+                writer.write(written, join(pending.removeFirst()));
+                written++;
+            }
+        } finally {
+            for (final CompletableFuture<byte[]> future : pending) {
+                future.cancel(false);
+            }
+        }
+        LOG.fine("Batch of [" + submitted + "] documents is completed.");
+    }
+
+    /**
+     * Fill all documents and return them as a list.  This is only suitable for small batches because all
+     * documents are kept in memory.
+     *
+     * @param sources the data sources for every document.
+     * @return the result of every document in input order.
+     */
+    public List<byte[]> fill(Iterable<DataSource[]> sources) {
+        final List<byte[]> result = new ArrayList<>();
+        try {
+            fill(sources, (index, document) -> result.add(document));
+        } catch (IOException e) {
+            // Never happens because documents are not written to any stream.
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Fill a single document.
+     *
+     * @param dataSources the data sources for this document.
+     * @return the result as bytes.
+     */
+    protected byte[] fillDocument(DataSource[] dataSources) {
+        final FillJob fillJob = new FillJob(report, dataSources,
+            functions == null ? FillJob.getGlobalFunctions() : functions);
+        fillJob.setScriptEngineProvider(scriptEngineProvider);
+        fillJob.setLocale(locale);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            fillJob.fill(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Wait for a document and unwrap the failure if filling the document failed.
+     *
+     * @param future the pending document.
+     * @return the result of document.
+     */
+    private static byte[] join(CompletableFuture<byte[]> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Receives filled documents of a <code>BatchFillJob</code>.
+     */
+    @FunctionalInterface
+    public interface DocumentWriter {
+
+        /**
+         * Write a filled document.
+         *
+         * @param index the position of this document in the input, starting from <code>0</code>.
+         * @param document the document encoded by using <code>FillJob.DEFAULT_CHARSET</code>.
+         * @throws IOException if an I/O error occurs.
+         */
+        void write(int index, byte[] document) throws IOException;
+    }
+
+}
@@ -17,44 +17,202 @@ package simple.escp.fill;
 
 import simple.escp.data.BeanDataSource;
 import simple.escp.data.DataSource;
-import javax.script.SimpleBindings;
+import javax.script.Bindings;
+import java.util.AbstractMap;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
  *  This class will provide value from <code>DataSource</code> as global variables that
  *  can be read inside script directly.
+ *
+ *  <p>Values are not copied from data sources when this binding is created.  A member is only retrieved when a
+ *  script refers to it.  If more than one data source has the same member, the first non-<code>null</code> value
+ *  will be used.  Variables that are added by <code>put()</code> always take precedence over data sources.
  */
-public class DataSourceBinding extends SimpleBindings {
+public class DataSourceBinding extends AbstractMap<String, Object> implements Bindings {
+
+    private static final Object MISSING = new Object();
 
     private DataSource[] dataSources;
+    private final boolean memoize;
+    private final Map<String, Object> variables = new HashMap<>();
+    private final Map<String, Object> resolved = new HashMap<>();
+    private final Set<String> removed = new HashSet<>();
 
     /**
-     * Create a new instance of <code>DataSourceBinding</code>.
+     * Create a new instance of <code>DataSourceBinding</code> that remembers every value it has retrieved.
      *
      * @param dataSources the data sources that provides value for this binding.
      */
     public DataSourceBinding(DataSource[] dataSources) {
+        this(dataSources, true);
+    }
+
+    /**
+     * Create a new instance of <code>DataSourceBinding</code>.
+     *
+     * @param dataSources the data sources that provides value for this binding.
+     * @param memoize if <code>true</code>, a member will be retrieved from data sources only once.  Otherwise,
+     *                data sources will be queried on every lookup.
+     */
+    public DataSourceBinding(DataSource[] dataSources, boolean memoize) {
         this.dataSources = Arrays.copyOf(dataSources, dataSources.length);
-        init();
+        this.memoize = memoize;
+    }
+
+    /**
+     * Find the value of a member from data sources.
+     *
+     * @param key the name of member.
+     * @return the value of member or <code>MISSING</code> if no data source has this member.
+     */
+    private Object resolve(String key) {
+        if (removed.contains(key)) {
+            return MISSING;
+        }
+        if (memoize && resolved.containsKey(key)) {
+            return resolved.get(key);
+        }
+        Object value = MISSING;
+        if ("dataSources".equals(key)) {
+            value = dataSources;
+        } else {
+            // the first JavaBean is available as global variable 'bean'
+            if ("bean".equals(key)) {
+                for (DataSource dataSource : dataSources) {
+                    if (dataSource instanceof BeanDataSource) {
+                        value = dataSource.getSource();
+                        break;
+                    }
+                }
+            }
+            for (DataSource dataSource : dataSources) {
+                if (value != MISSING && value != null) {
+                    break;
+                }
+                if (dataSource.has(key)) {
+                    value = dataSource.get(key);
+                }
+            }
+        }
+        if (memoize) {
+            resolved.put(key, value);
+        }
+        return value;
     }
 
     /**
-     * Create the binding.
+     * Check if <code>key</code> is a valid name for a binding.
+     *
+     * @param key the key to check.
      */
-    private void init() {
-        put("dataSources", dataSources);
+    private static void checkKey(Object key) {
+        if (key == null) {
+            throw new NullPointerException("key can not be null");
+        }
+        if (!(key instanceof String)) {
+            throw new ClassCastException("key should be a String");
+        }
+        if (((String) key).isEmpty()) {
+            throw new IllegalArgumentException("key can not be empty");
+        }
+    }
 
+    /**
+     * Add a variable to this binding.  Data sources are not queried, so the returned value is only the previous
+     * value of the same variable added by this method.
+     *
+     * @param key the name of variable.
+     * @param value the value of variable.
+     * @return previous value added by this method or <code>null</code> if there was none.
+     */
+    @Override
+    public Object put(String key, Object value) {
+        checkKey(key);
+        removed.remove(key);
+        return variables.put(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object get(Object key) {
+        checkKey(key);
+        if (variables.containsKey(key)) {
+            return variables.get(key);
+        }
+        final Object value = resolve((String) key);
+        return value == MISSING ? null : value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        checkKey(key);
+        return variables.containsKey(key) || resolve((String) key) != MISSING;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object remove(Object key) {
+        checkKey(key);
+        if (variables.containsKey(key)) {
+            return variables.remove(key);
+        }
+        final Object value = resolve((String) key);
+        if (value == MISSING) {
+            return null;
+        }
+        removed.add((String) key);
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        variables.clear();
+        resolved.clear();
+        removed.clear();
+        dataSources = new DataSource[0];
+    }
+
+    /**
+     * Retrieve all members of all data sources.  This is expensive because every member will be read, so it
+     * should only be needed by script engines that enumerate their bindings.
+     *
+     * @return an unmodifiable snapshot of all variables in this binding.
+     */
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        if (containsKey("dataSources")) {
+            result.put("dataSources", get("dataSources"));
+        }
+        if (containsKey("bean")) {
+            result.put("bean", get("bean"));
+        }
         for (DataSource dataSource : dataSources) {
-            // register the first JavaBean as global variable 'bean'
-            if ((dataSource instanceof BeanDataSource) && (get("bean") == null)) {
-                put("bean", dataSource.getSource());
-            }
             for (String key : dataSource.getMembers()) {
-                if (get(key) == null) {
-                    put(key, dataSource.get(key));
+                if (!result.containsKey(key) && containsKey(key)) {
+                    result.put(key, get(key));
                 }
             }
         }
+        result.putAll(variables);
+        return Collections.unmodifiableSet(result.entrySet());
     }
 
 }
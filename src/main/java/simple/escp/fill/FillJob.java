@@ -15,38 +15,44 @@
  */
 package simple.escp.fill;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.script.Bindings;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
+import javax.script.SimpleBindings;
 
 import simple.escp.data.DataSource;
+import simple.escp.dom.Line;
 import simple.escp.dom.Page;
+import simple.escp.dom.PageFormat;
 import simple.escp.dom.Report;
-import simple.escp.fill.function.AsciiFunction;
-import simple.escp.fill.function.AutoIncrementFunction;
-import simple.escp.fill.function.BoldFunction;
-import simple.escp.fill.function.DoubleStrikeFunction;
+import simple.escp.dom.line.TextLine;
 import simple.escp.fill.function.Function;
-import simple.escp.fill.function.GlobalLineNoFunction;
-import simple.escp.fill.function.ItalicFunction;
-import simple.escp.fill.function.LineNoFunction;
-import simple.escp.fill.function.PageNoFunction;
-import simple.escp.fill.function.SubscriptFunction;
-import simple.escp.fill.function.SuperscriptFunction;
-import simple.escp.fill.function.UnderlineFunction;
+import simple.escp.fill.function.FunctionEngine;
+import simple.escp.fill.function.FunctionRegistry;
+import simple.escp.placeholder.Aggregations;
 import simple.escp.placeholder.BasicPlaceholder;
+import simple.escp.placeholder.CompiledText;
 import simple.escp.placeholder.Placeholder;
 import simple.escp.placeholder.ScriptPlaceholder;
+import simple.escp.printer.PrintSink;
 import simple.escp.util.EscpUtil;
+import simple.escp.util.EscpWriter;
 
 /**
  * <code>FillJob</code> represent the process of filling a <code>Report</code> with one or more
@@ -60,29 +66,23 @@ public class FillJob {
 
     private static final Logger LOG = Logger.getLogger("simple.escp");
 
+    public static final Charset DEFAULT_CHARSET = StandardCharsets.ISO_8859_1;
     public static final Pattern BASIC_PLACEHOLDER_PATTERN = Pattern.compile("\\$\\{(.+?)\\}");
     public static final Pattern SCRIPT_PLACEHOLDER_PATTERN = Pattern.compile("\\{\\{(.+?)\\}\\}");
-    public static final List<Function> FUNCTIONS;
-
-    static {
-        FUNCTIONS = new ArrayList<>();
-        FUNCTIONS.add(new BoldFunction());
-        FUNCTIONS.add(new ItalicFunction());
-        FUNCTIONS.add(new UnderlineFunction());
-        FUNCTIONS.add(new DoubleStrikeFunction());
-        FUNCTIONS.add(new SuperscriptFunction());
-        FUNCTIONS.add(new SubscriptFunction());
-        FUNCTIONS.add(new PageNoFunction());
-        FUNCTIONS.add(new AsciiFunction());
-        FUNCTIONS.add(new AutoIncrementFunction());
-        FUNCTIONS.add(new GlobalLineNoFunction());
-        FUNCTIONS.add(new LineNoFunction());
-    }
+
+    private static volatile FunctionRegistry globalFunctions = FunctionRegistry.DEFAULT;
+    private static volatile ScriptEngineProvider globalScriptEngineProvider;
 
     protected Report report;
     protected DataSource[] dataSources;
     protected Map<String, Placeholder> placeholders = new HashMap<>();
     protected ScriptEngine scriptEngine;
+    protected FunctionRegistry functions = globalFunctions;
+    protected Locale locale;
+    private ScriptEngineProvider scriptEngineProvider;
+    private final Bindings scriptVariables = new SimpleBindings();
+    private final boolean sharedScriptEngine;
+    private final Aggregations aggregations = new Aggregations();
 
     /**
      * Create a new <code>FillJob</code> with empty data source.
@@ -110,37 +110,66 @@ public class FillJob {
      * @param dataSources array that contains <code>DataSource</code> as the source values for filling.
      */
     public FillJob(Report report, DataSource[] dataSources) {
+        this(report, dataSources, (ScriptEngine) null);
+    }
+
+    /**
+     * Create a new <code>FillJob</code> that evaluates script placeholders with an engine owned by another
+     * <code>FillJob</code>.  The engine will not be acquired or released by this <code>FillJob</code>.
+     *
+     * @param report the <code>Report</code> that will be filled.
+     * @param dataSources array that contains <code>DataSource</code> as the source values for filling.
+     * @param scriptEngine the engine for script placeholders or <code>null</code> to acquire an engine from
+     *                     the <code>ScriptEngineProvider</code> for every fill.
+     */
+    protected FillJob(Report report, DataSource[] dataSources, ScriptEngine scriptEngine) {
+        this(report, dataSources, scriptEngine, null);
+    }
+
+    /**
+     * Create a new <code>FillJob</code> that uses the specified functions without resetting them.  It is used
+     * by fills that run concurrently with other fills sharing the same functions.
+     *
+     * @param report the <code>Report</code> that will be filled.
+     * @param dataSources array that contains <code>DataSource</code> as the source values for filling.
+     * @param functions an immutable <code>FunctionRegistry</code>.
+     */
+    FillJob(Report report, DataSource[] dataSources, FunctionRegistry functions) {
+        this(report, dataSources, null, functions);
+    }
+
+    /**
+     * Create a new <code>FillJob</code>.
+     *
+     * @param report the <code>Report</code> that will be filled.
+     * @param dataSources array that contains <code>DataSource</code> as the source values for filling.
+     * @param scriptEngine the engine for script placeholders or <code>null</code>.
+     * @param functions the functions that will not be reset, or <code>null</code> to use and reset the global
+     *                  functions.
+     */
+    private FillJob(Report report, DataSource[] dataSources, ScriptEngine scriptEngine, FunctionRegistry functions) {
         this.report = report;
         this.dataSources = Arrays.copyOf(dataSources, dataSources.length);
+        this.scriptEngine = scriptEngine;
+        this.sharedScriptEngine = scriptEngine != null;
 
-        // Create script engine for ScriptPlaceholder
-        final ScriptEngineManager scriptEngineManager = new ScriptEngineManager();
-        scriptEngineManager.setBindings(new DataSourceBinding(this.dataSources));
-        this.scriptEngine = scriptEngineManager.getEngineByName("groovy");
-        if (this.scriptEngine == null) {
-            LOG.fine("Can't find Groovy script engine, will use graal.js script engine.");
-            this.scriptEngine = scriptEngineManager.getEngineByName("graal.js");
-        }
-        if (this.scriptEngine == null) {
-            LOG.fine("Can't find Groovy script engine, will use JavaScript script engine.");
-            this.scriptEngine = scriptEngineManager.getEngineByName("JavaScript");
-        }
-
-        // Reset functions
-        for (final Function function : FUNCTIONS) {
-            function.reset();
+        if (functions != null) {
+            this.functions = functions;
+        } else {
+            // Reset functions that still keep their state outside of FunctionContext
+            for (final Function function : this.functions.getFunctions()) {
+                function.reset();
+            }
         }
     }
 
     /**
      * Register a new global function.  This function will have a lower priority compared to built-in function.
      *
-     * @param function a new function that will be available for current and subsequent executions.
+     * @param function a new function that will be available for subsequent executions.
      */
-    public static void addFunction(Function function) {
-        if (!FUNCTIONS.contains(function)) {
-            FUNCTIONS.add(function);
-        }
+    public static synchronized void addFunction(Function function) {
+        globalFunctions = globalFunctions.with(function);
     }
 
     /**
@@ -148,8 +177,107 @@ public class FillJob {
      *
      * @param function an existing function that will be removed from list available of functions.
      */
-    public static void removeFunction(Function function) {
-        FUNCTIONS.remove(function);
+    public static synchronized void removeFunction(Function function) {
+        globalFunctions = globalFunctions.without(function);
+    }
+
+    /**
+     * Retrieve the global functions that will be used by new <code>FillJob</code>.
+     *
+     * @return an immutable <code>FunctionRegistry</code>.
+     */
+    public static FunctionRegistry getGlobalFunctions() {
+        return globalFunctions;
+    }
+
+    /**
+     * Retrieve the <code>ScriptEngineProvider</code> that will be used by new <code>FillJob</code>.  If no provider
+     * has been set, a <code>PooledScriptEngineProvider</code> will be created on first use.
+     *
+     * @return the global <code>ScriptEngineProvider</code>.
+     */
+    public static ScriptEngineProvider getGlobalScriptEngineProvider() {
+        ScriptEngineProvider provider = globalScriptEngineProvider;
+        if (provider == null) {
+            synchronized (FillJob.class) {
+                provider = globalScriptEngineProvider;
+                if (provider == null) {
+                    provider = new PooledScriptEngineProvider();
+                    globalScriptEngineProvider = provider;
+                }
+            }
+        }
+        return provider;
+    }
+
+    /**
+     * Set the <code>ScriptEngineProvider</code> that will be used by new <code>FillJob</code>.
+     *
+     * @param provider the new global <code>ScriptEngineProvider</code>.
+     */
+    public static void setGlobalScriptEngineProvider(ScriptEngineProvider provider) {
+        if (provider == null) {
+            throw new IllegalArgumentException("Script engine provider can't be null.");
+        }
+        globalScriptEngineProvider = provider;
+    }
+
+    /**
+     * Retrieve the <code>ScriptEngineProvider</code> that will be used by this <code>FillJob</code>.
+     *
+     * @return the <code>ScriptEngineProvider</code> of this job or the global provider if none has been set.
+     */
+    public ScriptEngineProvider getScriptEngineProvider() {
+        return scriptEngineProvider == null ? getGlobalScriptEngineProvider() : scriptEngineProvider;
+    }
+
+    /**
+     * Set the <code>ScriptEngineProvider</code> that will be used by this <code>FillJob</code> instead of the
+     * global provider.
+     *
+     * @param scriptEngineProvider the <code>ScriptEngineProvider</code> for this job.
+     */
+    public void setScriptEngineProvider(ScriptEngineProvider scriptEngineProvider) {
+        this.scriptEngineProvider = scriptEngineProvider;
+    }
+
+    /**
+     * Retrieve the functions that will be used by this <code>FillJob</code>.
+     *
+     * @return an immutable <code>FunctionRegistry</code>.
+     */
+    public FunctionRegistry getFunctions() {
+        return functions;
+    }
+
+    /**
+     * Set the functions that will be used by this <code>FillJob</code> instead of the global functions.
+     *
+     * @param functions an immutable <code>FunctionRegistry</code>.
+     */
+    public void setFunctions(FunctionRegistry functions) {
+        this.functions = functions;
+    }
+
+    /**
+     * Retrieve the locale that is used to format placeholders, such as <code>${total:currency}</code>.
+     *
+     * @return the locale or <code>null</code> if the default locale for formatting is used.
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Set the locale that is used to format placeholders in this <code>FillJob</code>.
+     *
+     * @param locale the locale or <code>null</code> to use the default locale for formatting.
+     */
+    public void setLocale(Locale locale) {
+        this.locale = locale;
+        for (Placeholder placeholder : placeholders.values()) {
+            placeholder.setLocale(locale);
+        }
     }
 
     /**
@@ -159,7 +287,7 @@ public class FillJob {
      * @param value the value of this new variable.
      */
     public void addScriptVariable(String variableName, Object value) {
-        scriptEngine.put(variableName, value);
+        scriptVariables.put(variableName, value);
     }
 
     /**
@@ -169,7 +297,43 @@ public class FillJob {
      * @param variableName the name of variable that will be removed.
      */
     public void removeScriptVariable(String variableName) {
-        scriptEngine.getBindings(ScriptContext.ENGINE_SCOPE).remove(variableName);
+        scriptVariables.remove(variableName);
+    }
+
+    /**
+     * Acquire a script engine from the <code>ScriptEngineProvider</code> if this job doesn't use a shared engine.
+     * Every call must be followed by <code>releaseScriptEngine()</code>.
+     */
+    protected void acquireScriptEngine() {
+        if (!sharedScriptEngine) {
+            scriptEngine = getScriptEngineProvider().acquire();
+            placeholders.values().removeIf(placeholder -> placeholder instanceof ScriptPlaceholder);
+            resetScriptBindings();
+        }
+    }
+
+    /**
+     * Return the script engine to the <code>ScriptEngineProvider</code> if it was acquired by this job.
+     */
+    protected void releaseScriptEngine() {
+        if (!sharedScriptEngine && scriptEngine != null) {
+            getScriptEngineProvider().release(scriptEngine);
+            scriptEngine = null;
+        }
+    }
+
+    /**
+     * Bind values from data sources and script variables of this job to the current script engine.  This
+     * replaces any binding that was set while filling dynamic lines.
+     */
+    protected void resetScriptBindings() {
+        if (scriptEngine == null) {
+            return;
+        }
+        scriptEngine.setBindings(new DataSourceBinding(dataSources), ScriptContext.GLOBAL_SCOPE);
+        final Bindings engineBindings = scriptEngine.createBindings();
+        engineBindings.putAll(scriptVariables);
+        scriptEngine.setBindings(engineBindings, ScriptContext.ENGINE_SCOPE);
     }
 
     /**
@@ -217,19 +381,16 @@ public class FillJob {
      * @return source with placeholders replaced by actual value.
      */
     protected String fillBasicPlaceholder(String text) {
-        final StringBuffer result = new StringBuffer();
-        final Matcher matcher = BASIC_PLACEHOLDER_PATTERN.matcher(text);
-        while (matcher.find()) {
-            final String placeholderText = matcher.group(1);
-            LOG.fine("Found basic placeholder text [" + placeholderText + "]");
-            Placeholder placeholder = placeholders.get(placeholderText);
-            if (placeholder == null) {
-                placeholder = new BasicPlaceholder(placeholderText);
-                placeholders.put(placeholderText, placeholder);
+        final CompiledText compiledText = CompiledText.compile(text);
+        final StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < compiledText.getNumberOfSegments(); i++) {
+            final CompiledText.Segment segment = compiledText.getSegment(i);
+            if (segment.getType() == CompiledText.SegmentType.BASIC_PLACEHOLDER) {
+                getBasicPlaceholder(segment.getText()).appendFormattedValue(dataSources, result);
+            } else {
+                result.append(text, segment.getStart(), segment.getEnd());
             }
-            matcher.appendReplacement(result, placeholder.getValueAsString(dataSources));
         }
-        matcher.appendTail(result);
         return result.toString();
     }
 
@@ -240,21 +401,76 @@ public class FillJob {
      * @return source with placeholders replaced by actual value.
      */
     protected String fillScriptPlaceholder(String text) {
-        final StringBuffer result = new StringBuffer();
-        final Matcher matcher = SCRIPT_PLACEHOLDER_PATTERN.matcher(text);
-        while (matcher.find()) {
-            final String placeholderText = matcher.group(1);
-            LOG.fine("Found script placeholder text [" + placeholderText + "]");
-            Placeholder placeholder = placeholders.get(placeholderText);
-            if (placeholder == null) {
-                placeholder = new ScriptPlaceholder(placeholderText, scriptEngine);
-                placeholders.put(placeholderText, placeholder);
+        final CompiledText compiledText = CompiledText.compile(text);
+        final StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < compiledText.getNumberOfSegments(); i++) {
+            final CompiledText.Segment segment = compiledText.getSegment(i);
+            if (segment.getType() == CompiledText.SegmentType.SCRIPT_PLACEHOLDER) {
+                getScriptPlaceholder(segment.getText()).appendFormattedValue(dataSources, result);
+            } else {
+                result.append(text, segment.getStart(), segment.getEnd());
             }
-            matcher.appendReplacement(result, placeholder.getValueAsString(dataSources));
         }
-        matcher.appendTail(result);
         return result.toString();
+    }
+
+    /**
+     * Fill all placeholders in a <code>CompiledText</code> by walking its segments.  Literal runs are appended
+     * as is while placeholder slots are replaced by their value.
+     *
+     * @param compiledText the compiled text that has placeholders.
+     * @param result the filled text will be appended to this builder.
+     */
+    protected void fillPlaceholders(CompiledText compiledText, StringBuilder result) {
+        for (int i = 0; i < compiledText.getNumberOfSegments(); i++) {
+            final CompiledText.Segment segment = compiledText.getSegment(i);
+            switch (segment.getType()) {
+                case BASIC_PLACEHOLDER:
+                    getBasicPlaceholder(segment.getText()).appendFormattedValue(dataSources, result);
+                    break;
+                case SCRIPT_PLACEHOLDER:
+                    getScriptPlaceholder(segment.getText()).appendFormattedValue(dataSources, result);
+                    break;
+                default:
+                    result.append(segment.getText());
+            }
+        }
+    }
 
+    /**
+     * Find or create the <code>BasicPlaceholder</code> for a placeholder text.
+     *
+     * @param placeholderText the text of basic placeholder.
+     * @return an instance of <code>Placeholder</code>.
+     */
+    private Placeholder getBasicPlaceholder(String placeholderText) {
+        Placeholder placeholder = placeholders.get(placeholderText);
+        if (placeholder == null) {
+            LOG.fine("Found basic placeholder text [" + placeholderText + "]");
+            placeholder = new BasicPlaceholder(placeholderText);
+            placeholder.setLocale(locale);
+            placeholder.setAggregations(aggregations);
+            placeholders.put(placeholderText, placeholder);
+        }
+        return placeholder;
+    }
+
+    /**
+     * Find or create the <code>ScriptPlaceholder</code> for a placeholder text.
+     *
+     * @param placeholderText the text of script placeholder.
+     * @return an instance of <code>Placeholder</code>.
+     */
+    private Placeholder getScriptPlaceholder(String placeholderText) {
+        Placeholder placeholder = placeholders.get(placeholderText);
+        if (placeholder == null) {
+            LOG.fine("Found script placeholder text [" + placeholderText + "]");
+            placeholder = new ScriptPlaceholder(placeholderText, scriptEngine);
+            placeholder.setLocale(locale);
+            placeholder.setAggregations(aggregations);
+            placeholders.put(placeholderText, placeholder);
+        }
+        return placeholder;
     }
 
     /**
@@ -264,15 +480,164 @@ public class FillJob {
      * @return a <code>String</code> that may contains ESC/P commands and can be printed.
      */
     public String fill() {
+        final StringBuilder result = new StringBuilder();
+        try {
+            fill(result, null);
+        } catch (IOException e) {
+            // Never happens because the result is not written to any channel.
+            throw new IllegalStateException(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Execute this <code>FillJob</code> action and write the result to an <code>OutputStream</code> by using
+     * <code>DEFAULT_CHARSET</code>.  The pages of the filled report are built first, then the text of every page
+     * is produced and written one page at a time, so the text of the whole result is never kept in memory.  This
+     * method will not close <code>out</code>.
+     *
+     * @param out the stream that will receive ESC/P commands.
+     * @throws IOException if an I/O error occurs while writing to <code>out</code>.
+     */
+    public void fill(OutputStream out) throws IOException {
+        fill(new EscpWriter(out));
+    }
+
+    /**
+     * Execute this <code>FillJob</code> action and write the result as a new document to a <code>PrintSink</code>.
+     * The text of every page is written as soon as it is produced.  The document is complete when this method
+     * returns.
+     *
+     * @param sink the destination of the document.
+     * @throws IOException if an I/O error occurs while writing to <code>sink</code>.
+     */
+    public void fill(PrintSink sink) throws IOException {
+        try (OutputStream out = sink.open()) {
+            fill(out);
+        }
+    }
+
+    /**
+     * Execute this <code>FillJob</code> action and write the result as bytes to an <code>EscpWriter</code>.  The
+     * text of every page is converted to bytes as soon as it is produced, and the page format is written from its
+     * precomputed bytes.  This method will flush <code>writer</code> when the result has been written.
+     *
+     * @param writer the writer that will receive ESC/P commands.
+     * @throws IOException if an I/O error occurs while writing to <code>writer</code>.
+     */
+    public void fill(EscpWriter writer) throws IOException {
+        fill(new StringBuilder(), new BytePageWriter(writer));
+        writer.flush();
+    }
+
+    /**
+     * Execute this <code>FillJob</code> action and write the result to a <code>WritableByteChannel</code>.  The
+     * pages of the filled report are built first, then the text of every page is produced, encoded and written one
+     * page at a time.  This method will not close <code>channel</code>.
+     *
+     * @param channel the channel that will receive ESC/P commands.
+     * @param charset the charset used to encode the result.
+     * @throws IOException if an I/O error occurs while writing to <code>channel</code>.
+     */
+    public void fill(WritableByteChannel channel, Charset charset) throws IOException {
+        fill(new StringBuilder(), new ChannelWriter(channel, charset));
+    }
+
+    /**
+     * Fill the report.  All pages, including the rows of tables and lists, are created by <code>prepare()</code>
+     * before any output is produced.  Functions and placeholders are then evaluated page by page and the text of
+     * every page is appended to <code>buffer</code>.  If <code>writer</code> is not <code>null</code>, the content
+     * of <code>buffer</code> will be written and cleared after every page, so <code>buffer</code> only holds the
+     * text of one page.
+     *
+     * @param buffer the buffer for the result.
+     * @param writer the destination for the content of <code>buffer</code> or <code>null</code> to keep the
+     *               whole result in <code>buffer</code>.
+     * @throws IOException if an I/O error occurs while writing to <code>writer</code>.
+     */
+    private void fill(StringBuilder buffer, PageWriter writer) throws IOException {
+        acquireScriptEngine();
+        try {
+            fillPages(buffer, writer);
+        } finally {
+            aggregations.clear();
+            releaseScriptEngine();
+        }
+    }
+
+    /**
+     * Fill the report by using the current script engine.  The filled <code>Report</code> is complete before
+     * the first page is written; only its text is produced page by page.
+     *
+     * @param buffer the buffer for the result.
+     * @param writer the destination for the content of <code>buffer</code> or <code>null</code> to keep the
+     *               whole result in <code>buffer</code>.
+     * @throws IOException if an I/O error occurs while writing to <code>writer</code>.
+     */
+    private void fillPages(StringBuilder buffer, PageWriter writer) throws IOException {
+        final Report parsedReport = prepare();
+        final boolean isAutoLineFeed = parsedReport.getPageFormat().isAutoLineFeed();
+        final boolean isAutoFormFeed = parsedReport.getPageFormat().isAutoFormFeed();
+        final String lineSeparator = isAutoLineFeed ? EscpUtil.CR : EscpUtil.CRLF;
+        final FunctionEngine functionEngine = new FunctionEngine(functions);
+        if (writer == null) {
+            buffer.append(parsedReport.getPageFormat().build());
+        } else {
+            writer.writePageFormat(parsedReport.getPageFormat(), buffer);
+        }
+
+        boolean endsWithFormFeed = endsWith(buffer, EscpUtil.CRFF);
+        for (final Page page : parsedReport) {
+            // process functions
+            functionEngine.process(parsedReport, page);
+
+            // process placeholders
+            for (final Line line : page.getLines()) {
+                if (line instanceof TextLine) {
+                    fillPlaceholders(((TextLine) line).getCompiledText(), buffer);
+                    buffer.append(lineSeparator);
+                }
+            }
+            if (isAutoFormFeed) {
+                buffer.append(EscpUtil.CRFF);
+            }
+            if (buffer.length() > 0) {
+                endsWithFormFeed = endsWith(buffer, EscpUtil.CRFF);
+            }
+            if (writer != null) {
+                writer.write(buffer);
+            }
+        }
+
+        if (isAutoFormFeed && !endsWithFormFeed) {
+            buffer.append(EscpUtil.CRFF);
+        }
+        buffer.append(EscpUtil.escInitalize());
+        if (writer != null) {
+            writer.write(buffer);
+        }
+    }
+
+    /**
+     * Create a copy of the report and fill its dynamic lines.  This method will also place the last page footer.
+     *
+     * @return a new <code>Report</code> that is ready for functions and placeholders processing.
+     */
+    private Report prepare() {
         final Report parsedReport = new Report(report);
 
         // Second phase: fill dynamic line, change last page footer, etc.
         if (parsedReport.hasDynamicLine()) {
             LOG.fine("This report has dynamic line.");
-            final TableFillJob tableFillJob = new TableFillJob(parsedReport, dataSources);
-            final ListFillJob listFillJob = new ListFillJob(parsedReport, dataSources);
+            final TableFillJob tableFillJob = new TableFillJob(parsedReport, dataSources, scriptEngine);
+            final ListFillJob listFillJob = new ListFillJob(parsedReport, dataSources, scriptEngine);
+            tableFillJob.setScriptEngineProvider(scriptEngineProvider);
+            listFillJob.setScriptEngineProvider(scriptEngineProvider);
+            tableFillJob.setLocale(locale);
+            listFillJob.setLocale(locale);
             tableFillJob.fill();
             listFillJob.fill();
+            resetScriptBindings();
         }
         final int lastPageFooterLength = parsedReport.getLastPageFooter().length;
         if (lastPageFooterLength > 0) {
@@ -283,31 +648,120 @@ public class FillJob {
                 parsedReport.newPage(false).setFooter(parsedReport.getLastPageFooter());
             }
         }
+        return parsedReport;
+    }
 
-        final StringBuilder result = new StringBuilder();
-        final boolean isAutoLineFeed = parsedReport.getPageFormat().isAutoLineFeed();
-        final boolean isAutoFormFeed = parsedReport.getPageFormat().isAutoFormFeed();
-        result.append(parsedReport.getPageFormat().build());
+    /**
+     * Check if the content of a builder ends with the specified suffix without converting it into
+     * <code>String</code>.
+     *
+     * @param builder the builder to check.
+     * @param suffix the suffix.
+     * @return <code>true</code> if <code>builder</code> ends with <code>suffix</code>.
+     */
+    private static boolean endsWith(StringBuilder builder, String suffix) {
+        final int offset = builder.length() - suffix.length();
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (builder.charAt(offset + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        // process functions
-        for (final Function function : FUNCTIONS) {
-            LOG.fine("Executing function [" + function + "]");
-            function.process(parsedReport);
+    /**
+     * The destination of the result of every filled page.
+     */
+    private interface PageWriter {
+
+        /**
+         * Write the ESC/P commands of a page format.
+         *
+         * @param pageFormat the page format of the report.
+         * @param buffer the buffer for the result that hasn't been written.
+         * @throws IOException if an I/O error occurs.
+         */
+        void writePageFormat(PageFormat pageFormat, StringBuilder buffer) throws IOException;
+
+        /**
+         * Write and clear the content of <code>buffer</code>.
+         *
+         * @param buffer the characters that will be written.
+         * @throws IOException if an I/O error occurs.
+         */
+        void write(StringBuilder buffer) throws IOException;
+    }
+
+    /**
+     * Encode the content of a buffer and write it to a <code>WritableByteChannel</code>.
+     */
+    private static final class ChannelWriter implements PageWriter {
+
+        private final WritableByteChannel channel;
+        private final CharsetEncoder encoder;
+
+        /**
+         * Create a new instance of <code>ChannelWriter</code>.
+         *
+         * @param channel the destination channel.
+         * @param charset the charset used to encode characters.
+         */
+        private ChannelWriter(WritableByteChannel channel, Charset charset) {
+            this.channel = channel;
+            this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
         }
 
-        // process placeholders
-        for (final Page page : parsedReport) {
-            String pageText = page.convertToString(isAutoLineFeed, isAutoFormFeed);
-            pageText = fillBasicPlaceholder(pageText);
-            pageText = fillScriptPlaceholder(pageText);
-            result.append(pageText);
+        @Override
+        public void writePageFormat(PageFormat pageFormat, StringBuilder buffer) {
+            buffer.append(pageFormat.build());
         }
 
-        if (isAutoFormFeed && !result.toString().endsWith(EscpUtil.CRFF)) {
-            result.append(EscpUtil.CRFF);
+        @Override
+        public void write(StringBuilder buffer) throws IOException {
+            if (buffer.length() == 0) {
+                return;
+            }
+            final ByteBuffer bytes = encoder.encode(CharBuffer.wrap(buffer));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Convert the content of a buffer into bytes, one byte for every character, and write it to an
+     * <code>EscpWriter</code>.
+     */
+    private static final class BytePageWriter implements PageWriter {
+
+        private final EscpWriter writer;
+
+        /**
+         * Create a new instance of <code>BytePageWriter</code>.
+         *
+         * @param writer the destination writer.
+         */
+        private BytePageWriter(EscpWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void writePageFormat(PageFormat pageFormat, StringBuilder buffer) throws IOException {
+            write(buffer);
+            pageFormat.build(writer);
+        }
+
+        @Override
+        public void write(StringBuilder buffer) throws IOException {
+            writer.write(buffer);
+            buffer.setLength(0);
         }
-        result.append(EscpUtil.escInitalize());
-        return result.toString();
     }
 
 }
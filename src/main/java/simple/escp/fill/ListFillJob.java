@@ -25,9 +25,9 @@ import simple.escp.dom.line.TextLine;
 import simple.escp.exception.InvalidPlaceholder;
 import simple.escp.placeholder.ScriptPlaceholder;
 import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -51,35 +51,42 @@ public class ListFillJob extends FillJob {
     }
 
     /**
-     * Fill <code>ListLine</code>.
+     * Create a new instance of <code>ListFillJob</code> that shares the script engine of another
+     * <code>FillJob</code>.
      *
+     * @param report the target destination of this <code>FillJob</code>.  This <code>FillJob</code> will not
+     *               return any value but directly modify destination <code>report</code>.
+     * @param dataSources  global data source for this <code>FillJob</code>.
+     * @param scriptEngine the engine for script placeholders or <code>null</code> to acquire a new one.
+     */
+    public ListFillJob(Report report, DataSource[] dataSources, ScriptEngine scriptEngine) {
+        super(report, dataSources, scriptEngine);
+    }
+
+    /**
+     * Fill <code>ListLine</code>.  Lines are written directly to <code>report</code> at the position of
+     * <code>listLine</code>.
+     *
+     * @param page the page that contains <code>listLine</code>.
+     * @param lineNumber the line number of <code>listLine</code> in <code>page</code>.
      * @param listLine process this <code>ListLine</code>.
      * @param source data source for this <code>ListLine</code>.
-     * @return result in form of <code>List</code> of <code>Line</code>.
+     * @return the lines that were added to <code>report</code>.
      */
-    private List<Line> fillListLine(ListLine listLine, Collection source) {
-        Report subreport = new Report(report.getContentLinesPerPage(), listLine.getHeader(), listLine.getFooter());
-        int listLineNumber = listLine.getLineNumber() == null ? 1 : listLine.getLineNumber();
-        int startLines = listLine.getHeader().length + listLineNumber - report.getHeader().length;
-        if (startLines > subreport.getStartOfFooter()) {
-            throw new IllegalArgumentException("The rest of lines is not enough to store this list without " +
-                    "creating a new page. (" + startLines + " > " + subreport.getStartOfFooter() + ")");
-
-        }
-        LOG.fine("List start at line [" + startLines + "]");
-        subreport.newPage(false, startLines);
-
+    private List<Line> fillListLine(Page page, int lineNumber, ListLine listLine, Collection source) {
+        PagedLineWriter writer = new PagedLineWriter(report, page.getPageNumber(), lineNumber,
+            listLine.getHeader(), listLine.getFooter(), "list");
         for (Object entry: source) {
             dataSources = new DataSource[] {DataSources.from(entry)};
             DataSourceBinding lineContext = new DataSourceBinding(dataSources);
             scriptEngine.setBindings(lineContext, ScriptContext.ENGINE_SCOPE);
-            String result = fillBasicPlaceholder(listLine.getLineSource());
-            result = fillScriptPlaceholder(result);
+            StringBuilder text = new StringBuilder();
+            fillPlaceholders(listLine.getCompiledLineSource(), text);
+            String result = text.toString();
             LOG.fine("Add new line [" + result + "] from source [" + entry + "]");
-            subreport.append(new TextLine(result), false);
+            writer.append(new TextLine(result));
         }
-
-        return subreport.getFlatLines();
+        return writer.close();
     }
 
     /**
@@ -90,19 +97,28 @@ public class ListFillJob extends FillJob {
      */
     @Override
     public String fill() {
+        acquireScriptEngine();
+        try {
+            fillListLines();
+        } finally {
+            releaseScriptEngine();
+        }
+        return null;
+    }
+
+    /**
+     * Replace every <code>ListLine</code> in <code>report</code> with its filled lines.
+     */
+    private void fillListLines() {
         Page page;
         DataSource[] globalDataSources = Arrays.copyOf(dataSources, dataSources.length);
         while ((page = report.getFirstPageWithListLines()) != null) {
             ListLine listLine = page.getListLines().get(0);
+            int lineNumber = page.getLineNumber(listLine);
             page.removeLine(listLine);
             Object dataSource = (new ScriptPlaceholder(listLine.getSource(), scriptEngine)).getValue(globalDataSources);
             if (dataSource instanceof Collection) {
-                List<Line> results = fillListLine(listLine, (Collection) dataSource);
-                Collections.reverse(results);
-                for (Line result : results) {
-                    LOG.fine("Add new line [" + result.toString() + "]");
-                    report.insert(result, page.getPageNumber(), listLine.getLineNumber());
-                }
+                fillListLine(page, lineNumber, listLine, (Collection) dataSource);
             } else if (dataSource == null) {
                 LOG.warning("List was skipped because data source was null.");
             } else {
@@ -110,7 +126,6 @@ public class ListFillJob extends FillJob {
                         "] as a [" + dataSource.getClass() + "].");
             }
         }
-        return null;
     }
 
 }
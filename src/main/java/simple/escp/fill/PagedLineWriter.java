@@ -0,0 +1,193 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.fill;
+
+import simple.escp.dom.Line;
+import simple.escp.dom.Report;
+import simple.escp.dom.line.TextLine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Write the rows of a dynamic line, such as <code>TableLine</code> or <code>ListLine</code>, into a
+ * <code>Report</code>.  Rows are paginated once as they are added: the header and footer of the dynamic line
+ * are repeated whenever the rows reach the end of a page of <code>report</code>.  Calling {@link #close()}
+ * inserts all written lines at the position of the dynamic line.
+ *
+ * <p>A dynamic line may also have a page footer, which is written before the footer of every page, and a page
+ * header, which is written after the header of every page except the first.  Their placeholders are filled by
+ * a {@link PageFiller} at the moment the page break happens, so they can show totals of the rows written so far.
+ */
+final class PagedLineWriter {
+
+    private static final Logger LOG = Logger.getLogger("simple.escp");
+
+    private final Report report;
+    private final int pageNumber;
+    private final int lineNumber;
+    private final TextLine[] header;
+    private final TextLine[] footer;
+    private final TextLine[] pageHeader;
+    private final TextLine[] pageFooter;
+    private final PageFiller filler;
+    private final int rowsPerPage;
+    private final List<Line> lines = new ArrayList<>();
+    private int remaining;
+
+    /**
+     * Create a new instance of <code>PagedLineWriter</code>.
+     *
+     * @param report the destination of written lines.
+     * @param pageNumber the page number of the dynamic line.
+     * @param lineNumber the line number of the dynamic line or <code>null</code> if it is the first line.
+     * @param header the header that starts every page of the dynamic line.
+     * @param footer the footer that ends every page of the dynamic line.
+     * @param name the name of dynamic line used in error message, such as <code>table</code>.
+     */
+    PagedLineWriter(Report report, int pageNumber, Integer lineNumber, TextLine[] header, TextLine[] footer,
+                    String name) {
+        this(report, pageNumber, lineNumber, header, footer, new TextLine[0], new TextLine[0], null, name);
+    }
+
+    /**
+     * Create a new instance of <code>PagedLineWriter</code> with page header and page footer.
+     *
+     * @param report the destination of written lines.
+     * @param pageNumber the page number of the dynamic line.
+     * @param lineNumber the line number of the dynamic line or <code>null</code> if it is the first line.
+     * @param header the header that starts every page of the dynamic line.
+     * @param footer the footer that ends every page of the dynamic line.
+     * @param pageHeader the lines after <code>header</code> on every page except the first.
+     * @param pageFooter the lines before <code>footer</code> on every page.
+     * @param filler fills <code>pageHeader</code> and <code>pageFooter</code>, may be <code>null</code> if both
+     *               are empty.
+     * @param name the name of dynamic line used in error message, such as <code>table</code>.
+     */
+    PagedLineWriter(Report report, int pageNumber, Integer lineNumber, TextLine[] header, TextLine[] footer,
+                    TextLine[] pageHeader, TextLine[] pageFooter, PageFiller filler, String name) {
+        if (filler == null && (pageHeader.length > 0 || pageFooter.length > 0)) {
+            throw new IllegalArgumentException("Page header and page footer require a filler.");
+        }
+        this.report = report;
+        this.pageNumber = pageNumber;
+        this.lineNumber = lineNumber == null ? 1 : lineNumber;
+        this.header = header;
+        this.footer = footer;
+        this.pageHeader = pageHeader;
+        this.pageFooter = pageFooter;
+        this.filler = filler;
+        int pageLength = report.getContentLinesPerPage();
+        int startLines = header.length + this.lineNumber - report.getHeader().length;
+        int startOfFooter = pageLength - footer.length - pageFooter.length;
+        if (startLines > startOfFooter) {
+            throw new IllegalArgumentException("The rest of lines is not enough to store this " + name +
+                    " without creating a new page. (" + startLines + " > " + startOfFooter + ")");
+        }
+        LOG.fine("Start " + name + " at line [" + startLines + "]");
+        this.rowsPerPage = pageLength - header.length - footer.length - pageHeader.length - pageFooter.length;
+        this.remaining = startOfFooter - startLines + 1;
+        appendCopy(header);
+    }
+
+    /**
+     * Add copy of lines to the written lines.
+     *
+     * @param source the lines to copy.
+     */
+    private void appendCopy(TextLine[] source) {
+        for (TextLine line : source) {
+            lines.add(new TextLine(line));
+        }
+    }
+
+    /**
+     * Add filled version of lines to the written lines.
+     *
+     * @param source the lines to fill.
+     */
+    private void appendFilled(TextLine[] source) {
+        for (TextLine line : source) {
+            lines.add(filler.fill(line));
+        }
+    }
+
+    /**
+     * Add a new row.  If current page is full, footer and header will be written first.
+     *
+     * @param line the new row.
+     */
+    void append(Line line) {
+        if (remaining == 0) {
+            if (rowsPerPage <= 0) {
+                throw new IllegalStateException("Page is full.");
+            }
+            appendFilled(pageFooter);
+            appendCopy(footer);
+            if (filler != null) {
+                filler.endPage();
+            }
+            appendCopy(header);
+            appendFilled(pageHeader);
+            remaining = rowsPerPage;
+        }
+        lines.add(line);
+        remaining--;
+    }
+
+    /**
+     * Get all lines written so far, including repeated headers and footers.
+     *
+     * @return the written lines.
+     */
+    List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * Write the footer for the last page and insert all written lines into <code>report</code>.
+     *
+     * @return the lines inserted into <code>report</code>.
+     */
+    List<Line> close() {
+        appendFilled(pageFooter);
+        appendCopy(footer);
+        LOG.fine("Add [" + lines.size() + "] new lines");
+        report.splice(pageNumber, lineNumber, lines);
+        return lines;
+    }
+
+    /**
+     * Fills the page header and page footer of a dynamic line when a page break happens.
+     */
+    interface PageFiller {
+
+        /**
+         * Create a filled copy of a page header or page footer line.
+         *
+         * @param line the line that may contain placeholders.
+         * @return the filled line.
+         */
+        TextLine fill(TextLine line);
+
+        /**
+         * Notify that a page has ended.  This is called after the page footer of that page has been filled and
+         * before the page header of the next page is filled.
+         */
+        void endPage();
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.fill;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Logger;
+
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptEngineManager;
+import javax.script.SimpleBindings;
+
+import simple.escp.placeholder.CompiledScriptCache;
+
+/**
+ * A thread-safe <code>ScriptEngineProvider</code> that keeps a pool of idle engines.  The script engine factory
+ * is looked up only once.  Released engines have their bindings cleared and are kept for the next fill, so the
+ * cost of bootstrapping a script engine is paid only when the pool is empty.  When the pool is full, or when an
+ * engine is retired by the default <code>CompiledScriptCache</code> because it has compiled too many scripts, a
+ * released engine is discarded together with its scripts in that cache, so the classes generated for its scripts
+ * can be unloaded.
+ *
+ * <p>By default, Groovy is used when it is available, followed by graal.js and JavaScript.
+ */
+public class PooledScriptEngineProvider implements ScriptEngineProvider {
+
+    private static final Logger LOG = Logger.getLogger("simple.escp");
+
+    /**
+     * Names of script engines that will be tried, in order, when no name is given.
+     */
+    public static final String[] DEFAULT_ENGINE_NAMES = {"groovy", "graal.js", "JavaScript"};
+
+    /**
+     * The default maximum number of idle engines.
+     */
+    public static final int DEFAULT_MAX_IDLE = Runtime.getRuntime().availableProcessors();
+
+    private final ScriptEngineFactory factory;
+    private final BlockingQueue<ScriptEngine> idleEngines;
+
+    /**
+     * Create a new pool that uses the first available engine from <code>DEFAULT_ENGINE_NAMES</code>.
+     */
+    public PooledScriptEngineProvider() {
+        this(DEFAULT_MAX_IDLE, DEFAULT_ENGINE_NAMES);
+    }
+
+    /**
+     * Create a new pool that uses the first available engine from <code>engineNames</code>.
+     *
+     * @param maxIdle maximum number of idle engines that are kept by this pool.
+     * @param engineNames names of script engines that will be tried in order.
+     */
+    public PooledScriptEngineProvider(int maxIdle, String... engineNames) {
+        if (maxIdle < 1) {
+            throw new IllegalArgumentException("Maximum number of idle engines must be at least 1.");
+        }
+        this.idleEngines = new ArrayBlockingQueue<>(maxIdle);
+        final ScriptEngineManager scriptEngineManager = new ScriptEngineManager();
+        ScriptEngine engine = null;
+        for (final String engineName : engineNames) {
+            engine = scriptEngineManager.getEngineByName(engineName);
+            if (engine != null) {
+                LOG.fine("Using [" + engineName + "] script engine.");
+                break;
+            }
+            LOG.fine("Can't find [" + engineName + "] script engine.");
+        }
+        if (engine == null) {
+            LOG.warning("Can't find any script engine, script placeholders will not be available.");
+            this.factory = null;
+        } else {
+            this.factory = engine.getFactory();
+            release(engine);
+        }
+    }
+
+    /**
+     * Create a new pool that creates engines from a <code>ScriptEngineFactory</code>.
+     *
+     * @param factory the factory for new engines.
+     * @param maxIdle maximum number of idle engines that are kept by this pool.
+     */
+    public PooledScriptEngineProvider(ScriptEngineFactory factory, int maxIdle) {
+        if (factory == null) {
+            throw new IllegalArgumentException("Script engine factory can't be null.");
+        }
+        if (maxIdle < 1) {
+            throw new IllegalArgumentException("Maximum number of idle engines must be at least 1.");
+        }
+        this.factory = factory;
+        this.idleEngines = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Get the factory that creates engines for this pool.
+     *
+     * @return the factory or <code>null</code> if no script engine is available.
+     */
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Get the number of engines that are ready to be acquired.
+     *
+     * @return number of idle engines.
+     */
+    public int getIdleCount() {
+        return idleEngines.size();
+    }
+
+    /**
+     * Create engines in advance so the first fills don't have to wait for a new engine.
+     *
+     * @param count number of engines that should be idle in this pool.  It will be limited to the maximum number
+     *              of idle engines.
+     */
+    public void warmUp(int count) {
+        if (factory == null) {
+            return;
+        }
+        while (idleEngines.size() < count && idleEngines.offer(factory.getScriptEngine())) {
+            LOG.fine("Added a new idle script engine.");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ScriptEngine acquire() {
+        final ScriptEngine engine = idleEngines.poll();
+        if (engine != null || factory == null) {
+            return engine;
+        }
+        LOG.fine("No idle script engine, creating a new one.");
+        return factory.getScriptEngine();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(ScriptEngine engine) {
+        if (engine == null) {
+            return;
+        }
+        final CompiledScriptCache cache = CompiledScriptCache.getDefault();
+        if (cache.isRetired(engine)) {
+            LOG.fine("Script engine has compiled too many scripts and will be discarded.");
+            cache.remove(engine);
+            return;
+        }
+        engine.setBindings(engine.createBindings(), ScriptContext.ENGINE_SCOPE);
+        engine.setBindings(new SimpleBindings(), ScriptContext.GLOBAL_SCOPE);
+        if (!idleEngines.offer(engine)) {
+            LOG.fine("Pool is full, script engine will be discarded.");
+            cache.remove(engine);
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.fill;
+
+import javax.script.ScriptEngine;
+
+/**
+ * <code>ScriptEngineProvider</code> supplies the <code>ScriptEngine</code> that evaluates script placeholders
+ * during a fill.  A <code>FillJob</code> will acquire one engine when filling starts and release it when filling
+ * is finished.  An engine is never used by more than one fill at the same time, but implementations must allow
+ * <code>acquire()</code> and <code>release()</code> to be called from many threads.
+ */
+public interface ScriptEngineProvider {
+
+    /**
+     * Get a <code>ScriptEngine</code> for exclusive use by the caller.
+     *
+     * @return a <code>ScriptEngine</code> or <code>null</code> if no script engine is available.
+     */
+    ScriptEngine acquire();
+
+    /**
+     * Return a <code>ScriptEngine</code> that was retrieved by <code>acquire()</code>.  The caller must not use
+     * <code>engine</code> after calling this method.
+     *
+     * @param engine the engine that is no longer used.
+     */
+    void release(ScriptEngine engine);
+
+}
@@ -30,6 +30,7 @@ import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.logging.Logger;
 
 /**
@@ -40,11 +41,13 @@ public class TableFillHelper {
     private static final Logger LOG = Logger.getLogger("simple.escp");
 
     private Report report;
+    private PagedLineWriter writer;
     private TableLine tableLine;
     private Collection source;
     private ScriptEngine scriptEngine;
     private WrappedBuffer wrappedBuffer;
     private Placeholder[] placeholders;
+    private TableTotals totals;
 
     /**
      * Create a new instance of this helper class.
@@ -63,6 +66,20 @@ public class TableFillHelper {
         preparePlaceholders();
     }
 
+    /**
+     * Create a new instance of this helper class that writes rows directly to the report that contains
+     * <code>tableLine</code>.
+     *
+     * @param writer new <code>TextLine</code> will be written to this <code>PagedLineWriter</code>.
+     * @param scriptEngine the <code>ScriptEngine</code> for evaluating placeholders.
+     * @param tableLine the <code>TableLine</code> to be filled.
+     * @param source source for <code>tableLine</code>.
+     */
+    TableFillHelper(PagedLineWriter writer, ScriptEngine scriptEngine, TableLine tableLine, Collection source) {
+        this((Report) null, scriptEngine, tableLine, source);
+        this.writer = writer;
+    }
+
     /**
      * Read information from <code>tableLine</code> and creates instance of <code>ScriptPlaceholder</code>
      * for every columns.
@@ -79,6 +96,27 @@ public class TableFillHelper {
         }
     }
 
+    /**
+     * Set the locale that is used to format the columns.
+     *
+     * @param locale the locale or <code>null</code> to use the default locale for formatting.
+     */
+    public void setLocale(Locale locale) {
+        for (Placeholder placeholder : placeholders) {
+            placeholder.setLocale(locale);
+        }
+    }
+
+    /**
+     * Set the totals that will be updated for every row.  They are shown at page breaks by the
+     * <code>PagedLineWriter</code> of this helper.
+     *
+     * @param totals the totals of the table or <code>null</code> if the table doesn't have any.
+     */
+    void setTotals(TableTotals totals) {
+        this.totals = totals;
+    }
+
     /**
      * Add new text to a string builder that represents the content of a line.
      *
@@ -86,17 +124,35 @@ public class TableFillHelper {
      * @param text the content that will be appended.
      * @param index the position of this column (start from <code>0</code> for the left-most column).  This value
      *              is required to determine what borders to print if table border is enabled.
+     * @param underline <code>true</code> if <code>text</code> should be underlined.
      */
-    private void appendLine(StringBuilder result, String text, int index) {
+    private void appendLine(StringBuilder result, CharSequence text, int index, boolean underline) {
         if (index == 0 && tableLine.isDrawBorder()) {
             result.append(EscpUtil.CP347_LIGHT_VERTICAL);
         }
-        result.append(text);
+        if (underline) {
+            result.append(EscpUtil.escSelectUnderline()).append(text).append(EscpUtil.escCancelUnderline());
+        } else {
+            result.append(text);
+        }
         if (tableLine.isDrawBorder()) {
             result.append(EscpUtil.CP347_LIGHT_VERTICAL);
         }
     }
 
+    /**
+     * Add a new line to the result of this helper.
+     *
+     * @param line the line that will be added.
+     */
+    private void addLine(Line line) {
+        if (writer == null) {
+            report.append(line, false);
+        } else {
+            writer.append(line);
+        }
+    }
+
     /**
      * Create line separator.
      *
@@ -126,10 +182,17 @@ public class TableFillHelper {
     /**
      * Execute this helper function.
      *
-     * @return a collection of <code>Line</code>.
+     * @return a collection of <code>Line</code>.  If this helper writes to a <code>PagedLineWriter</code>, the
+     *         result are lines written so far.
      */
     public List<Line> process() {
         int rowNumber = 1;
+        // Cells are formatted into reusable builders to avoid creating a String for every value.
+        StringBuilder[] cells = new StringBuilder[tableLine.getNumberOfColumns()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new StringBuilder();
+        }
+        CharSequence[] values = new CharSequence[tableLine.getNumberOfColumns()];
         for (Object entry: source) {
             LOG.fine("Row number [" + rowNumber + "] Source [" + entry + "]");
             StringBuilder text = new StringBuilder();
@@ -139,35 +202,35 @@ public class TableFillHelper {
             scriptEngine.setBindings(lineContext, ScriptContext.ENGINE_SCOPE);
 
             // Prepare values before actually add them to the result.
-            String[] values = new String[tableLine.getNumberOfColumns()];
             for (int i = 0; i < tableLine.getNumberOfColumns(); i++) {
                 lineContext.put("col", i + 1);
                 TableColumn column = tableLine.getColumnAt(i + 1);
-                String value = placeholders[i].getValueAsString(entryDataSources);
+                cells[i].setLength(0);
+                placeholders[i].appendFormattedValue(entryDataSources, cells[i]);
                 if (column.isWrap()) {
-                    values[i] = wrappedBuffer.add(i, value);
+                    values[i] = wrappedBuffer.add(i, cells[i].toString());
                 } else {
-                    values[i] = value;
+                    values[i] = cells[i];
                 }
             }
 
             // Add calculated value to the result
-            boolean needUnderline = wrappedBuffer.isEmpty();
+            boolean needUnderline = wrappedBuffer.isEmpty() && tableLine.isDrawUnderlineSeparator();
             for (int i = 0; i < tableLine.getNumberOfColumns(); i++) {
-                if (needUnderline && tableLine.isDrawUnderlineSeparator()) {
-                    appendLine(text, EscpUtil.escSelectUnderline() + values[i] + EscpUtil.escCancelUnderline(), i);
-                } else {
-                    appendLine(text, values[i], i);
-                }
+                appendLine(text, values[i], i, needUnderline);
+            }
+            addLine(new TextLine(text.toString()));
+            if (totals != null) {
+                // a page break caused by this row has been written, so the row belongs to the new page
+                totals.add(entryDataSources);
             }
-            report.append(new TextLine(text.toString()), false);
             wrappedBuffer.flush();
             if (rowNumber < source.size() && tableLine.isDrawLineSeparator()) {
-                report.append(new TextLine(lineSeparator()), false);
+                addLine(new TextLine(lineSeparator()));
             }
             rowNumber++;
         }
-        return report.getFlatLines();
+        return writer == null ? report.getFlatLines() : writer.getLines();
     }
 
     /**
@@ -283,7 +346,7 @@ public class TableFillHelper {
         }
 
         /**
-         * Process all column's buffers and insert them as <code>TextLine</code> to current <code>report</code>.
+         * Process all column's buffers and insert them as <code>TextLine</code> to the result of this helper.
          */
         public void flush() {
             while (!isEmpty()) {
@@ -296,14 +359,9 @@ public class TableFillHelper {
                 }
 
                 for (int i = 0; i < buffer.length; i++) {
-                    if (isEmpty() && tableLine.isDrawUnderlineSeparator()) {
-                        appendLine(result, EscpUtil.escSelectUnderline() + values[i] + EscpUtil.escCancelUnderline(),
-                            i);
-                    } else {
-                        appendLine(result, values[i], i);
-                    }
+                    appendLine(result, values[i], i, isEmpty() && tableLine.isDrawUnderlineSeparator());
                 }
-                report.append(new TextLine(result.toString()), false);
+                addLine(new TextLine(result.toString()));
             }
             clear();
         }
@@ -22,8 +22,8 @@ import simple.escp.dom.Report;
 import simple.escp.dom.line.TableLine;
 import simple.escp.exception.InvalidPlaceholder;
 import simple.escp.placeholder.ScriptPlaceholder;
+import javax.script.ScriptEngine;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -47,28 +47,45 @@ public class TableFillJob extends FillJob {
     }
 
     /**
-     * Fill <code>TableLine</code>.
+     * Create a new instance of <code>TableFillJob</code> that shares the script engine of another
+     * <code>FillJob</code>.
      *
+     * @param report the target destination of this <code>FillJob</code>.  This <code>FillJob</code> will not
+     *               return any value but directly modify destination <code>report</code>.
+     * @param dataSources  global data source for this <code>FillJob</code>.
+     * @param scriptEngine the engine for script placeholders or <code>null</code> to acquire a new one.
+     */
+    public TableFillJob(Report report, DataSource[] dataSources, ScriptEngine scriptEngine) {
+        super(report, dataSources, scriptEngine);
+    }
+
+    /**
+     * Fill <code>TableLine</code>.  Rows are written directly to <code>report</code> at the position of
+     * <code>tableLine</code>.
+     *
+     * @param page the page that contains <code>tableLine</code>.
+     * @param lineNumber the line number of <code>tableLine</code> in <code>page</code>.
      * @param tableLine process this <code>TableLine</code>.
      * @param source data source for this <code>TableLine</code>.
-     * @return result in form of <code>List</code> of <code>Line</code>.
+     * @return the lines that were added to <code>report</code>.
      */
-    private List<Line> fillTableLine(TableLine tableLine, Collection source) {
+    private List<Line> fillTableLine(Page page, int lineNumber, TableLine tableLine, Collection source) {
         if (source == null) {
             throw new InvalidPlaceholder("Source for table can't be null.");
         }
-        Report subreport = new Report(report.getContentLinesPerPage(), tableLine.getHeader(), tableLine.getFooter());
-        int tableLineNumber = tableLine.getLineNumber() == null ? 1 : tableLine.getLineNumber();
-        int startLines = tableLine.getHeader().length + tableLineNumber - report.getHeader().length;
-        if (startLines > subreport.getStartOfFooter()) {
-            throw new IllegalArgumentException("The rest of lines is not enough to store this table without " +
-                    "creating a new page. (" + startLines + " > " + subreport.getStartOfFooter() + ")");
-
+        TableTotals totals = null;
+        if (!tableLine.getTotals().isEmpty() || tableLine.getPageHeader().length > 0 ||
+                tableLine.getPageFooter().length > 0) {
+            totals = new TableTotals(tableLine, dataSources, scriptEngine, locale);
         }
-        LOG.fine("Table start at line [" + startLines + "]");
-        subreport.newPage(false, startLines);
-        TableFillHelper helper = new TableFillHelper(subreport, scriptEngine, tableLine, source);
-        return helper.process();
+        PagedLineWriter writer = new PagedLineWriter(report, page.getPageNumber(), lineNumber,
+            tableLine.getHeader(), tableLine.getFooter(), tableLine.getPageHeader(), tableLine.getPageFooter(),
+            totals, "table");
+        TableFillHelper helper = new TableFillHelper(writer, scriptEngine, tableLine, source);
+        helper.setLocale(locale);
+        helper.setTotals(totals);
+        helper.process();
+        return writer.close();
     }
 
     /**
@@ -79,19 +96,28 @@ public class TableFillJob extends FillJob {
      */
     @Override
     public String fill() {
+        acquireScriptEngine();
+        try {
+            fillTableLines();
+        } finally {
+            releaseScriptEngine();
+        }
+        return null;
+    }
+
+    /**
+     * Replace every <code>TableLine</code> in <code>report</code> with its filled lines.
+     */
+    private void fillTableLines() {
         Page page;
         while ((page = report.getFirstPageWithTableLines()) != null) {
             TableLine tableLine = page.getTableLines().get(0);
+            int lineNumber = page.getLineNumber(tableLine);
             page.removeLine(tableLine);
             Object dataSource = (new ScriptPlaceholder(tableLine.getSource(), scriptEngine)).getValue(dataSources);
             if (dataSource instanceof Collection) {
                 LOG.fine("Datasource is [" + dataSource + "]");
-                List<Line> results = fillTableLine(tableLine, (Collection) dataSource);
-                Collections.reverse(results);
-                for (Line result : results) {
-                    LOG.fine("Add new line [" + result.toString() + "]");
-                    report.insert(result, page.getPageNumber(), tableLine.getLineNumber());
-                }
+                fillTableLine(page, lineNumber, tableLine, (Collection) dataSource);
             } else if (dataSource == null) {
                 LOG.warning("Table was skipped because data source was null.");
             } else {
@@ -99,6 +125,5 @@ public class TableFillJob extends FillJob {
                         "] as a [" + dataSource.getClass() + "]");
             }
         }
-        return null;
     }
 }
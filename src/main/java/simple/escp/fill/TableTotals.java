@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.fill;
+
+import simple.escp.data.DataSource;
+import simple.escp.data.MapDataSource;
+import simple.escp.dom.TableTotal;
+import simple.escp.dom.line.TableLine;
+import simple.escp.dom.line.TextLine;
+import simple.escp.exception.InvalidPlaceholder;
+import simple.escp.placeholder.Aggregation;
+import simple.escp.placeholder.BasicPlaceholder;
+import simple.escp.placeholder.CompiledText;
+import simple.escp.placeholder.Placeholder;
+import simple.escp.placeholder.ScriptPlaceholder;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maintains the totals of a <code>TableLine</code> while its rows are filled, and fills its page header and page
+ * footer at every page break.  Every row is added once: totals that aggregate the same member in the same scope
+ * share one <code>Aggregation</code>, and page totals are cleared when a page ends, so no row is read again.
+ */
+final class TableTotals implements PagedLineWriter.PageFiller {
+
+    private final TableTotal[] totals;
+    private final BasicPlaceholder[] sources;
+    private final Aggregation[] aggregations;
+    private final Map<String, Object> values = new HashMap<>();
+    private final DataSource[] dataSources;
+    private final ScriptEngine scriptEngine;
+    private final Locale locale;
+    private final Map<String, Placeholder> placeholders = new HashMap<>();
+
+    /**
+     * Create a new instance of <code>TableTotals</code>.
+     *
+     * @param tableLine the table that declares the totals.
+     * @param dataSources the data sources of the report, which are also available in page header and page
+     *                    footer.
+     * @param scriptEngine the engine for script placeholders in page header and page footer.
+     * @param locale the locale for formatting placeholders or <code>null</code> for the default locale.
+     */
+    TableTotals(TableLine tableLine, DataSource[] dataSources, ScriptEngine scriptEngine, Locale locale) {
+        final List<TableTotal> declared = tableLine.getTotals();
+        this.totals = declared.toArray(new TableTotal[0]);
+        this.sources = new BasicPlaceholder[totals.length];
+        this.aggregations = new Aggregation[totals.length];
+        for (int i = 0; i < totals.length; i++) {
+            sources[i] = new BasicPlaceholder(totals[i].getSource());
+            for (int j = 0; j < i; j++) {
+                if (totals[j].getSource().equals(totals[i].getSource()) &&
+                    totals[j].isRunning() == totals[i].isRunning()) {
+                    aggregations[i] = aggregations[j];
+                    sources[i] = null;
+                    break;
+                }
+            }
+            if (aggregations[i] == null) {
+                aggregations[i] = new Aggregation();
+            }
+        }
+        this.dataSources = new DataSource[dataSources.length + 1];
+        this.dataSources[0] = new MapDataSource(values);
+        System.arraycopy(dataSources, 0, this.dataSources, 1, dataSources.length);
+        this.scriptEngine = scriptEngine;
+        this.locale = locale;
+    }
+
+    /**
+     * Add a row to all totals.
+     *
+     * @param entryDataSources the data sources of the row.
+     */
+    void add(DataSource[] entryDataSources) {
+        for (int i = 0; i < totals.length; i++) {
+            if (sources[i] != null) {
+                aggregations[i].add(sources[i].getValue(entryDataSources));
+            }
+        }
+    }
+
+    /**
+     * Get the current value of a total.
+     *
+     * @param index the index of total.
+     * @return the current value.
+     */
+    private Object getValue(int index) {
+        try {
+            return aggregations[index].get(totals[index].getAggregate());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPlaceholder("Can't calculate total [" + totals[index].getName() + "].", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TextLine fill(TextLine line) {
+        for (int i = 0; i < totals.length; i++) {
+            values.put(totals[i].getName(), getValue(i));
+        }
+        final CompiledText compiledText = line.getCompiledText();
+        final StringBuilder result = new StringBuilder();
+        for (int i = 0; i < compiledText.getNumberOfSegments(); i++) {
+            final CompiledText.Segment segment = compiledText.getSegment(i);
+            switch (segment.getType()) {
+                case BASIC_PLACEHOLDER:
+                    getPlaceholder(segment.getText(), false).appendFormattedValue(dataSources, result);
+                    break;
+                case SCRIPT_PLACEHOLDER:
+                    scriptEngine.setBindings(new DataSourceBinding(dataSources), ScriptContext.ENGINE_SCOPE);
+                    getPlaceholder(segment.getText(), true).appendFormattedValue(dataSources, result);
+                    break;
+                default:
+                    result.append(segment.getText());
+            }
+        }
+        return new TextLine(result.toString());
+    }
+
+    /**
+     * Find or create the placeholder for a placeholder text in page header or page footer.
+     *
+     * @param text the placeholder text.
+     * @param script <code>true</code> if this is a script placeholder.
+     * @return an instance of <code>Placeholder</code>.
+     */
+    private Placeholder getPlaceholder(String text, boolean script) {
+        final String key = script ? "{{" + text : text;
+        Placeholder placeholder = placeholders.get(key);
+        if (placeholder == null) {
+            placeholder = script ? new ScriptPlaceholder(text, scriptEngine) : new BasicPlaceholder(text);
+            placeholder.setLocale(locale);
+            placeholders.put(key, placeholder);
+        }
+        return placeholder;
+    }
+
+    /**
+     * Clear all page totals.
+     */
+    @Override
+    public void endPage() {
+        for (int i = 0; i < totals.length; i++) {
+            if (!totals[i].isRunning()) {
+                aggregations[i].clear();
+            }
+        }
+    }
+
+}
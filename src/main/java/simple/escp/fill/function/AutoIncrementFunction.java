@@ -15,10 +15,6 @@
  */
 package simple.escp.fill.function;
 
-import simple.escp.dom.Line;
-import simple.escp.dom.Page;
-import simple.escp.dom.Report;
-
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -38,30 +34,26 @@ import java.util.regex.Matcher;
  *
  * <p>The next occurence of <code>%{INC B}</code> will return <code>2</code>.
  */
-public class AutoIncrementFunction extends Function {
+public class AutoIncrementFunction extends ContextFunction {
 
-    private Map<String, Integer> variables;
     /**
      * Create a new instance of this function.
      */
     public AutoIncrementFunction() {
-        super("%\\{\\s*INC\\s*(\\w+)\\s*\\}");
-        variables = new HashMap<>();
+        super("%\\{\\s*INC\\s*(\\w+)\\s*\\}", "INC");
     }
 
     @Override
-    public String process(Matcher matcher, Report report, Page page, Line line) {
-        String variable = matcher.group(1).toLowerCase();
-        if (variables.containsKey(variable)) {
-            variables.put(variable, variables.get(variable) + 1);
-        } else {
-            variables.put(variable, 1);
+    @SuppressWarnings("unchecked")
+    public String process(Matcher matcher, FunctionContext context) {
+        Map<String, Integer> variables = (Map<String, Integer>) context.getState(this);
+        if (variables == null) {
+            variables = new HashMap<>();
+            context.setState(this, variables);
         }
-        return variables.get(variable).toString();
+        String variable = matcher.group(1).toLowerCase();
+        Integer value = variables.merge(variable, 1, Integer::sum);
+        return value.toString();
     }
 
-    @Override
-    public void reset() {
-        variables.clear();
-    }
 }
@@ -15,9 +15,6 @@
  */
 package simple.escp.fill.function;
 
-import simple.escp.dom.Line;
-import simple.escp.dom.Page;
-import simple.escp.dom.Report;
 import simple.escp.util.EscpUtil;
 import java.util.regex.Matcher;
 
@@ -27,28 +24,20 @@ import java.util.regex.Matcher;
  * already in bold font style (as a result of previous invocation), <code>%{BOLD}</code> will switch to default
  * font style.
  */
-public class BoldFunction extends Function {
-
-    private boolean bold;
+public class BoldFunction extends ContextFunction {
 
     /**
      * Create new instance of this function.
      */
     public BoldFunction() {
-        super("%\\{\\s*(BOLD)\\s*\\}");
-        bold = false;
-    }
-
-    @Override
-    public String process(Matcher matcher, Report report, Page page, Line line) {
-        String result = bold ? EscpUtil.escCancelBoldFont() : EscpUtil.escSelectBoldFont();
-        bold = !bold;
-        return result;
+        super("%\\{\\s*(BOLD)\\s*\\}", "BOLD");
     }
 
     @Override
-    public void reset() {
-        bold = false;
+    public String process(Matcher matcher, FunctionContext context) {
+        boolean bold = Boolean.TRUE.equals(context.getState(this));
+        context.setState(this, !bold);
+        return bold ? EscpUtil.escCancelBoldFont() : EscpUtil.escSelectBoldFont();
     }
 
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.fill.function;
+
+import simple.escp.dom.Line;
+import simple.escp.dom.Page;
+import simple.escp.dom.Report;
+import java.util.regex.Matcher;
+
+/**
+ * A function that stores its state in <code>FunctionContext</code>, such as the toggle of <code>%{BOLD}</code>.
+ * Because the state belongs to the fill instead of the function, the same instance can be used by concurrent fills
+ * and doesn't need to be reset.
+ */
+public abstract class ContextFunction extends Function {
+
+    /**
+     * Create a new function with the specified regex pattern and keyword.
+     *
+     * @param pattern a regex pattern to identify this function.
+     * @param keyword the keyword of this function or <code>null</code> if this function doesn't have keyword.
+     */
+    public ContextFunction(String pattern, String keyword) {
+        super(pattern, keyword);
+    }
+
+    /**
+     * The actual implementation of this function.  Its state should be stored in <code>context</code> by using
+     * <code>FunctionContext.setState()</code>.
+     *
+     * @param matcher the <code>Matcher</code> that matches this function.
+     * @param context the context of current fill.
+     * @return result of this function as <code>String</code>.
+     */
+    @Override
+    public abstract String process(Matcher matcher, FunctionContext context);
+
+    /**
+     * Evaluate this function outside of a fill.  A new <code>FunctionContext</code> is used for every invocation,
+     * so no state is kept between invocations.
+     *
+     * @param matcher the <code>Matcher</code> that matches this function.
+     * @param report current report that is being evaluated.
+     * @param page current page that is being evaluated.
+     * @param line current line that is being evaluated.
+     * @return result of this function as <code>String</code>.
+     */
+    @Override
+    public final String process(Matcher matcher, Report report, Page page, Line line) {
+        FunctionContext context = new FunctionContext(report);
+        context.setCurrent(report, page, line);
+        return process(matcher, context);
+    }
+
+    /**
+     * Do nothing because the state of this function is stored in <code>FunctionContext</code>.
+     */
+    @Override
+    public void reset() {
+        // Nothing to reset.
+    }
+
+}
@@ -15,9 +15,6 @@
  */
 package simple.escp.fill.function;
 
-import simple.escp.dom.Line;
-import simple.escp.dom.Page;
-import simple.escp.dom.Report;
 import simple.escp.util.EscpUtil;
 import java.util.regex.Matcher;
 
@@ -27,27 +24,19 @@ import java.util.regex.Matcher;
  * If current font style is already in double strike printing (as a result of previous invocation),
  * <code>%{DOUBLE}</code> will switch to default font style.
  */
-public class DoubleStrikeFunction extends Function {
-
-    private boolean doubleStrike;
+public class DoubleStrikeFunction extends ContextFunction {
 
     /**
      * Create new instance of this function.
      */
     public DoubleStrikeFunction() {
-        super("%\\{\\s*(DOUBLE)\\s*\\}");
-        doubleStrike = false;
-    }
-
-    @Override
-    public String process(Matcher matcher, Report report, Page page, Line line) {
-        String result = doubleStrike ? EscpUtil.escCancelDoubleStrikeFont() : EscpUtil.escSelectDoubleStrikeFont();
-        doubleStrike = !doubleStrike;
-        return result;
+        super("%\\{\\s*(DOUBLE)\\s*\\}", "DOUBLE");
     }
 
     @Override
-    public void reset() {
-        doubleStrike = false;
+    public String process(Matcher matcher, FunctionContext context) {
+        boolean doubleStrike = Boolean.TRUE.equals(context.getState(this));
+        context.setState(this, !doubleStrike);
+        return doubleStrike ? EscpUtil.escCancelDoubleStrikeFont() : EscpUtil.escSelectDoubleStrikeFont();
     }
 }
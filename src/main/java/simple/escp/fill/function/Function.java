@@ -18,7 +18,7 @@ package simple.escp.fill.function;
 import simple.escp.dom.Line;
 import simple.escp.dom.Page;
 import simple.escp.dom.Report;
-import simple.escp.dom.line.TextLine;
+import java.util.Collections;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -29,13 +29,27 @@ import java.util.regex.Pattern;
 public abstract class Function {
 
     private Pattern pattern;
+    private final String keyword;
 
     /**
      * Create a new function with the specified regex pattern.
      * @param pattern a regex pattern to identify this function.
      */
     public Function(String pattern) {
+        this(pattern, null);
+    }
+
+    /**
+     * Create a new function with the specified regex pattern and keyword.  The keyword is the first word inside
+     * the expression, for example <code>BOLD</code> for <code>%{BOLD}</code>.  It allows
+     * <code>FunctionEngine</code> to find this function without trying the pattern of other functions.
+     *
+     * @param pattern a regex pattern to identify this function.
+     * @param keyword the keyword of this function or <code>null</code> if this function doesn't have keyword.
+     */
+    public Function(String pattern, String keyword) {
         this.pattern = Pattern.compile(pattern);
+        this.keyword = keyword;
     }
 
     /**
@@ -47,6 +61,15 @@ public abstract class Function {
         return pattern;
     }
 
+    /**
+     * Retrieve the keyword of this function.
+     *
+     * @return the keyword or <code>null</code> if this function doesn't have keyword.
+     */
+    public String getKeyword() {
+        return keyword;
+    }
+
     /**
      * Set a new regex pattern that identify this function.
      *
@@ -58,7 +81,8 @@ public abstract class Function {
 
     /**
      * The actual implementation of this function.  Given the input parameters, this method should return
-     * <code>String</code> as a result of this function.
+     * <code>String</code> as a result of this function.  Functions that keep state across invocations should
+     * extend {@link ContextFunction} instead.
      *
      * @param matcher the <code>Matcher</code> that matches this function.  If <code>pattern</code> for this
      *                function contains one or more regex group, use <code>matcher</code> to retrieve the group value,
@@ -70,6 +94,18 @@ public abstract class Function {
      */
     public abstract String process(Matcher matcher, Report report, Page page, Line line);
 
+    /**
+     * Evaluate this function during a fill.  The default implementation calls
+     * <code>process(Matcher, Report, Page, Line)</code> with the current position of <code>context</code>.
+     *
+     * @param matcher the <code>Matcher</code> that matches this function.
+     * @param context the context of current fill.
+     * @return result of this function as <code>String</code>.
+     */
+    public String process(Matcher matcher, FunctionContext context) {
+        return process(matcher, context.getReport(), context.getPage(), context.getLine());
+    }
+
     /**
      * This method will called when starting a new fill job.  It should clears or reset states of this function that
      * should not be persistent across different fill jobs.
@@ -83,21 +119,7 @@ public abstract class Function {
      * @param report process this report.
      */
     public void process(Report report) {
-        for (Page page : report) {
-            for (int i = 1; i <= page.getNumberOfLines(); i++) {
-                Line line = page.getLine(i);
-                if (line instanceof TextLine) {
-                    String text = ((TextLine) line).getText();
-                    StringBuffer result = new StringBuffer();
-                    Matcher matcher = pattern.matcher(text);
-                    while (matcher.find()) {
-                        matcher.appendReplacement(result, process(matcher, report, page, line));
-                    }
-                    matcher.appendTail(result);
-                    page.setLine(i, new TextLine(result.toString()));
-                }
-            }
-        }
+        new FunctionEngine(Collections.singletonList(this)).process(report);
     }
 
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.fill.function;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import simple.escp.dom.Line;
+import simple.escp.dom.Page;
+import simple.escp.dom.Report;
+
+/**
+ * <code>FunctionContext</code> holds the state of functions during a single fill.  A new context is created for
+ * every fill, so functions that keep state (such as the toggle of <code>%{BOLD}</code> or the counters of
+ * <code>%{INC}</code>) should extend {@link ContextFunction} and store it here instead of in their fields.  This
+ * allows the same <code>Function</code> instances to be shared by fills running concurrently.
+ *
+ * <p>Instances of this class are not thread-safe and should be used by one fill only.
+ */
+public class FunctionContext {
+
+    private final Map<Function, Object> states = new IdentityHashMap<>();
+    private Report report;
+    private Page page;
+    private Line line;
+    private Integer lineNumber;
+
+    /**
+     * Create a new instance of <code>FunctionContext</code>.
+     *
+     * @param report the report that is being evaluated.
+     */
+    public FunctionContext(Report report) {
+        this.report = report;
+    }
+
+    /**
+     * Get current report that is being evaluated.
+     *
+     * @return current report.
+     */
+    public Report getReport() {
+        return report;
+    }
+
+    /**
+     * Get current page that is being evaluated.
+     *
+     * @return current page.
+     */
+    public Page getPage() {
+        return page;
+    }
+
+    /**
+     * Get current line that is being evaluated.
+     *
+     * @return current line.
+     */
+    public Line getLine() {
+        return line;
+    }
+
+    /**
+     * Get the line number of current line.  The number is taken from current page, so it is also available for
+     * lines that are shared with another report.
+     *
+     * @return the line number starting from <code>1</code>.
+     */
+    public Integer getLineNumber() {
+        if (lineNumber != null || line == null) {
+            return lineNumber;
+        }
+        return line.getLineNumber();
+    }
+
+    /**
+     * Get the global line number of current line.  The number is taken from current page, so it is also available
+     * for lines that are shared with another report.
+     *
+     * @return the global line number starting from <code>1</code>.
+     */
+    public Integer getGlobalLineNumber() {
+        Integer result = (lineNumber == null || page == null) ? null : page.getGlobalLineNumber(lineNumber);
+        if (result == null && line != null) {
+            result = line.getGlobalLineNumber();
+        }
+        return result;
+    }
+
+    /**
+     * Set the current position of evaluation.  Line numbers will be read from <code>line</code>.
+     *
+     * @param report current report.
+     * @param page current page.
+     * @param line current line.
+     */
+    void setCurrent(Report report, Page page, Line line) {
+        setCurrent(report, page, line, null);
+    }
+
+    /**
+     * Set the current position of evaluation.
+     *
+     * @param report current report.
+     * @param page current page.
+     * @param line current line.
+     * @param lineNumber the line number of <code>line</code> in <code>page</code>.
+     */
+    void setCurrent(Report report, Page page, Line line, Integer lineNumber) {
+        this.report = report;
+        this.page = page;
+        this.line = line;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Get the state of a function in this fill.
+     *
+     * @param function the owner of the state.
+     * @return the state or <code>null</code> if <code>function</code> doesn't have state yet.
+     */
+    public Object getState(Function function) {
+        return states.get(function);
+    }
+
+    /**
+     * Set the state of a function in this fill.
+     *
+     * @param function the owner of the state.
+     * @param state the new state.
+     */
+    public void setState(Function function, Object state) {
+        states.put(function, state);
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.fill.function;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+import simple.escp.dom.Line;
+import simple.escp.dom.Page;
+import simple.escp.dom.Report;
+import simple.escp.dom.line.TextLine;
+
+/**
+ * <code>FunctionEngine</code> evaluates all functions in a <code>Report</code> in a single traversal.  Every
+ * <code>%{...}</code> expression is dispatched to its <code>Function</code> by looking up the keyword of the
+ * expression, for example <code>BOLD</code> in <code>%{BOLD}</code>.  Functions that don't declare a keyword
+ * (or expressions whose keyword doesn't resolve to a matching function) are tried in order of registration.
+ * Lines without function are left untouched.
+ */
+public class FunctionEngine {
+
+    private static final String FUNCTION_START = "%{";
+
+    private final FunctionRegistry registry;
+    private final Map<Function, Matcher> matchers = new IdentityHashMap<>();
+    private FunctionContext context;
+
+    /**
+     * Create a new instance of <code>FunctionEngine</code>.
+     *
+     * @param functions the functions that will be evaluated.  If more than one function share the same
+     *                  keyword, the first function has the highest priority.
+     */
+    public FunctionEngine(List<Function> functions) {
+        this(new FunctionRegistry(functions));
+    }
+
+    /**
+     * Create a new instance of <code>FunctionEngine</code>.  An engine keeps the state of functions, so a new
+     * engine should be created for every fill.
+     *
+     * @param registry the functions that will be evaluated.
+     */
+    public FunctionEngine(FunctionRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Get the context that holds the state of functions evaluated by this engine.
+     *
+     * @return the context, or <code>null</code> if this engine hasn't processed any report yet.
+     */
+    public FunctionContext getContext() {
+        return context;
+    }
+
+    /**
+     * Find all functions in <code>report</code> and translates them into actual value.  This method will
+     * process all lines in all pages of <code>report</code> in order of their appearance.
+     *
+     * @param report process this report.
+     */
+    public void process(Report report) {
+        for (Page page : report) {
+            process(report, page);
+        }
+    }
+
+    /**
+     * Find all functions in a page and translates them into actual value.  Pages should be processed in order of
+     * their appearance because some functions depend on previous invocations.  Results are stored by
+     * <code>Page.overlay()</code>, so the lines of <code>page</code> are never modified.
+     *
+     * @param report the report that owns <code>page</code>.
+     * @param page process this page.
+     */
+    public void process(Report report, Page page) {
+        if (context == null) {
+            context = new FunctionContext(report);
+        }
+        Line[] lines = page.getLines();
+        for (int i = 0; i < lines.length; i++) {
+            Line line = lines[i];
+            if (line instanceof TextLine && ((TextLine) line).getCompiledText().hasFunction()) {
+                String result = process(((TextLine) line).getText(), report, page, line, i + 1);
+                if (result != null) {
+                    page.overlay(i + 1, new TextLine(result));
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluate all functions in a text.
+     *
+     * @param text the text that may contains functions.
+     * @param report current report that is being evaluated.
+     * @param page current page that is being evaluated.
+     * @param line current line that is being evaluated.
+     * @param lineNumber the line number of <code>line</code> in <code>page</code>.
+     * @return the text with all functions replaced by their result, or <code>null</code> if <code>text</code>
+     *         doesn't contain any known function.
+     */
+    private String process(String text, Report report, Page page, Line line, int lineNumber) {
+        StringBuilder result = null;
+        int copied = 0;
+        int start = text.indexOf(FUNCTION_START);
+        while (start >= 0) {
+            Function function = find(text, start);
+            if (function == null) {
+                start = text.indexOf(FUNCTION_START, start + 1);
+                continue;
+            }
+            Matcher matcher = matchers.get(function);
+            if (result == null) {
+                result = new StringBuilder(text.length());
+            }
+            result.append(text, copied, start);
+            context.setCurrent(report, page, line, lineNumber);
+            result.append(function.process(matcher, context));
+            copied = matcher.end();
+            start = text.indexOf(FUNCTION_START, copied);
+        }
+        if (result == null) {
+            return null;
+        }
+        result.append(text, copied, text.length());
+        return result.toString();
+    }
+
+    /**
+     * Find the function that matches the expression at the specified position.  The function is looked up by
+     * its keyword first.  If there is no matching function for the keyword, all functions will be tried in order
+     * of registration.
+     *
+     * @param text the text that contains the expression.
+     * @param start the position of <code>%{</code> in <code>text</code>.
+     * @return the matching <code>Function</code> or <code>null</code> if no function matches.
+     */
+    private Function find(String text, int start) {
+        Function function = registry.getFunction(keyword(text, start + FUNCTION_START.length()));
+        if (function != null && lookingAt(function, text, start)) {
+            return function;
+        }
+        for (Function other : registry.getFunctions()) {
+            if (other != function && lookingAt(other, text, start)) {
+                return other;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the keyword of an expression, that is the first word after <code>%{</code> and optional spaces.
+     *
+     * @param text the text that contains the expression.
+     * @param index the position after <code>%{</code>.
+     * @return the keyword or an empty string if the expression doesn't start with a word.
+     */
+    private static String keyword(String text, int index) {
+        int start = index;
+        while (start < text.length() && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        int end = start;
+        while (end < text.length() && (Character.isLetterOrDigit(text.charAt(end)) || text.charAt(end) == '_')) {
+            end++;
+        }
+        return text.substring(start, end);
+    }
+
+    /**
+     * Check if the pattern of a function matches the text starting at the specified position.
+     *
+     * @param function the function to check.
+     * @param text the text that contains the expression.
+     * @param start the position of <code>%{</code> in <code>text</code>.
+     * @return <code>true</code> if the function's pattern matches at <code>start</code>.
+     */
+    private boolean lookingAt(Function function, String text, int start) {
+        Matcher matcher = matchers.get(function);
+        if (matcher == null) {
+            matcher = function.getPattern().matcher(text);
+            matchers.put(function, matcher);
+        } else {
+            matcher.reset(text);
+        }
+        matcher.region(start, text.length());
+        return matcher.lookingAt();
+    }
+
+}
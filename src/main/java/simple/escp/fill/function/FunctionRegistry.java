@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.fill.function;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * <code>FunctionRegistry</code> is an immutable list of functions that are available for a fill.  Instances of
+ * this class can be shared between threads.  To register or remove a function, use <code>with()</code> or
+ * <code>without()</code> that will return a new registry.
+ */
+public final class FunctionRegistry {
+
+    private static final Logger LOG = Logger.getLogger("simple.escp");
+
+    /**
+     * The registry that contains all built-in functions.
+     */
+    public static final FunctionRegistry DEFAULT = new FunctionRegistry(Arrays.asList(
+        new BoldFunction(),
+        new ItalicFunction(),
+        new UnderlineFunction(),
+        new DoubleStrikeFunction(),
+        new SuperscriptFunction(),
+        new SubscriptFunction(),
+        new PageNoFunction(),
+        new AsciiFunction(),
+        new AutoIncrementFunction(),
+        new GlobalLineNoFunction(),
+        new LineNoFunction()
+    ));
+
+    private final List<Function> functions;
+    private final Map<String, Function> keywords;
+
+    /**
+     * Create a new instance of <code>FunctionRegistry</code>.
+     *
+     * @param functions the functions in order of their priority.  If more than one function share the same
+     *                  keyword, the first function has the highest priority.
+     */
+    public FunctionRegistry(List<Function> functions) {
+        this.functions = Collections.unmodifiableList(new ArrayList<>(functions));
+        Map<String, Function> keywords = new HashMap<>();
+        for (Function function : this.functions) {
+            String keyword = function.getKeyword();
+            if (keyword == null) {
+                continue;
+            }
+            if (keywords.containsKey(keyword)) {
+                LOG.fine("Keyword [" + keyword + "] is already used, [" + function + "] will be tried later.");
+            } else {
+                keywords.put(keyword, function);
+            }
+        }
+        this.keywords = Collections.unmodifiableMap(keywords);
+    }
+
+    /**
+     * Get all functions in this registry.
+     *
+     * @return an unmodifiable list of functions in order of their priority.
+     */
+    public List<Function> getFunctions() {
+        return functions;
+    }
+
+    /**
+     * Find the function with the highest priority for a keyword.
+     *
+     * @param keyword the keyword to search for.
+     * @return the function or <code>null</code> if no function is registered for <code>keyword</code>.
+     */
+    public Function getFunction(String keyword) {
+        return keywords.get(keyword);
+    }
+
+    /**
+     * Create a new registry that contains all functions in this registry plus a new function.  The new function
+     * will have a lower priority compared to existing functions.
+     *
+     * @param function the function to add.
+     * @return a new registry, or this registry if it already contains <code>function</code>.
+     */
+    public FunctionRegistry with(Function function) {
+        if (functions.contains(function)) {
+            return this;
+        }
+        List<Function> result = new ArrayList<>(functions);
+        result.add(function);
+        return new FunctionRegistry(result);
+    }
+
+    /**
+     * Create a new registry that contains all functions in this registry except the specified function.
+     *
+     * @param function the function to remove.
+     * @return a new registry, or this registry if it doesn't contain <code>function</code>.
+     */
+    public FunctionRegistry without(Function function) {
+        if (!functions.contains(function)) {
+            return this;
+        }
+        List<Function> result = new ArrayList<>(functions);
+        result.remove(function);
+        return new FunctionRegistry(result);
+    }
+
+}
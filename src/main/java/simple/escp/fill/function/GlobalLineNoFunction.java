@@ -31,7 +31,12 @@ public class GlobalLineNoFunction extends Function {
      * Create a new instance of this function.
      */
     public GlobalLineNoFunction() {
-        super("%\\{\\s*(GLOBAL_LINE_NO)\\s*\\}");
+        super("%\\{\\s*(GLOBAL_LINE_NO)\\s*\\}", "GLOBAL_LINE_NO");
+    }
+
+    @Override
+    public String process(Matcher matcher, FunctionContext context) {
+        return context.getGlobalLineNumber().toString();
     }
 
     @Override
@@ -15,9 +15,6 @@
  */
 package simple.escp.fill.function;
 
-import simple.escp.dom.Line;
-import simple.escp.dom.Page;
-import simple.escp.dom.Report;
 import simple.escp.util.EscpUtil;
 import java.util.regex.Matcher;
 
@@ -27,27 +24,19 @@ import java.util.regex.Matcher;
  * already in italic font style (as a result of previous invocation), <code>%{ITALIC}</code> will switch to default
  * font style.
  */
-public class ItalicFunction extends Function {
-
-    private boolean italic;
+public class ItalicFunction extends ContextFunction {
 
     /**
      * Create new instance of this function.
      */
     public ItalicFunction() {
-        super("%\\{\\s*(ITALIC)\\s*\\}");
-        italic = false;
-    }
-
-    @Override
-    public String process(Matcher matcher, Report report, Page page, Line line) {
-        String result = italic ? EscpUtil.escCancelItalicFont() : EscpUtil.escSelectItalicFont();
-        italic = !italic;
-        return result;
+        super("%\\{\\s*(ITALIC)\\s*\\}", "ITALIC");
     }
 
     @Override
-    public void reset() {
-        italic = false;
+    public String process(Matcher matcher, FunctionContext context) {
+        boolean italic = Boolean.TRUE.equals(context.getState(this));
+        context.setState(this, !italic);
+        return italic ? EscpUtil.escCancelItalicFont() : EscpUtil.escSelectItalicFont();
     }
 }
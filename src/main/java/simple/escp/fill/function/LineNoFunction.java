@@ -30,7 +30,12 @@ public class LineNoFunction extends Function {
      * Create a new instance of this function.
      */
     public LineNoFunction() {
-        super("%\\{\\s*(LINE_NO)\\s*\\}");
+        super("%\\{\\s*(LINE_NO)\\s*\\}", "LINE_NO");
+    }
+
+    @Override
+    public String process(Matcher matcher, FunctionContext context) {
+        return context.getLineNumber().toString();
     }
 
     @Override
@@ -30,7 +30,7 @@ public class PageNoFunction extends Function {
      * Create new instance of this function.
      */
     public PageNoFunction() {
-        super("%\\{\\s*(PAGE_NO)\\s*\\}");
+        super("%\\{\\s*(PAGE_NO)\\s*\\}", "PAGE_NO");
     }
 
     @Override
@@ -15,9 +15,6 @@
  */
 package simple.escp.fill.function;
 
-import simple.escp.dom.Line;
-import simple.escp.dom.Page;
-import simple.escp.dom.Report;
 import simple.escp.util.EscpUtil;
 import java.util.regex.Matcher;
 
@@ -27,28 +24,20 @@ import java.util.regex.Matcher;
  * subscript printing.  If subscript printing is already turned on (as a result of previous invocation),
  * <code>%{SUB}</code> will turn off subscript printing.  It will also turn off superscript printing.
  */
-public class SubscriptFunction extends Function {
-
-    private boolean subscript;
+public class SubscriptFunction extends ContextFunction {
 
     /**
      * Create new instance of this function.
      */
     public SubscriptFunction() {
-        super("%\\{\\s*(SUB)\\s*\\}");
-        subscript = false;
-    }
-
-    @Override
-    public String process(Matcher matcher, Report report, Page page, Line line) {
-        String result = subscript ? EscpUtil.escCancelSuperscriptOrSubscript() : EscpUtil.escSelectSubscript();
-        subscript = !subscript;
-        return result;
+        super("%\\{\\s*(SUB)\\s*\\}", "SUB");
     }
 
     @Override
-    public void reset() {
-        subscript = false;
+    public String process(Matcher matcher, FunctionContext context) {
+        boolean subscript = Boolean.TRUE.equals(context.getState(this));
+        context.setState(this, !subscript);
+        return subscript ? EscpUtil.escCancelSuperscriptOrSubscript() : EscpUtil.escSelectSubscript();
     }
 
 }
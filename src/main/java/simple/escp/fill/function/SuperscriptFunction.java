@@ -15,9 +15,6 @@
  */
 package simple.escp.fill.function;
 
-import simple.escp.dom.Line;
-import simple.escp.dom.Page;
-import simple.escp.dom.Report;
 import simple.escp.util.EscpUtil;
 import java.util.regex.Matcher;
 
@@ -27,28 +24,20 @@ import java.util.regex.Matcher;
  * superscript printing.  If superscript printing is already turned on (as a result of previous invocation),
  * <code>%{SUPER}</code> will turn off superscript printing.  It will also turn off subscript printing.
  */
-public class SuperscriptFunction extends Function {
-
-    private boolean superscript;
+public class SuperscriptFunction extends ContextFunction {
 
     /**
      * Create new instance of this function.
      */
     public SuperscriptFunction() {
-        super("%\\{\\s*(SUPER)\\s*\\}");
-        superscript = false;
-    }
-
-    @Override
-    public String process(Matcher matcher, Report report, Page page, Line line) {
-        String result = superscript ? EscpUtil.escCancelSuperscriptOrSubscript() : EscpUtil.escSelectSuperscript();
-        superscript = !superscript;
-        return result;
+        super("%\\{\\s*(SUPER)\\s*\\}", "SUPER");
     }
 
     @Override
-    public void reset() {
-        superscript = false;
+    public String process(Matcher matcher, FunctionContext context) {
+        boolean superscript = Boolean.TRUE.equals(context.getState(this));
+        context.setState(this, !superscript);
+        return superscript ? EscpUtil.escCancelSuperscriptOrSubscript() : EscpUtil.escSelectSuperscript();
     }
 
 }
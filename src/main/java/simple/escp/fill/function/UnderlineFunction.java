@@ -15,9 +15,6 @@
  */
 package simple.escp.fill.function;
 
-import simple.escp.dom.Line;
-import simple.escp.dom.Page;
-import simple.escp.dom.Report;
 import simple.escp.util.EscpUtil;
 import java.util.regex.Matcher;
 
@@ -27,28 +24,20 @@ import java.util.regex.Matcher;
  * If underline is already turned on as a result of previous invocation),
  * <code>%{UNDERLINE}</code> will turn off underline printing.
  */
-public class UnderlineFunction extends Function {
-
-    private boolean underline;
+public class UnderlineFunction extends ContextFunction {
 
     /**
      * Create new instance of this function.
      */
     public UnderlineFunction() {
-        super("%\\{\\s*(UNDERLINE)\\s*\\}");
-        underline = false;
-    }
-
-    @Override
-    public String process(Matcher matcher, Report report, Page page, Line line) {
-        String result = underline ? EscpUtil.escCancelUnderline() : EscpUtil.escSelectUnderline();
-        underline = !underline;
-        return result;
+        super("%\\{\\s*(UNDERLINE)\\s*\\}", "UNDERLINE");
     }
 
     @Override
-    public void reset() {
-        underline = false;
+    public String process(Matcher matcher, FunctionContext context) {
+        boolean underline = Boolean.TRUE.equals(context.getState(this));
+        context.setState(this, !underline);
+        return underline ? EscpUtil.escCancelUnderline() : EscpUtil.escSelectUnderline();
     }
 
 }
@@ -24,9 +24,11 @@ import simple.escp.dom.Line;
 import simple.escp.dom.PageFormat;
 import simple.escp.dom.Report;
 import simple.escp.dom.TableColumn;
+import simple.escp.dom.TableTotal;
 import simple.escp.dom.line.ListLine;
 import simple.escp.dom.line.TableLine;
 import simple.escp.dom.line.TextLine;
+import simple.escp.placeholder.Aggregate;
 
 /**
  * A helper class for parsing.
@@ -203,6 +205,30 @@ public class Parser {
                 }
             }
         }
+        final JsonArray totals = table.getJsonArray("totals");
+        if (totals != null) {
+            for (int i = 0; i < totals.size(); i++) {
+                final JsonObject total = totals.getJsonObject(i);
+                for (String key : new String[] {"name", "source", "aggregate"}) {
+                    if (!total.containsKey(key)) {
+                        throw new IllegalArgumentException("Can't find '" + key + "' for total " + i);
+                    }
+                }
+                final Aggregate aggregate = Aggregate.of(total.getString("aggregate"));
+                if (aggregate == null) {
+                    throw new IllegalArgumentException("Invalid 'aggregate' for total " + i + ": " +
+                        total.getString("aggregate"));
+                }
+                tableLine.addTotal(new TableTotal(total.getString("name"), total.getString("source"), aggregate,
+                    total.getBoolean("running", false)));
+            }
+        }
+        if (table.containsKey("pageHeader")) {
+            tableLine.setPageHeader(jsonToTextLine(table.getJsonArray("pageHeader")));
+        }
+        if (table.containsKey("pageFooter")) {
+            tableLine.setPageFooter(jsonToTextLine(table.getJsonArray("pageFooter")));
+        }
         return tableLine;
     }
 
@@ -283,6 +309,7 @@ public class Parser {
             result.lineBreak();
             result.appendSinglePage(jsonToLine(lastPage), true);
         }
+        result.compile();
         return getResult();
     }
 
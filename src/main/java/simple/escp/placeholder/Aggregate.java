@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.placeholder;
+
+/**
+ * Aggregate functions that can be applied to a <code>Collection</code> value of a placeholder, such as
+ * <code>${items:sum}</code> or <code>${items:avg:currency}</code>.
+ */
+public enum Aggregate {
+
+    /**
+     * Sum of all numbers, returned as <code>BigDecimal</code>.
+     */
+    SUM("sum"),
+
+    /**
+     * Number of elements.
+     */
+    COUNT("count"),
+
+    /**
+     * Average of all numbers, returned as <code>BigDecimal</code>.
+     */
+    AVG("avg"),
+
+    /**
+     * The smallest number.
+     */
+    MIN("min"),
+
+    /**
+     * The largest number.
+     */
+    MAX("max");
+
+    private final String name;
+
+    /**
+     * Create a new <code>Aggregate</code>.
+     *
+     * @param name the name used in placeholder text.
+     */
+    Aggregate(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the name of this function in placeholder text.
+     *
+     * @return the name, such as <code>sum</code>.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Find an aggregate function by its name in placeholder text.
+     *
+     * @param name the name, such as <code>sum</code> or <code>avg</code>.
+     * @return the function or <code>null</code> if <code>name</code> is not an aggregate function.
+     */
+    public static Aggregate of(String name) {
+        for (Aggregate aggregate : values()) {
+            if (aggregate.name.equals(name)) {
+                return aggregate;
+            }
+        }
+        return null;
+    }
+}
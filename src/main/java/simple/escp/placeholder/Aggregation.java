@@ -0,0 +1,289 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.placeholder;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Collection;
+
+/**
+ * Computes every {@link Aggregate} of a sequence of values in one pass.  Values are added one by one, so an
+ * <code>Aggregation</code> can also be used to maintain running totals.
+ *
+ * <p>Integers (<code>Long</code>, <code>Integer</code>, <code>Short</code> and <code>Byte</code>) are summed in
+ * a <code>long</code>, so a <code>BigDecimal</code> is only created for them when a result is requested or when
+ * the <code>long</code> sum would overflow.  Other numbers are summed exactly as <code>BigDecimal</code>;
+ * <code>Double</code> and <code>Float</code> are converted by using their shortest decimal representation, so
+ * the sum of <code>0.1</code> and <code>0.2</code> is <code>0.3</code>.
+ *
+ * <p>This class is not thread-safe.
+ */
+public final class Aggregation {
+
+    private int count;
+    private int numberCount;
+    private Object invalid;
+    private boolean hasInvalid;
+    private long longSum;
+    private boolean hasDecimal;
+    private BigDecimal decimalSum;
+    private Number min;
+    private Number max;
+
+    /**
+     * Compute the aggregates of a <code>Collection</code>.
+     *
+     * @param values the values to aggregate.
+     * @return a new <code>Aggregation</code> that contains all elements of <code>values</code>.
+     */
+    public static Aggregation of(Collection<?> values) {
+        final Aggregation result = new Aggregation();
+        for (Object value : values) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    /**
+     * Add a value to this aggregation.  Values that are not numbers are counted, but can't be used for other
+     * aggregates.
+     *
+     * @param value the value to add.
+     */
+    public void add(Object value) {
+        count++;
+        if (!(value instanceof Number)) {
+            if (!hasInvalid) {
+                hasInvalid = true;
+                invalid = value;
+            }
+            return;
+        }
+        final Number number = (Number) value;
+        numberCount++;
+        if (isInteger(number)) {
+            addLong(number.longValue());
+        } else {
+            hasDecimal = true;
+            addDecimal(toBigDecimal(number));
+        }
+        if (min == null || compare(number, min) < 0) {
+            min = number;
+        }
+        if (max == null || compare(number, max) > 0) {
+            max = number;
+        }
+    }
+
+    /**
+     * Add an integer to the <code>long</code> sum.  If the sum overflows, it is moved to the exact sum.
+     *
+     * @param value the value to add.
+     */
+    private void addLong(long value) {
+        final long result = longSum + value;
+        if (((longSum ^ result) & (value ^ result)) < 0) {
+            addDecimal(BigDecimal.valueOf(longSum));
+            longSum = value;
+        } else {
+            longSum = result;
+        }
+    }
+
+    /**
+     * Add a number to the exact sum.
+     *
+     * @param value the value to add.
+     */
+    private void addDecimal(BigDecimal value) {
+        decimalSum = decimalSum == null ? value : decimalSum.add(value);
+    }
+
+    /**
+     * Get the number of added values, including values that are not numbers.
+     *
+     * @return number of values.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Get the sum of all added numbers.
+     *
+     * @return the sum or <code>0</code> if no value has been added.  If only integers have been added, the sum
+     *         has one fraction digit, such as <code>60.0</code>, as in previous versions that summed every number
+     *         as <code>double</code>.
+     * @throws IllegalArgumentException if a value that is not a number has been added.
+     */
+    public BigDecimal getSum() {
+        checkNumbers(Aggregate.SUM);
+        return sum();
+    }
+
+    /**
+     * Get the average of all added numbers.
+     *
+     * @return the average rounded to 16 digits or <code>null</code> if no value has been added.
+     * @throws IllegalArgumentException if a value that is not a number has been added.
+     */
+    public BigDecimal getAverage() {
+        checkNumbers(Aggregate.AVG);
+        if (numberCount == 0) {
+            return null;
+        }
+        return sum().divide(BigDecimal.valueOf(numberCount), MathContext.DECIMAL64);
+    }
+
+    /**
+     * Get the smallest of all added numbers.
+     *
+     * @return the smallest number as it was added or <code>null</code> if no value has been added.
+     * @throws IllegalArgumentException if a value that is not a number has been added.
+     */
+    public Number getMin() {
+        checkNumbers(Aggregate.MIN);
+        return min;
+    }
+
+    /**
+     * Get the largest of all added numbers.
+     *
+     * @return the largest number as it was added or <code>null</code> if no value has been added.
+     * @throws IllegalArgumentException if a value that is not a number has been added.
+     */
+    public Number getMax() {
+        checkNumbers(Aggregate.MAX);
+        return max;
+    }
+
+    /**
+     * Get the result of an aggregate function.
+     *
+     * @param aggregate the function.
+     * @return the result of <code>aggregate</code>.
+     * @throws IllegalArgumentException if <code>aggregate</code> requires numbers and a value that is not a
+     *         number has been added.
+     */
+    public Object get(Aggregate aggregate) {
+        switch (aggregate) {
+            case SUM:
+                return getSum();
+            case COUNT:
+                return getCount();
+            case AVG:
+                return getAverage();
+            case MIN:
+                return getMin();
+            case MAX:
+                return getMax();
+            default:
+                throw new IllegalArgumentException("Invalid aggregate: " + aggregate);
+        }
+    }
+
+    /**
+     * Remove all added values.
+     */
+    public void clear() {
+        count = 0;
+        numberCount = 0;
+        invalid = null;
+        hasInvalid = false;
+        longSum = 0;
+        hasDecimal = false;
+        decimalSum = null;
+        min = null;
+        max = null;
+    }
+
+    /**
+     * Make sure that all added values are numbers.
+     *
+     * @param aggregate the function that requires numbers.
+     */
+    private void checkNumbers(Aggregate aggregate) {
+        if (hasInvalid) {
+            throw new IllegalArgumentException(aggregate.getName() + " operation require number: " + invalid);
+        }
+    }
+
+    /**
+     * Combine all partial sums.
+     *
+     * @return the sum of all numbers.
+     */
+    private BigDecimal sum() {
+        if (numberCount == 0) {
+            return BigDecimal.ZERO;
+        }
+        final BigDecimal result = decimalSum == null ? BigDecimal.valueOf(longSum) :
+            decimalSum.add(BigDecimal.valueOf(longSum));
+        return hasDecimal ? result : result.setScale(1);
+    }
+
+    /**
+     * Check if a number is a primitive integer type.
+     *
+     * @param number the number to check.
+     * @return <code>true</code> for <code>Long</code>, <code>Integer</code>, <code>Short</code> and
+     *         <code>Byte</code>.
+     */
+    private static boolean isInteger(Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short ||
+            number instanceof Byte;
+    }
+
+    /**
+     * Convert a number to <code>BigDecimal</code> without losing precision when it is possible.
+     *
+     * @param number the number to convert.
+     * @return the value of <code>number</code>.
+     */
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        } else if (number instanceof BigInteger) {
+            return new BigDecimal((BigInteger) number);
+        } else if (isInteger(number)) {
+            return BigDecimal.valueOf(number.longValue());
+        } else if (number instanceof Float) {
+            return new BigDecimal(number.toString());
+        }
+        return BigDecimal.valueOf(number.doubleValue());
+    }
+
+    /**
+     * Compare two numbers.  Primitive numbers are compared without creating objects.
+     *
+     * @param first the first number.
+     * @param second the second number.
+     * @return a negative integer, zero, or a positive integer if <code>first</code> is less than, equal to, or
+     *         greater than <code>second</code>.
+     */
+    private static int compare(Number first, Number second) {
+        if (isInteger(first) && isInteger(second)) {
+            return Long.compare(first.longValue(), second.longValue());
+        }
+        final boolean firstExact = first instanceof BigDecimal || first instanceof BigInteger;
+        final boolean secondExact = second instanceof BigDecimal || second instanceof BigInteger;
+        if (!firstExact && !secondExact) {
+            return Double.compare(first.doubleValue(), second.doubleValue());
+        }
+        return toBigDecimal(first).compareTo(toBigDecimal(second));
+    }
+}
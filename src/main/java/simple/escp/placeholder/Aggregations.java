@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.placeholder;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the <code>Aggregation</code> of every <code>Collection</code> so that placeholders that show
+ * different aggregates of the same collection, such as <code>${items:sum}</code>, <code>${items:count}</code>
+ * and <code>${items:avg}</code>, only iterate it once.  Collections are compared by identity, so the result
+ * should be cleared whenever the collections may have been modified, for example after every fill.
+ *
+ * <p>This class is not thread-safe.
+ */
+public final class Aggregations {
+
+    private final Map<Collection<?>, Aggregation> results = new IdentityHashMap<>();
+
+    /**
+     * Get the aggregation of a <code>Collection</code>.  It will be computed if this is the first request for
+     * <code>values</code>.
+     *
+     * @param values the values to aggregate.
+     * @return the aggregation of <code>values</code>.
+     */
+    public Aggregation get(Collection<?> values) {
+        Aggregation result = results.get(values);
+        if (result == null) {
+            result = Aggregation.of(values);
+            results.put(values, result);
+        }
+        return result;
+    }
+
+    /**
+     * Forget all computed aggregations.
+     */
+    public void clear() {
+        results.clear();
+    }
+}
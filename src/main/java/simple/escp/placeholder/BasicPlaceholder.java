@@ -36,23 +36,9 @@ public class BasicPlaceholder extends Placeholder {
      */
     public BasicPlaceholder(String text) {
         super(text);
-        parseText(getText());
-    }
-
-    /**
-     * Parse placeholder text.
-     *
-     * @param text full text that represent this placeholder.
-     */
-    private void parseText(String text) {
-        LOG.fine("Parsing [" + text + "]");
-        if (text.contains(SEPARATOR)) {
-            String[] parts = text.split(SEPARATOR, 2);
-            this.name = parts[0].trim();
-            parseText(parts[1].split(SEPARATOR));
-        } else {
-            this.name = text;
-        }
+        PlaceholderSpec spec = PlaceholderSpec.basic(getText());
+        this.name = spec.getName();
+        apply(spec);
     }
 
     /**
@@ -0,0 +1,220 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.placeholder;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+/**
+ * A thread-safe cache of <code>CompiledScript</code> used by <code>ScriptPlaceholder</code>.  Scripts are cached
+ * by their engine and source text, so a script is compiled only once for every engine, no matter how many rows
+ * or fills evaluate it.  When the cache of an engine is full, its least recently used script will be removed.
+ *
+ * <p>Removing a script doesn't unload the class that was generated for it, because script engines such as Groovy
+ * keep every class they generated until the engine itself is discarded.  An engine that has compiled
+ * {@link #getMaxSize()} different scripts is therefore retired (see {@link #isRetired(ScriptEngine)}).
+ * <code>PooledScriptEngineProvider</code> discards a retired engine instead of returning it to the pool, so its
+ * classes can be unloaded.</p>
+ *
+ * <p>The cache doesn't keep engines alive.  Engines are held by weak references, but because every
+ * <code>CompiledScript</code> refers to its engine, the scripts of an engine are only softly reachable: they
+ * are released together with the engine once the engine is no longer used and memory is needed.  Use
+ * {@link #remove(ScriptEngine)} to release the scripts of a discarded engine right away.</p>
+ */
+public final class CompiledScriptCache {
+
+    private static final Logger LOG = Logger.getLogger("simple.escp");
+
+    /**
+     * The default maximum number of scripts for every engine in a cache.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static volatile CompiledScriptCache defaultCache = new CompiledScriptCache(DEFAULT_MAX_SIZE);
+
+    private final int maxSize;
+    private final Map<ScriptEngine, EngineScripts> engines = new WeakHashMap<>();
+
+    /**
+     * Create a new instance of <code>CompiledScriptCache</code>.
+     *
+     * @param maxSize maximum number of scripts for every engine in this cache.
+     */
+    public CompiledScriptCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum size of cache must be at least 1.");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the cache that is used by <code>ScriptPlaceholder</code>.
+     *
+     * @return the default cache.
+     */
+    public static CompiledScriptCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Set the cache that will be used by <code>ScriptPlaceholder</code>.
+     *
+     * @param cache the new default cache.
+     */
+    public static void setDefault(CompiledScriptCache cache) {
+        if (cache == null) {
+            throw new IllegalArgumentException("Cache can't be null.");
+        }
+        defaultCache = cache;
+    }
+
+    /**
+     * Find or compile a script.
+     *
+     * @param engine the engine that will execute the script.
+     * @param script the source of the script.
+     * @return the compiled script or <code>null</code> if <code>engine</code> doesn't support compilation.
+     * @throws ScriptException if the script can't be compiled.
+     */
+    public CompiledScript get(ScriptEngine engine, String script) throws ScriptException {
+        if (!(engine instanceof Compilable)) {
+            return null;
+        }
+        CompiledScript compiledScript;
+        synchronized (engines) {
+            compiledScript = scripts(engine).get(script);
+        }
+        if (compiledScript == null) {
+            LOG.fine("Compiling script [" + script + "]");
+            compiledScript = ((Compilable) engine).compile(script);
+            synchronized (engines) {
+                final CompiledScript existing = scripts(engine).putIfAbsent(script, compiledScript);
+                if (existing != null) {
+                    compiledScript = existing;
+                } else {
+                    engines.get(engine).compiled++;
+                }
+            }
+        }
+        return compiledScript;
+    }
+
+    /**
+     * Get the scripts of an engine, creating an empty LRU map if the engine has none.  Caller must hold the
+     * lock on <code>engines</code>.
+     *
+     * @param engine the engine.
+     * @return the scripts compiled by <code>engine</code>.
+     */
+    private Map<String, CompiledScript> scripts(ScriptEngine engine) {
+        EngineScripts entry = engines.get(engine);
+        if (entry == null) {
+            entry = new EngineScripts();
+            engines.put(engine, entry);
+        }
+        Map<String, CompiledScript> scripts = entry.scripts.get();
+        if (scripts == null) {
+            scripts = new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+                    return size() > maxSize;
+                }
+            };
+            entry.scripts = new SoftReference<>(scripts);
+        }
+        return scripts;
+    }
+
+    /**
+     * Check if an engine has compiled as many different scripts as the maximum size of this cache.  A retired
+     * engine can still be used, but it should be discarded once it is no longer needed.
+     *
+     * @param engine the engine.
+     * @return <code>true</code> if <code>engine</code> should be discarded.
+     */
+    public boolean isRetired(ScriptEngine engine) {
+        synchronized (engines) {
+            final EngineScripts entry = engines.get(engine);
+            return entry != null && entry.compiled >= maxSize;
+        }
+    }
+
+    /**
+     * Remove all scripts of an engine from this cache.  This should be called when an engine is discarded.
+     *
+     * @param engine the engine.
+     */
+    public void remove(ScriptEngine engine) {
+        synchronized (engines) {
+            engines.remove(engine);
+        }
+    }
+
+    /**
+     * Get the maximum number of scripts for every engine in this cache.
+     *
+     * @return maximum number of scripts for every engine.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the number of scripts in this cache.
+     *
+     * @return number of cached scripts.
+     */
+    public int size() {
+        int size = 0;
+        synchronized (engines) {
+            for (EngineScripts entry : engines.values()) {
+                final Map<String, CompiledScript> scripts = entry.scripts.get();
+                if (scripts != null) {
+                    size += scripts.size();
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Remove all scripts from this cache.
+     */
+    public void clear() {
+        synchronized (engines) {
+            engines.clear();
+        }
+    }
+
+    /**
+     * The scripts of an engine.  The number of compiled scripts is kept even if the scripts themselves have been
+     * released, because the classes of the scripts are still kept by the engine.
+     */
+    private static final class EngineScripts {
+
+        private SoftReference<Map<String, CompiledScript>> scripts = new SoftReference<>(null);
+        private int compiled;
+    }
+
+}
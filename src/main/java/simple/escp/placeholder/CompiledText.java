@@ -0,0 +1,286 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.placeholder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <code>CompiledText</code> is the pre-tokenized form of a template text.  The text is split once into literal
+ * runs and placeholder slots (<code>${...}</code> and <code>{{...}}</code>) with their offsets in the source
+ * text, so that filling only needs to walk the segments instead of scanning the text with regular expressions.
+ *
+ * <p>Instances of this class are immutable and can be shared between fills and threads.
+ */
+public final class CompiledText implements Iterable<CompiledText.Segment> {
+
+    private static final Segment[] NO_SEGMENTS = new Segment[0];
+
+    private final String source;
+    private final Segment[] segments;
+    private final boolean placeholder;
+    private final boolean function;
+
+    /**
+     * Create a new instance of <code>CompiledText</code>.
+     *
+     * @param source the source text.
+     * @param segments the segments of <code>source</code> in order of their appearance.
+     */
+    private CompiledText(String source, Segment[] segments) {
+        this.source = source;
+        this.segments = segments;
+        boolean hasPlaceholder = false;
+        for (Segment segment : segments) {
+            if (segment.getType() != SegmentType.LITERAL) {
+                hasPlaceholder = true;
+                break;
+            }
+        }
+        this.placeholder = hasPlaceholder;
+        this.function = source.contains("%{");
+    }
+
+    /**
+     * Compile a text into its segments.  Basic placeholders are located first, script placeholders are then
+     * located in the remaining literal runs.  This follows the order in which placeholders were filled before.
+     *
+     * @param text the text that will be compiled.
+     * @return the compiled form of <code>text</code>.
+     */
+    public static CompiledText compile(String text) {
+        if (text == null || text.isEmpty()) {
+            return new CompiledText(text == null ? "" : text, NO_SEGMENTS);
+        }
+        final List<Segment> result = new ArrayList<>();
+        int literalStart = 0;
+        int start = text.indexOf("${");
+        while (start >= 0) {
+            final int end = findClosing(text, start + 2, "}");
+            if (end < 0) {
+                start = text.indexOf("${", start + 1);
+                continue;
+            }
+            compileScript(text, literalStart, start, result);
+            result.add(new Segment(SegmentType.BASIC_PLACEHOLDER, text.substring(start + 2, end), start, end + 1));
+            literalStart = end + 1;
+            start = text.indexOf("${", literalStart);
+        }
+        compileScript(text, literalStart, text.length(), result);
+        return new CompiledText(text, result.toArray(NO_SEGMENTS));
+    }
+
+    /**
+     * Locate script placeholders in a literal run and add the resulting segments.
+     *
+     * @param text the source text.
+     * @param from start of the literal run (inclusive).
+     * @param to end of the literal run (exclusive).
+     * @param result segments will be added to this list.
+     */
+    private static void compileScript(String text, int from, int to, List<Segment> result) {
+        int literalStart = from;
+        int start = text.indexOf("{{", from);
+        while (start >= 0 && start < to) {
+            final int end = findClosing(text, start + 2, "}}");
+            if (end < 0 || end + 2 > to) {
+                start = text.indexOf("{{", start + 1);
+                continue;
+            }
+            if (start > literalStart) {
+                result.add(new Segment(SegmentType.LITERAL, text.substring(literalStart, start), literalStart, start));
+            }
+            result.add(new Segment(SegmentType.SCRIPT_PLACEHOLDER, text.substring(start + 2, end), start, end + 2));
+            literalStart = end + 2;
+            start = text.indexOf("{{", literalStart);
+        }
+        if (to > literalStart) {
+            result.add(new Segment(SegmentType.LITERAL, text.substring(literalStart, to), literalStart, to));
+        }
+    }
+
+    /**
+     * Find the closing delimiter of a placeholder.  The content of placeholder must have at least one character
+     * and can't contain line terminator.
+     *
+     * @param text the source text.
+     * @param contentStart the index of the first character of placeholder's content.
+     * @param delimiter the closing delimiter.
+     * @return the index of closing delimiter or <code>-1</code> if this placeholder is not closed.
+     */
+    private static int findClosing(String text, int contentStart, String delimiter) {
+        final int end = text.indexOf(delimiter, contentStart + 1);
+        if (end < 0) {
+            return -1;
+        }
+        for (int i = contentStart; i < end; i++) {
+            if (isLineTerminator(text.charAt(i))) {
+                return -1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Determine if a character is considered as line terminator.
+     *
+     * @param c the character to check.
+     * @return <code>true</code> if <code>c</code> is a line terminator.
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Get the source text of this <code>CompiledText</code>.
+     *
+     * @return the source text.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Get the segments of this <code>CompiledText</code>.
+     *
+     * @return a copy of segments in order of their appearance.
+     */
+    public Segment[] getSegments() {
+        return Arrays.copyOf(segments, segments.length);
+    }
+
+    /**
+     * Get number of segments in this <code>CompiledText</code>.
+     *
+     * @return number of segments.
+     */
+    public int getNumberOfSegments() {
+        return segments.length;
+    }
+
+    /**
+     * Get a segment based on its index.
+     *
+     * @param index the index of segment starting from <code>0</code>.
+     * @return the segment at <code>index</code> position.
+     */
+    public Segment getSegment(int index) {
+        return segments[index];
+    }
+
+    /**
+     * Determine if this text contains at least one placeholder.
+     *
+     * @return <code>true</code> if this text contains basic or script placeholder.
+     */
+    public boolean hasPlaceholder() {
+        return placeholder;
+    }
+
+    /**
+     * Determine if this text may contains function such as <code>%{PAGE_NO}</code>.
+     *
+     * @return <code>true</code> if this text contains the start of a function expression.
+     */
+    public boolean hasFunction() {
+        return function;
+    }
+
+    @Override
+    public Iterator<Segment> iterator() {
+        return Arrays.asList(segments).iterator();
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * This enumeration represents type of segment.
+     */
+    public enum SegmentType { LITERAL, BASIC_PLACEHOLDER, SCRIPT_PLACEHOLDER }
+
+    /**
+     * A segment of <code>CompiledText</code>.  A segment is either a literal run or a placeholder slot.
+     */
+    public static final class Segment {
+
+        private final SegmentType type;
+        private final String text;
+        private final int start;
+        private final int end;
+
+        /**
+         * Create a new segment.
+         *
+         * @param type type of this segment.
+         * @param text the literal text or the placeholder text (without delimiters).
+         * @param start offset of this segment in source text (inclusive).
+         * @param end offset of this segment in source text (exclusive).
+         */
+        private Segment(SegmentType type, String text, int start, int end) {
+            this.type = type;
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Get the type of this segment.
+         *
+         * @return type of this segment.
+         */
+        public SegmentType getType() {
+            return type;
+        }
+
+        /**
+         * Get the text of this segment.  For literal, it is the literal text.  For placeholder, it is the
+         * placeholder text without delimiters, for example <code>name</code> for <code>${name}</code>.
+         *
+         * @return text for this segment.
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Get the offset of this segment in source text.
+         *
+         * @return the offset of the first character of this segment (inclusive).
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * Get the end offset of this segment in source text.
+         *
+         * @return the offset after the last character of this segment (exclusive).
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        @Override
+        public String toString() {
+            return type + "[" + text + "]";
+        }
+    }
+}
@@ -18,11 +18,9 @@ package simple.escp.placeholder;
 import simple.escp.data.DataSource;
 import simple.escp.exception.InvalidPlaceholder;
 import simple.escp.util.StringUtil;
-import java.math.BigDecimal;
-import java.text.DateFormat;
 import java.text.Format;
-import java.text.NumberFormat;
 import java.util.Collection;
+import java.util.Locale;
 import java.util.logging.Logger;
 
 /**
@@ -42,6 +40,14 @@ import java.util.logging.Logger;
  *  <p>If placeholders has more than one part separated by semicolon (<code>:</code>), the first part should always
  *  be name of the placeholder.
  *
+ *  <p>If the value is a <code>Collection</code>, the placeholder may display an aggregate of its elements instead,
+ *  such as <code>${items:sum}</code>.  Available aggregates are <code>sum</code>, <code>count</code>,
+ *  <code>avg</code>, <code>min</code> and <code>max</code>.
+ *
+ *  <p>Named formats are applied by shared, thread-safe formatters from <code>ValueFormatters</code> in the locale
+ *  of this placeholder.  A <code>Format</code> instance is only created when {@link #getFormat()} is called, and
+ *  once it exists, or when it is set by {@link #setFormat(Format)}, it is used instead.
+ *
  */
 public abstract class Placeholder {
 
@@ -53,6 +59,11 @@ public abstract class Placeholder {
     protected boolean sum;
     protected boolean count;
     protected StringUtil.ALIGNMENT alignment;
+    private String formatName;
+    private Locale locale;
+    private ValueFormatter formatter;
+    private Aggregate aggregate;
+    private Aggregations aggregations;
 
     /**
      * Create a new instance of placeholder.
@@ -108,6 +119,9 @@ public abstract class Placeholder {
      *         this method will return <code>null</code>.
      */
     public Format getFormat() {
+        if (format == null && formatName != null) {
+            format = ValueFormatters.createFormat(formatName, locale);
+        }
         return format;
     }
 
@@ -118,6 +132,40 @@ public abstract class Placeholder {
      */
     public void setFormat(Format format) {
         this.format = format;
+        this.formatName = null;
+        this.formatter = null;
+    }
+
+    /**
+     * Get the name of format for this placeholder, such as <code>number</code> or <code>date_short</code>.
+     *
+     * @return the name of format or <code>null</code> if this placeholder has no named format.
+     */
+    public String getFormatName() {
+        return formatName;
+    }
+
+    /**
+     * Get the locale that is used for formatting.
+     *
+     * @return the locale or <code>null</code> if the default locale for formatting is used.
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Set the locale that is used for formatting.  This has no effect on a <code>Format</code> that was set by
+     * {@link #setFormat(Format)}.
+     *
+     * @param locale the new locale or <code>null</code> to use the default locale for formatting.
+     */
+    public void setLocale(Locale locale) {
+        this.locale = locale;
+        this.formatter = null;
+        if (formatName != null) {
+            this.format = null;
+        }
     }
 
     /**
@@ -156,6 +204,42 @@ public abstract class Placeholder {
         this.count = count;
     }
 
+    /**
+     * Get the aggregate function that this placeholder displays instead of the value.
+     *
+     * @return the aggregate function or <code>null</code> if this placeholder displays the value.
+     */
+    public Aggregate getAggregate() {
+        if (isSum()) {
+            return Aggregate.SUM;
+        } else if (isCount()) {
+            return Aggregate.COUNT;
+        }
+        return aggregate;
+    }
+
+    /**
+     * Set this placeholder to display the result of an aggregate function instead of the value.  The value must
+     * be a <code>Collection</code>.
+     *
+     * @param aggregate the aggregate function or <code>null</code> to display the value.
+     */
+    public void setAggregate(Aggregate aggregate) {
+        setSum(aggregate == Aggregate.SUM);
+        setCount(aggregate == Aggregate.COUNT);
+        this.aggregate = (aggregate == Aggregate.SUM || aggregate == Aggregate.COUNT) ? null : aggregate;
+    }
+
+    /**
+     * Set the aggregations that are shared by placeholders, so a <code>Collection</code> is only iterated once
+     * for all of its aggregates.
+     *
+     * @param aggregations the shared aggregations or <code>null</code> to compute aggregates every time.
+     */
+    public void setAggregations(Aggregations aggregations) {
+        this.aggregations = aggregations;
+    }
+
     /**
      * Get the alignment for this placeholder.
      *
@@ -175,24 +259,6 @@ public abstract class Placeholder {
         this.alignment = alignment;
     }
 
-    /**
-     * Calculate the sum of <code>Collection</code>.
-     *
-     * @param value a <code>Collection</code> to sum.
-     * @return sum of all values in the <code>Collection</code>.
-     */
-    private BigDecimal getSumValue(Collection value) {
-        BigDecimal result = BigDecimal.ZERO;
-        for (Object v : value) {
-            if (v instanceof Number) {
-                result = result.add(BigDecimal.valueOf(((Number) v).doubleValue()));
-            } else {
-                throw new IllegalArgumentException("sum operation require number: " + v);
-            }
-        }
-        return result;
-    }
-
     /**
      * Calculate the count of elements in a <code>Collection</code>.
      *
@@ -214,32 +280,30 @@ public abstract class Placeholder {
         Object result = value;
         LOG.fine("Formatting [" + value + "]");
         if (value != null) {
-            if (isSum()) {
-                LOG.fine("Calculating sum for [" + value + "]");
+            final Aggregate function = getAggregate();
+            if (function != null) {
+                LOG.fine("Calculating " + function.getName() + " for [" + value + "]");
                 if (!(value instanceof Collection)) {
-                    LOG.warning("Can't calculate sum for [" + value + "] because it is not a Collection.");
+                    LOG.warning("Can't calculate " + function.getName() + " for [" + value +
+                        "] because it is not a Collection.");
                     throw new InvalidPlaceholder("Expected collection for placeholder [" + getText() + "] for " +
-                        "sum operation but received value [" + value + "].");
-                } else {
-                    result = getSumValue((Collection) value);
-                }
-            } else if (isCount()) {
-                LOG.fine("Calculating count for [" + value + "]");
-                if (!(value instanceof Collection)) {
-                    LOG.warning("Can't calculate count for [" + value + "] because it is not a Collection.");
-                    throw new InvalidPlaceholder("Expected collection for placeholder [" + getText() + "] for " +
-                        "count operation but received value [" + value + "].");
-                } else {
+                        function.getName() + " operation but received value [" + value + "].");
+                } else if (function == Aggregate.COUNT) {
                     result = getCountValue((Collection) value);
+                } else {
+                    final Collection collection = (Collection) value;
+                    result = (aggregations == null ? Aggregation.of(collection) : aggregations.get(collection))
+                        .get(function);
                 }
             }
 
-            if (getFormat() != null) {
+            if (format != null || formatName != null) {
+                final Object formatDescription = (format != null) ? format : formatName;
                 try {
-                    LOG.fine("Formatting [" + result + "] as [" + getFormat() + "]");
-                    result = getFormat().format(result);
+                    LOG.fine("Formatting [" + result + "] as [" + formatDescription + "]");
+                    result = format(result);
                 } catch (IllegalArgumentException e) {
-                    LOG.warning("Can't format [" + result + "] as [" + getFormat() + "]");
+                    LOG.warning("Can't format [" + result + "] as [" + formatDescription + "]");
                     throw new InvalidPlaceholder("Can't format value [" + result + "] for placeholder [" +
                             getText() + "].", e);
                 }
@@ -261,15 +325,71 @@ public abstract class Placeholder {
     }
 
     /**
-     * Parse aggregation formula such as <code>"sum"</code> and <code>"count"</code> in placeholder text.
+     * Format a value by using the <code>Format</code> of this placeholder if it exists, or the shared formatter
+     * for its format name.
+     *
+     * @param value the value to format.
+     * @return the formatted value.
+     */
+    private String format(Object value) {
+        if (format != null) {
+            synchronized (format) {
+                return format.format(value);
+            }
+        }
+        return getFormatter().format(value);
+    }
+
+    /**
+     * Get the shared formatter for the format name of this placeholder.
+     *
+     * @return the formatter for <code>formatName</code> in the locale of this placeholder.
+     */
+    private ValueFormatter getFormatter() {
+        if (formatter == null) {
+            formatter = ValueFormatters.get(formatName, locale);
+        }
+        return formatter;
+    }
+
+    /**
+     * Append the formatted version of a value to a <code>StringBuilder</code>, with the same result as
+     * {@link #getFormatted(Object)}.  Values that are formatted by a format name, such as <code>number</code>
+     * or <code>currency</code>, are written and aligned directly in <code>out</code>.
+     *
+     * @param value the value passed to this placeholder.
+     * @param out the destination of formatted value.
+     */
+    public void appendFormatted(Object value, StringBuilder out) {
+        if (value == null || getAggregate() != null || format != null || formatName == null) {
+            out.append(getFormatted(value));
+            return;
+        }
+        final int start = out.length();
+        try {
+            getFormatter().formatTo(value, out);
+        } catch (IllegalArgumentException e) {
+            out.setLength(start);
+            LOG.warning("Can't format [" + value + "] as [" + formatName + "]");
+            throw new InvalidPlaceholder("Can't format value [" + value + "] for placeholder [" +
+                getText() + "].", e);
+        }
+        if (getWidth() > 0) {
+            StringUtil.align(out, start, getWidth(),
+                getAlignment() == null ? StringUtil.ALIGNMENT.LEFT : getAlignment());
+        }
+    }
+
+    /**
+     * Parse aggregation formula such as <code>"sum"</code>, <code>"count"</code> or <code>"avg"</code> in
+     * placeholder text.
      *
      * @param text part of text for this placeholder.
      */
     protected void parseFormula(String text) {
-        if ("sum".equals(text)) {
-            setSum(true);
-        } else if ("count".equals(text)) {
-            setCount(true);
+        final Aggregate function = Aggregate.of(text);
+        if (function != null) {
+            setAggregate(function);
         }
     }
 
@@ -279,20 +399,10 @@ public abstract class Placeholder {
      * @param text part of text for this placeholder.
      */
     protected void parseFormatter(String text) {
-        if ("number".equals(text)) {
-            format = NumberFormat.getNumberInstance();
-        } else if ("integer".equals(text)) {
-            format = NumberFormat.getIntegerInstance();
-        } else if ("currency".equals(text)) {
-            format = NumberFormat.getCurrencyInstance();
-        } else if ("date_full".equals(text)) {
-            format = DateFormat.getDateInstance(DateFormat.FULL);
-        } else if ("date_long".equals(text)) {
-            format = DateFormat.getDateInstance(DateFormat.LONG);
-        } else if ("date_medium".equals(text)) {
-            format = DateFormat.getDateInstance(DateFormat.MEDIUM);
-        } else if ("date_short".equals(text)) {
-            format = DateFormat.getDateInstance(DateFormat.SHORT);
+        if (ValueFormatters.isSupported(text)) {
+            formatName = text;
+            format = null;
+            formatter = null;
         }
     }
 
@@ -325,6 +435,20 @@ public abstract class Placeholder {
         }
     }
 
+    /**
+     * Apply the options of a parsed placeholder text to this placeholder.
+     *
+     * @param spec the parsed options.
+     */
+    protected void apply(PlaceholderSpec spec) {
+        setAggregate(spec.getAggregate());
+        format = null;
+        formatName = spec.getFormatName();
+        formatter = null;
+        setWidth(spec.getWidth());
+        setAlignment(spec.getAlignment());
+    }
+
     /**
      * Parse an expression in placeholder expression.  The expression should be broken into multiple keywords
      * that are stored in <code>text</code>.
@@ -375,4 +499,17 @@ public abstract class Placeholder {
         return getFormatted(getValue(dataSources));
     }
 
+    /**
+     * Append the formatted version of {@link #getValue(simple.escp.data.DataSource[])} to a
+     * <code>StringBuilder</code>.
+     *
+     * @param dataSources the data sources from where this placeholder retrieves its value.
+     * @param out the destination of formatted value.
+     * @throws simple.escp.exception.InvalidPlaceholder if can't find the value for <code>placeholder</code> is
+     *         data source.
+     */
+    public void appendFormattedValue(DataSource[] dataSources, StringBuilder out) {
+        appendFormatted(getValue(dataSources), out);
+    }
+
 }
@@ -0,0 +1,251 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.placeholder;
+
+import simple.escp.util.StringUtil;
+import java.text.Format;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * The parsed options of a placeholder text, such as <code>total:number:12:right</code>.  Every distinct text is
+ * parsed only once and the result is shared by every <code>Placeholder</code>, <code>FillJob</code> and thread.
+ * Instances of this class are immutable; formatting is done by the shared, thread-safe formatter from
+ * {@link ValueFormatters} for the locale of each fill.
+ */
+public final class PlaceholderSpec {
+
+    private static final Logger LOG = Logger.getLogger("simple.escp");
+
+    /**
+     * Maximum number of specs that are cached for every separator.  Texts that are parsed after the cache is full
+     * are not cached.
+     */
+    public static final int MAX_CACHE_SIZE = 10000;
+
+    private static final Map<String, PlaceholderSpec> BASIC_CACHE = new ConcurrentHashMap<>();
+    private static final Map<String, PlaceholderSpec> SCRIPT_CACHE = new ConcurrentHashMap<>();
+
+    private final String text;
+    private final String name;
+    private final Aggregate aggregate;
+    private final String formatName;
+    private final int width;
+    private final StringUtil.ALIGNMENT alignment;
+
+    /**
+     * Parse a placeholder text.
+     *
+     * @param text the trimmed text.
+     * @param separator the separator between name and options.
+     */
+    private PlaceholderSpec(String text, String separator) {
+        LOG.fine("Parsing [" + text + "]");
+        this.text = text;
+        Aggregate parsedAggregate = null;
+        String parsedFormatName = null;
+        int parsedWidth = 0;
+        StringUtil.ALIGNMENT parsedAlignment = null;
+        final int index = text.indexOf(separator);
+        if (index >= 0) {
+            this.name = text.substring(0, index).trim();
+            for (String part : text.substring(index + separator.length()).split(separator)) {
+                part = part.trim();
+                if (Aggregate.of(part) != null) {
+                    if (parsedAggregate == null) {
+                        parsedAggregate = Aggregate.of(part);
+                    }
+                } else if (ValueFormatters.isSupported(part)) {
+                    parsedFormatName = part;
+                } else if ("left".equals(part)) {
+                    parsedAlignment = StringUtil.ALIGNMENT.LEFT;
+                } else if ("right".equals(part)) {
+                    parsedAlignment = StringUtil.ALIGNMENT.RIGHT;
+                } else if ("center".equals(part)) {
+                    parsedAlignment = StringUtil.ALIGNMENT.CENTER;
+                } else if (isInteger(part)) {
+                    try {
+                        parsedWidth = Integer.parseInt(part);
+                    } catch (NumberFormatException e) {
+                        LOG.fine("Can't convert [" + part + "] to number.");
+                    }
+                }
+            }
+        } else {
+            this.name = text;
+        }
+        this.aggregate = parsedAggregate;
+        this.formatName = parsedFormatName;
+        this.width = parsedWidth;
+        this.alignment = parsedAlignment;
+    }
+
+    /**
+     * Get the spec of a basic placeholder, such as <code>name:20:right</code>.
+     *
+     * @param text the placeholder text without <code>${</code> and <code>}</code>.
+     * @return the shared spec for <code>text</code>.
+     */
+    public static PlaceholderSpec basic(String text) {
+        return get(BASIC_CACHE, text, BasicPlaceholder.SEPARATOR);
+    }
+
+    /**
+     * Get the spec of a script placeholder, such as <code>price * qty::number::10</code>.
+     *
+     * @param text the placeholder text without <code>{{</code> and <code>}}</code>.
+     * @return the shared spec for <code>text</code>.
+     */
+    public static PlaceholderSpec script(String text) {
+        return get(SCRIPT_CACHE, text, ScriptPlaceholder.SEPARATOR);
+    }
+
+    /**
+     * Find a spec in a cache or parse it.
+     *
+     * @param cache the cache for <code>separator</code>.
+     * @param text the placeholder text.
+     * @param separator the separator between name and options.
+     * @return the spec for <code>text</code>.
+     */
+    private static PlaceholderSpec get(Map<String, PlaceholderSpec> cache, String text, String separator) {
+        PlaceholderSpec spec = cache.get(text);
+        if (spec == null) {
+            spec = new PlaceholderSpec(text.trim(), separator);
+            if (cache.size() < MAX_CACHE_SIZE) {
+                final PlaceholderSpec previous = cache.putIfAbsent(text, spec);
+                if (previous != null) {
+                    spec = previous;
+                }
+            }
+        }
+        return spec;
+    }
+
+    /**
+     * Check if a part of placeholder text looks like an integer, so that it can be parsed without throwing
+     * exception in most cases.
+     *
+     * @param part the part to check.
+     * @return <code>true</code> if <code>part</code> is an optional sign followed by digits.
+     */
+    private static boolean isInteger(String part) {
+        final int start = !part.isEmpty() && (part.charAt(0) == '-' || part.charAt(0) == '+') ? 1 : 0;
+        if (start == part.length()) {
+            return false;
+        }
+        for (int i = start; i < part.length(); i++) {
+            if (!Character.isDigit(part.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the trimmed text of this spec.
+     *
+     * @return the placeholder text.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Get the first part of placeholder text, which is the member name of a basic placeholder or the script of a
+     * script placeholder.
+     *
+     * @return the name of placeholder.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Determine if the placeholder displays sum of value.
+     *
+     * @return <code>true</code> if the text contains <code>sum</code>.
+     */
+    public boolean isSum() {
+        return aggregate == Aggregate.SUM;
+    }
+
+    /**
+     * Determine if the placeholder displays count of value.
+     *
+     * @return <code>true</code> if the text contains <code>count</code>.
+     */
+    public boolean isCount() {
+        return aggregate == Aggregate.COUNT;
+    }
+
+    /**
+     * Get the aggregate function of the placeholder, such as <code>sum</code> or <code>avg</code>.
+     *
+     * @return the aggregate function or <code>null</code> if the text doesn't contain any.
+     */
+    public Aggregate getAggregate() {
+        return aggregate;
+    }
+
+    /**
+     * Get the name of format, such as <code>number</code> or <code>date_short</code>.
+     *
+     * @return the name of format or <code>null</code> if no format is specified.
+     */
+    public String getFormatName() {
+        return formatName;
+    }
+
+    /**
+     * Get the width of placeholder.
+     *
+     * @return the width or <code>0</code> if it is unlimited.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the alignment of placeholder.
+     *
+     * @return the alignment or <code>null</code> if no alignment is specified.
+     */
+    public StringUtil.ALIGNMENT getAlignment() {
+        return alignment;
+    }
+
+    /**
+     * Create a new <code>Format</code> for this spec in the default locale.  <code>Format</code> is not thread-safe,
+     * so every <code>Placeholder</code> must have its own instance.
+     *
+     * @return a new <code>Format</code> or <code>null</code> if no format is specified.
+     * @see ValueFormatters#get(String, java.util.Locale)
+     */
+    public Format createFormat() {
+        return formatName == null ? null : ValueFormatters.createFormat(formatName, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "PlaceholderSpec[" + text + "]";
+    }
+
+}
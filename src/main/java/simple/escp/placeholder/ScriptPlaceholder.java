@@ -18,6 +18,7 @@ package simple.escp.placeholder;
 import simple.escp.data.DataSource;
 import simple.escp.exception.InvalidPlaceholder;
 
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 import java.util.logging.Level;
@@ -34,6 +35,7 @@ public class ScriptPlaceholder extends Placeholder {
 
     private String script;
     private ScriptEngine scriptEngine;
+    private CompiledScript compiledScript;
 
     /**
      * Create a new instance of script placeholder.
@@ -44,23 +46,9 @@ public class ScriptPlaceholder extends Placeholder {
     public ScriptPlaceholder(String text, ScriptEngine scriptEngine) {
         super(text);
         this.scriptEngine = scriptEngine;
-        parseText(getText());
-    }
-
-    /**
-     * Parse placeholder text.
-     *
-     * @param text full text that represent this placeholder.
-     */
-    private void parseText(String text) {
-        LOG.fine("Parsing [" + text + "]");
-        if (text.contains(SEPARATOR)) {
-            String[] parts = text.split(SEPARATOR, 2);
-            this.script = parts[0].trim();
-            parseText(parts[1].split(SEPARATOR));
-        } else {
-            this.script = text;
-        }
+        PlaceholderSpec spec = PlaceholderSpec.script(getText());
+        this.script = spec.getName();
+        apply(spec);
     }
 
     /**
@@ -79,14 +67,24 @@ public class ScriptPlaceholder extends Placeholder {
      */
     public void setScript(String script) {
         this.script = script;
+        this.compiledScript = null;
     }
 
     /**
      * {@inheritDoc}
+     *
+     * <p>If the script engine supports compilation, the script will be compiled once and retrieved from
+     * <code>CompiledScriptCache</code> for later evaluations.
      */
     @Override
     public Object getValue(DataSource[] dataSources) {
         try {
+            if (compiledScript == null) {
+                compiledScript = CompiledScriptCache.getDefault().get(scriptEngine, script);
+            }
+            if (compiledScript != null) {
+                return compiledScript.eval();
+            }
             return scriptEngine.eval(script);
         } catch (ScriptException e) {
             LOG.log(Level.WARNING, "Error durring executing script.", e);
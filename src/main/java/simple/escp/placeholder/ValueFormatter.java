@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.placeholder;
+
+/**
+ * Converts the value of a placeholder into text.  Implementations must be thread-safe, so that one instance can be
+ * shared by every placeholder, fill and thread.
+ *
+ * @see ValueFormatters
+ */
+public interface ValueFormatter {
+
+    /**
+     * Format a value.
+     *
+     * @param value the value to format.
+     * @return the formatted value.
+     * @throws IllegalArgumentException if <code>value</code> can't be formatted by this formatter.
+     */
+    String format(Object value);
+
+    /**
+     * Format a value and append the result to a <code>StringBuilder</code>.  Implementations may override this
+     * method to write the result without creating intermediate objects.
+     *
+     * @param value the value to format.
+     * @param out the destination of formatted value.
+     * @throws IllegalArgumentException if <code>value</code> can't be formatted by this formatter.
+     */
+    default void formatTo(Object value, StringBuilder out) {
+        out.append(format(value));
+    }
+
+}
@@ -0,0 +1,562 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.placeholder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.Format;
+import java.text.NumberFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A per-locale cache of thread-safe <code>ValueFormatter</code> for format names that can be used in placeholders,
+ * such as <code>number</code>, <code>currency</code> or <code>date_short</code>.
+ *
+ * <p>Number formats are confined to threads: every thread uses its own copy of a prototype
+ * <code>NumberFormat</code>, so no lock is needed and no instance is created after warm-up.  Date formats accept
+ * <code>java.util.Date</code>, <code>Calendar</code> and <code>java.time</code> values such as
+ * <code>LocalDate</code>, <code>LocalDateTime</code>, <code>ZonedDateTime</code> and <code>Instant</code>.  The
+ * latter are formatted by an immutable <code>DateTimeFormatter</code>; <code>Instant</code> is formatted in the
+ * system default time zone.
+ */
+public final class ValueFormatters {
+
+    private static final Map<Key, ValueFormatter> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * This class only has static methods.
+     */
+    private ValueFormatters() {
+    }
+
+    /**
+     * Check if a name refers to a supported format.
+     *
+     * @param formatName the name to check.
+     * @return <code>true</code> if {@link #get(String, Locale)} supports <code>formatName</code>.
+     */
+    public static boolean isSupported(String formatName) {
+        if (formatName == null) {
+            return false;
+        }
+        switch (formatName) {
+            case "number":
+            case "integer":
+            case "currency":
+            case "date_full":
+            case "date_long":
+            case "date_medium":
+            case "date_short":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Get the shared formatter for a format name and locale.
+     *
+     * @param formatName the name of format, such as <code>number</code>.
+     * @param locale the locale or <code>null</code> to use the default locale for formatting.
+     * @return a thread-safe formatter.
+     * @throws IllegalArgumentException if <code>formatName</code> is not supported.
+     */
+    public static ValueFormatter get(String formatName, Locale locale) {
+        if (!isSupported(formatName)) {
+            throw new IllegalArgumentException("Unknown format [" + formatName + "].");
+        }
+        final Locale actualLocale = locale == null ? Locale.getDefault(Locale.Category.FORMAT) : locale;
+        return CACHE.computeIfAbsent(new Key(formatName, actualLocale), key -> create(key.formatName, key.locale));
+    }
+
+    /**
+     * Create a new <code>java.text.Format</code> for a format name.  The result is not thread-safe.
+     *
+     * @param formatName the name of format, such as <code>number</code>.
+     * @param locale the locale or <code>null</code> to use the default locale for formatting.
+     * @return a new <code>Format</code>.
+     * @throws IllegalArgumentException if <code>formatName</code> is not supported.
+     */
+    public static Format createFormat(String formatName, Locale locale) {
+        final Locale actualLocale = locale == null ? Locale.getDefault(Locale.Category.FORMAT) : locale;
+        final FormatStyle style = getDateStyle(formatName);
+        if (style != null) {
+            return DateFormat.getDateInstance(toDateFormatStyle(style), actualLocale);
+        }
+        switch (formatName == null ? "" : formatName) {
+            case "number":
+                return NumberFormat.getNumberInstance(actualLocale);
+            case "integer":
+                return NumberFormat.getIntegerInstance(actualLocale);
+            case "currency":
+                return NumberFormat.getCurrencyInstance(actualLocale);
+            default:
+                throw new IllegalArgumentException("Unknown format [" + formatName + "].");
+        }
+    }
+
+    /**
+     * Create a new formatter.
+     *
+     * @param formatName a supported format name.
+     * @param locale the locale.
+     * @return a new thread-safe formatter.
+     */
+    private static ValueFormatter create(String formatName, Locale locale) {
+        final FormatStyle style = getDateStyle(formatName);
+        if (style != null) {
+            return new DateValueFormatter(DateTimeFormatter.ofLocalizedDate(style).withLocale(locale),
+                (DateFormat) createFormat(formatName, locale));
+        }
+        return new NumberValueFormatter((NumberFormat) createFormat(formatName, locale));
+    }
+
+    /**
+     * Get the style of a date format name.
+     *
+     * @param formatName the name of format.
+     * @return the style or <code>null</code> if <code>formatName</code> is not a date format.
+     */
+    private static FormatStyle getDateStyle(String formatName) {
+        if ("date_full".equals(formatName)) {
+            return FormatStyle.FULL;
+        } else if ("date_long".equals(formatName)) {
+            return FormatStyle.LONG;
+        } else if ("date_medium".equals(formatName)) {
+            return FormatStyle.MEDIUM;
+        } else if ("date_short".equals(formatName)) {
+            return FormatStyle.SHORT;
+        }
+        return null;
+    }
+
+    /**
+     * Convert a <code>FormatStyle</code> to a <code>DateFormat</code> style.
+     *
+     * @param style the style.
+     * @return one of <code>DateFormat.FULL</code>, <code>LONG</code>, <code>MEDIUM</code> or <code>SHORT</code>.
+     */
+    private static int toDateFormatStyle(FormatStyle style) {
+        switch (style) {
+            case FULL:
+                return DateFormat.FULL;
+            case LONG:
+                return DateFormat.LONG;
+            case MEDIUM:
+                return DateFormat.MEDIUM;
+            default:
+                return DateFormat.SHORT;
+        }
+    }
+
+    /**
+     * Formats numbers by using a thread-confined copy of a <code>NumberFormat</code>.
+     *
+     * <p>If the format is a plain <code>DecimalFormat</code>, <code>long</code>, <code>double</code> and
+     * <code>BigDecimal</code> values are written digit by digit directly into the destination by
+     * {@link #formatTo(Object, StringBuilder)}, with the same result as <code>DecimalFormat</code>.  Values that
+     * can't be handled that way, such as <code>NaN</code> or numbers with more than 18 digits, are formatted by
+     * <code>NumberFormat</code>.
+     */
+    private static final class NumberValueFormatter implements ValueFormatter {
+
+        private static final long[] POWERS_OF_TEN = new long[19];
+        private static final double MAX_EXACT_DOUBLE = 4503599627370496d;
+
+        static {
+            POWERS_OF_TEN[0] = 1;
+            for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+                POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+            }
+        }
+
+        private final ThreadLocal<NumberFormat> format;
+        private final boolean direct;
+        private final String positivePrefix;
+        private final String positiveSuffix;
+        private final String negativePrefix;
+        private final String negativeSuffix;
+        private final char zeroDigit;
+        private final char decimalSeparator;
+        private final char groupingSeparator;
+        private final int groupingSize;
+        private final int minimumIntegerDigits;
+        private final int minimumFractionDigits;
+        private final int maximumFractionDigits;
+        private final RoundingMode roundingMode;
+
+        /**
+         * Create a new instance of <code>NumberValueFormatter</code>.
+         *
+         * @param prototype the format that will be cloned for every thread.
+         */
+        private NumberValueFormatter(NumberFormat prototype) {
+            this.format = ThreadLocal.withInitial(() -> (NumberFormat) prototype.clone());
+            final DecimalFormat decimalFormat = prototype instanceof DecimalFormat ? (DecimalFormat) prototype : null;
+            this.direct = decimalFormat != null && isDirect(decimalFormat);
+            if (direct) {
+                final DecimalFormatSymbols symbols = decimalFormat.getDecimalFormatSymbols();
+                final boolean currency = decimalFormat.toPattern().indexOf('\u00A4') >= 0;
+                this.positivePrefix = decimalFormat.getPositivePrefix();
+                this.positiveSuffix = decimalFormat.getPositiveSuffix();
+                this.negativePrefix = decimalFormat.getNegativePrefix();
+                this.negativeSuffix = decimalFormat.getNegativeSuffix();
+                this.zeroDigit = symbols.getZeroDigit();
+                this.decimalSeparator = currency ? symbols.getMonetaryDecimalSeparator() :
+                    symbols.getDecimalSeparator();
+                this.groupingSeparator = currency ? symbols.getMonetaryGroupingSeparator() :
+                    symbols.getGroupingSeparator();
+                this.groupingSize = decimalFormat.isGroupingUsed() ? decimalFormat.getGroupingSize() : 0;
+                this.minimumIntegerDigits = decimalFormat.getMinimumIntegerDigits();
+                this.minimumFractionDigits = decimalFormat.getMinimumFractionDigits();
+                this.maximumFractionDigits = decimalFormat.getMaximumFractionDigits();
+                this.roundingMode = decimalFormat.getRoundingMode();
+            } else {
+                this.positivePrefix = null;
+                this.positiveSuffix = null;
+                this.negativePrefix = null;
+                this.negativeSuffix = null;
+                this.zeroDigit = '0';
+                this.decimalSeparator = '.';
+                this.groupingSeparator = ',';
+                this.groupingSize = 0;
+                this.minimumIntegerDigits = 1;
+                this.minimumFractionDigits = 0;
+                this.maximumFractionDigits = 0;
+                this.roundingMode = RoundingMode.HALF_EVEN;
+            }
+        }
+
+        /**
+         * Check if a <code>DecimalFormat</code> can be reproduced by writing digits directly.
+         *
+         * @param decimalFormat the format to check.
+         * @return <code>true</code> if this formatter can write digits without <code>decimalFormat</code>.
+         */
+        private static boolean isDirect(DecimalFormat decimalFormat) {
+            return decimalFormat.getMultiplier() == 1 && !decimalFormat.isDecimalSeparatorAlwaysShown() &&
+                decimalFormat.getMaximumIntegerDigits() >= POWERS_OF_TEN.length &&
+                decimalFormat.getMinimumIntegerDigits() <= POWERS_OF_TEN.length &&
+                decimalFormat.getMaximumFractionDigits() < POWERS_OF_TEN.length &&
+                decimalFormat.getRoundingMode() != RoundingMode.UNNECESSARY &&
+                (!decimalFormat.isGroupingUsed() || decimalFormat.getGroupingSize() > 0) &&
+                decimalFormat.toPattern().indexOf('E') < 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String format(Object value) {
+            return format.get().format(value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void formatTo(Object value, StringBuilder out) {
+            if (!direct || !formatDirect(value, out)) {
+                out.append(format(value));
+            }
+        }
+
+        /**
+         * Write a number digit by digit.
+         *
+         * @param value the value to format.
+         * @param out the destination of formatted value.
+         * @return <code>false</code> if <code>value</code> must be formatted by <code>NumberFormat</code>.
+         */
+        private boolean formatDirect(Object value, StringBuilder out) {
+            if (value instanceof Long || value instanceof Integer || value instanceof Short ||
+                value instanceof Byte) {
+                final long l = ((Number) value).longValue();
+                return l != Long.MIN_VALUE && formatDecimal(l < 0, Math.abs(l), 0, out);
+            } else if (value instanceof Double || value instanceof Float) {
+                final double d = ((Number) value).doubleValue();
+                if (Double.isNaN(d) || Double.isInfinite(d) || (d == 0 && Double.doubleToRawLongBits(d) != 0)) {
+                    return false;
+                }
+                // if the scaled value is an integer, it is within a quarter of unit from the exact product, so it
+                // is the correctly rounded result for rounding modes that round to the nearest neighbor.  Other
+                // doubles are left to DecimalFormat, which rounds their shortest decimal representation.
+                final double scaled = Math.abs(d) * POWERS_OF_TEN[maximumFractionDigits];
+                if (isHalfRounding() && scaled < MAX_EXACT_DOUBLE && scaled == Math.rint(scaled)) {
+                    return formatDecimal(d < 0, (long) scaled, maximumFractionDigits, out);
+                }
+                return false;
+            } else if (value instanceof BigDecimal) {
+                return formatBigDecimal((BigDecimal) value, out);
+            }
+            return false;
+        }
+
+        /**
+         * Write a <code>BigDecimal</code> if its digits fit in a <code>long</code>.
+         *
+         * @param value the value to format.
+         * @param out the destination of formatted value.
+         * @return <code>false</code> if <code>value</code> must be formatted by <code>NumberFormat</code>.
+         */
+        private boolean formatBigDecimal(BigDecimal value, StringBuilder out) {
+            BigDecimal rounded = value;
+            if (rounded.scale() > maximumFractionDigits || rounded.scale() < 0) {
+                rounded = rounded.setScale(Math.min(rounded.scale(), maximumFractionDigits), roundingMode);
+                if (rounded.scale() < 0) {
+                    rounded = rounded.setScale(0);
+                }
+            }
+            if (rounded.precision() >= POWERS_OF_TEN.length) {
+                return false;
+            }
+            return formatDecimal(value.signum() < 0, Math.abs(rounded.unscaledValue().longValue()), rounded.scale(),
+                out);
+        }
+
+        /**
+         * Check if the rounding mode of this formatter rounds to the nearest neighbor.
+         *
+         * @return <code>true</code> for <code>HALF_UP</code>, <code>HALF_DOWN</code> and <code>HALF_EVEN</code>.
+         */
+        private boolean isHalfRounding() {
+            return roundingMode == RoundingMode.HALF_EVEN || roundingMode == RoundingMode.HALF_UP ||
+                roundingMode == RoundingMode.HALF_DOWN;
+        }
+
+        /**
+         * Write a decimal number given as sign, unscaled magnitude and scale, such as <code>12345</code> and
+         * <code>2</code> for <code>123.45</code>.  A negative number that is rounded to zero keeps its sign, as
+         * in <code>DecimalFormat</code>.
+         *
+         * @param negative <code>true</code> if the number is negative.
+         * @param magnitude the unscaled absolute value.
+         * @param scale number of fraction digits in <code>magnitude</code>.
+         * @param out the destination of formatted value.
+         * @return always <code>true</code>.
+         */
+        private boolean formatDecimal(boolean negative, long magnitude, int scale, StringBuilder out) {
+            long digits = magnitude;
+            int fractionDigits = scale;
+            if (fractionDigits > maximumFractionDigits) {
+                final long divisor = POWERS_OF_TEN[fractionDigits - maximumFractionDigits];
+                digits = round(digits / divisor, digits % divisor, divisor, negative);
+                fractionDigits = maximumFractionDigits;
+            }
+            while (fractionDigits > minimumFractionDigits && digits % 10 == 0) {
+                digits /= 10;
+                fractionDigits--;
+            }
+            final long integerPart = digits / POWERS_OF_TEN[fractionDigits];
+            final long fractionPart = digits % POWERS_OF_TEN[fractionDigits];
+
+            out.append(negative ? negativePrefix : positivePrefix);
+            final int integerDigits = Math.max(numberOfDigits(integerPart), minimumIntegerDigits);
+            for (int i = integerDigits - 1; i >= 0; i--) {
+                out.append(digit(i < POWERS_OF_TEN.length ? integerPart / POWERS_OF_TEN[i] : 0));
+                if (groupingSize > 0 && i > 0 && i % groupingSize == 0) {
+                    out.append(groupingSeparator);
+                }
+            }
+            if (fractionDigits > 0 || minimumFractionDigits > 0) {
+                out.append(decimalSeparator);
+                for (int i = fractionDigits - 1; i >= 0; i--) {
+                    out.append(digit(fractionPart / POWERS_OF_TEN[i]));
+                }
+                for (int i = fractionDigits; i < minimumFractionDigits; i++) {
+                    out.append(zeroDigit);
+                }
+            }
+            out.append(negative ? negativeSuffix : positiveSuffix);
+            return true;
+        }
+
+        /**
+         * Round a quotient based on its remainder and the rounding mode of this formatter.
+         *
+         * @param quotient the truncated value.
+         * @param remainder the discarded digits.
+         * @param divisor the value of one unit of <code>quotient</code> in <code>remainder</code>.
+         * @param negative <code>true</code> if the value is negative.
+         * @return the rounded value.
+         */
+        private long round(long quotient, long remainder, long divisor, boolean negative) {
+            if (remainder == 0) {
+                return quotient;
+            }
+            final long twice = remainder * 2;
+            final boolean up;
+            switch (roundingMode) {
+                case UP:
+                    up = true;
+                    break;
+                case DOWN:
+                    up = false;
+                    break;
+                case CEILING:
+                    up = !negative;
+                    break;
+                case FLOOR:
+                    up = negative;
+                    break;
+                case HALF_UP:
+                    up = twice >= divisor;
+                    break;
+                case HALF_DOWN:
+                    up = twice > divisor;
+                    break;
+                default:
+                    up = twice > divisor || (twice == divisor && (quotient & 1) == 1);
+            }
+            return up ? quotient + 1 : quotient;
+        }
+
+        /**
+         * Get the localized digit of the lowest decimal digit of a number.
+         *
+         * @param value the number.
+         * @return the localized digit.
+         */
+        private char digit(long value) {
+            return (char) (zeroDigit + (int) (value % 10));
+        }
+
+        /**
+         * Count decimal digits of a non-negative number.
+         *
+         * @param value the number.
+         * @return number of digits, <code>0</code> for zero.
+         */
+        private static int numberOfDigits(long value) {
+            int result = 0;
+            while (result < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[result]) {
+                result++;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Formats <code>java.time</code> values by using a <code>DateTimeFormatter</code> and legacy dates by using a
+     * thread-confined copy of a <code>DateFormat</code>.
+     */
+    private static final class DateValueFormatter implements ValueFormatter {
+
+        private final DateTimeFormatter formatter;
+        private final ThreadLocal<DateFormat> format;
+        private volatile DateTimeFormatter zonedFormatter;
+
+        /**
+         * Create a new instance of <code>DateValueFormatter</code>.
+         *
+         * @param formatter the formatter for <code>java.time</code> values.
+         * @param prototype the format that will be cloned for every thread.
+         */
+        private DateValueFormatter(DateTimeFormatter formatter, DateFormat prototype) {
+            this.formatter = formatter;
+            this.format = ThreadLocal.withInitial(() -> (DateFormat) prototype.clone());
+            this.zonedFormatter = formatter.withZone(ZoneId.systemDefault());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String format(Object value) {
+            if (value instanceof TemporalAccessor) {
+                try {
+                    if (value instanceof Instant) {
+                        return getZonedFormatter().format((Instant) value);
+                    }
+                    return formatter.format((TemporalAccessor) value);
+                } catch (DateTimeException e) {
+                    throw new IllegalArgumentException("Can't format [" + value + "] as date.", e);
+                }
+            }
+            return format.get().format(value);
+        }
+
+        /**
+         * Get the formatter for <code>Instant</code>, following changes to the system default time zone.
+         *
+         * @return a formatter in the system default time zone.
+         */
+        private DateTimeFormatter getZonedFormatter() {
+            DateTimeFormatter result = zonedFormatter;
+            final ZoneId zone = ZoneId.systemDefault();
+            if (!zone.equals(result.getZone())) {
+                result = formatter.withZone(zone);
+                zonedFormatter = result;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The key of cache.
+     */
+    private static final class Key {
+
+        private final String formatName;
+        private final Locale locale;
+
+        /**
+         * Create a new instance of <code>Key</code>.
+         *
+         * @param formatName the name of format.
+         * @param locale the locale.
+         */
+        private Key(String formatName, Locale locale) {
+            this.formatName = formatName;
+            this.locale = locale;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return formatName.equals(other.formatName) && locale.equals(other.locale);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return 31 * formatName.hashCode() + locale.hashCode();
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A <code>PrintSink</code> that writes documents to a printer device file, such as <code>/dev/usb/lp0</code> on
+ * Linux.  Unlike <code>FilePrintSink</code>, the device file must already exist and is never created or truncated.
+ */
+public class DevicePrintSink extends FilePrintSink {
+
+    /**
+     * Create a new instance of <code>DevicePrintSink</code>.
+     *
+     * @param device the device file of printer.
+     */
+    public DevicePrintSink(Path device) {
+        super(device, StandardOpenOption.WRITE);
+    }
+
+}
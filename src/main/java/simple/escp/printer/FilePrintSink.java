@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import simple.escp.util.EscpWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A <code>PrintSink</code> that writes documents to a file through a <code>FileChannel</code>.  This is useful to
+ * keep a copy of printed documents or to print them later with another tool.
+ *
+ * @see DevicePrintSink
+ */
+public class FilePrintSink implements PrintSink {
+
+    private final Path path;
+    private final Path normalizedPath;
+    private final OpenOption[] options;
+
+    /**
+     * Create a new instance of <code>FilePrintSink</code>.
+     *
+     * @param path the file to write.  It will be created if it doesn't exist.
+     * @param append if <code>true</code>, every document is added to the end of file.  Otherwise, every document
+     *               replaces the previous content of file.
+     */
+    public FilePrintSink(Path path, boolean append) {
+        this(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+            append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Create a new instance of <code>FilePrintSink</code> with specified open options.
+     *
+     * @param path the file to write.
+     * @param options options for opening <code>path</code>.
+     */
+    protected FilePrintSink(Path path, OpenOption... options) {
+        if (path == null) {
+            throw new IllegalArgumentException("Path can't be null.");
+        }
+        this.path = path;
+        this.normalizedPath = path.toAbsolutePath().normalize();
+        this.options = options.clone();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return path.toString();
+    }
+
+    /**
+     * Open the file.  Closing the returned stream flushes the buffer and closes the channel.
+     *
+     * @return a buffered stream to the file.
+     * @throws IOException if the file can't be opened.
+     */
+    @Override
+    public OutputStream open() throws IOException {
+        final FileChannel channel = FileChannel.open(path, options);
+        return new BufferedOutputStream(Channels.newOutputStream(channel), EscpWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Get the file of this sink.
+     *
+     * @return the path of file.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Check if another sink writes to the same file.  Paths are compared after they are made absolute and
+     * normalized, so a file is printed by one print queue regardless of how its path is written.
+     *
+     * @param o the object to compare.
+     * @return <code>true</code> if <code>o</code> is a sink of the same class that writes to the same file.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o != null && o.getClass() == getClass() && normalizedPath.equals(((FilePrintSink) o).normalizedPath);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return normalizedPath.hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + getName() + "]";
+    }
+
+}
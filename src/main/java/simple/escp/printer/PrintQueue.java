@@ -0,0 +1,446 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded queue of documents for one printer.  Documents are printed one by one in submission order by a
+ * single worker thread, so a slow or offline printer only delays its own documents and never blocks the threads
+ * that submit them.
+ *
+ * <p>When the queue is full, new documents are handled according to its {@link Backpressure}.
+ *
+ * <p>For example:
+ *
+ * <pre>
+ *     PrintQueue queue = new PrintQueue("LX-310", 100, PrintQueue.Backpressure.REJECT, document -&gt; ...);
+ *     queue.submit(bytes).thenAccept(result -&gt; LOG.info("Printed " + result));
+ * </pre>
+ */
+public class PrintQueue implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger("simple.escp");
+
+    /**
+     * The default maximum number of documents waiting in a queue.
+     */
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private final String name;
+    private final int capacity;
+    private final Backpressure backpressure;
+    private final DocumentPrinter printer;
+    private final BlockingQueue<Job> jobs;
+    private final Object lock = new Object();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong totalWaitTime = new AtomicLong();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+    private final AtomicLong totalPrintTime = new AtomicLong();
+    private volatile Thread worker;
+    private volatile boolean closed;
+    private boolean idle;
+
+    /**
+     * Create a new instance of <code>PrintQueue</code> that blocks the caller when it is full.
+     *
+     * @param name the name of printer.  It is used for the worker thread and <code>PrintResult</code>.
+     * @param printer prints a document.
+     */
+    public PrintQueue(String name, DocumentPrinter printer) {
+        this(name, DEFAULT_CAPACITY, Backpressure.BLOCK, printer);
+    }
+
+    /**
+     * Create a new instance of <code>PrintQueue</code>.
+     *
+     * @param name the name of printer.  It is used for the worker thread and <code>PrintResult</code>.
+     * @param capacity maximum number of documents waiting in this queue.
+     * @param backpressure what to do when this queue is full.
+     * @param printer prints a document.
+     */
+    public PrintQueue(String name, int capacity, Backpressure backpressure, DocumentPrinter printer) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1.");
+        }
+        if (backpressure == null) {
+            throw new IllegalArgumentException("Backpressure can't be null.");
+        }
+        if (printer == null) {
+            throw new IllegalArgumentException("Printer can't be null.");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.backpressure = backpressure;
+        this.printer = printer;
+        this.jobs = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Add a document to this queue.
+     *
+     * @param document the document that will be printed.  It should not be modified after submission.
+     * @return a <code>CompletableFuture</code> that is completed when the document has been printed.  It is
+     *         completed exceptionally if printing fails, if the document is rejected because this queue is full
+     *         or closed (<code>RejectedExecutionException</code>), or if it is dropped to make room for newer
+     *         documents (<code>CancellationException</code>).
+     */
+    public CompletableFuture<PrintResult> submit(byte[] document) {
+        final Job job = new Job(document);
+        if (closed) {
+            reject(job, "Print queue [" + name + "] is closed.");
+            return job.future;
+        }
+        startWorker();
+        // Documents are only added while holding the lock and after checking that this queue is still open, so
+        // the worker can't stop while a document is being added.
+        synchronized (lock) {
+            switch (backpressure) {
+                case BLOCK:
+                    try {
+                        while (!closed && !jobs.offer(job)) {
+                            lock.wait();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        reject(job, "Interrupted while waiting for print queue [" + name + "].");
+                        return job.future;
+                    }
+                    if (closed) {
+                        reject(job, "Print queue [" + name + "] is closed.");
+                    }
+                    break;
+                case REJECT:
+                    if (closed) {
+                        reject(job, "Print queue [" + name + "] is closed.");
+                    } else if (!jobs.offer(job)) {
+                        reject(job, "Print queue [" + name + "] is full.");
+                    }
+                    break;
+                default:
+                    if (closed) {
+                        reject(job, "Print queue [" + name + "] is closed.");
+                        break;
+                    }
+                    while (!jobs.offer(job)) {
+                        final Job oldest = jobs.poll();
+                        if (oldest != null) {
+                            dropped.incrementAndGet();
+                            LOG.warning("Print queue [" + name + "] is full, the oldest document is dropped.");
+                            oldest.future.completeExceptionally(new CancellationException(
+                                "Dropped from print queue [" + name + "]."));
+                        }
+                    }
+            }
+        }
+        return job.future;
+    }
+
+    /**
+     * Complete a job exceptionally because it can't be added to this queue.
+     *
+     * @param job the rejected job.
+     * @param message the reason.
+     */
+    private void reject(Job job, String message) {
+        rejected.incrementAndGet();
+        job.future.completeExceptionally(new RejectedExecutionException(message));
+    }
+
+    /**
+     * Start the worker thread if it hasn't been started.
+     */
+    private void startWorker() {
+        if (worker == null) {
+            synchronized (lock) {
+                if (worker == null) {
+                    final Thread thread = new Thread(this::work, "simple-escp-print-" + name);
+                    thread.setDaemon(true);
+                    thread.start();
+                    worker = thread;
+                }
+            }
+        }
+    }
+
+    /**
+     * Print documents until this queue is closed and empty.  The worker waits for documents without a timeout;
+     * <code>close()</code> interrupts it only while it is waiting for an empty queue.  If the worker is interrupted
+     * while this queue is open, this queue is closed and every document that is still waiting is rejected.
+     */
+    private void work() {
+        try {
+            while (true) {
+                synchronized (lock) {
+                    if (closed && jobs.isEmpty()) {
+                        break;
+                    }
+                    idle = true;
+                }
+                final Job job;
+                try {
+                    job = jobs.take();
+                } catch (InterruptedException e) {
+                    if (closed) {
+                        continue;
+                    }
+                    LOG.warning("Worker of print queue [" + name + "] is interrupted.");
+                    break;
+                } finally {
+                    synchronized (lock) {
+                        idle = false;
+                    }
+                }
+                synchronized (lock) {
+                    if (closed) {
+                        // clear the interrupt of close() that arrived after a document was taken
+                        Thread.interrupted();
+                    }
+                    if (backpressure == Backpressure.BLOCK) {
+                        lock.notifyAll();
+                    }
+                }
+                print(job);
+            }
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            Job job;
+            while ((job = jobs.poll()) != null) {
+                reject(job, "Print queue [" + name + "] is stopped.");
+            }
+        }
+    }
+
+    /**
+     * Print a document and complete its future.
+     *
+     * @param job the job to print.
+     */
+    private void print(Job job) {
+        final long start = System.nanoTime();
+        final long waitTime = start - job.submitted;
+        totalWaitTime.addAndGet(waitTime);
+        maxWaitTime.accumulateAndGet(waitTime, Math::max);
+        try {
+            printer.print(job.document);
+            final long printTime = System.nanoTime() - start;
+            totalPrintTime.addAndGet(printTime);
+            completed.incrementAndGet();
+            job.future.complete(new PrintResult(name, job.document.length, Duration.ofNanos(waitTime),
+                Duration.ofNanos(printTime)));
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            LOG.log(Level.SEVERE, "Error while printing to [" + name + "].", e);
+            job.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Stop accepting new documents.  Documents that are already in this queue will still be printed, while
+     * callers that are blocked waiting for room in this queue are rejected.  An idle worker is interrupted, so it
+     * stops without waiting for another document.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+            if (idle) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Check if this queue has been closed.
+     *
+     * @return <code>true</code> if this queue doesn't accept new documents.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Get the name of printer for this queue.
+     *
+     * @return the name of printer.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the maximum number of documents waiting in this queue.
+     *
+     * @return the capacity of this queue.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get what this queue does when it is full.
+     *
+     * @return the backpressure of this queue.
+     */
+    public Backpressure getBackpressure() {
+        return backpressure;
+    }
+
+    /**
+     * Get the number of documents waiting in this queue, not including the document that is being printed.
+     *
+     * @return the depth of this queue.
+     */
+    public int getDepth() {
+        return jobs.size();
+    }
+
+    /**
+     * Get the number of documents that have been printed successfully.
+     *
+     * @return number of printed documents.
+     */
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * Get the number of documents that failed to print.
+     *
+     * @return number of failed documents.
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Get the number of documents that were rejected because this queue was full or closed.
+     *
+     * @return number of rejected documents.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Get the number of documents that were dropped to make room for newer documents.
+     *
+     * @return number of dropped documents.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Get the average time documents waited in this queue before they were printed.
+     *
+     * @return the average wait time or <code>Duration.ZERO</code> if no document has been printed.
+     */
+    public Duration getAverageWaitTime() {
+        final long count = completed.get() + failed.get();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(totalWaitTime.get() / count);
+    }
+
+    /**
+     * Get the average time needed to print a document that was printed successfully.
+     *
+     * @return the average print time or <code>Duration.ZERO</code> if no document has been printed.
+     */
+    public Duration getAveragePrintTime() {
+        final long count = completed.get();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(totalPrintTime.get() / count);
+    }
+
+    /**
+     * Get the longest time a document waited in this queue before it was printed.
+     *
+     * @return the maximum wait time.
+     */
+    public Duration getMaxWaitTime() {
+        return Duration.ofNanos(maxWaitTime.get());
+    }
+
+    /**
+     * Defines what <code>PrintQueue</code> does when a document is submitted to a full queue.
+     */
+    public enum Backpressure {
+
+        /**
+         * Block the caller until there is room in the queue.
+         */
+        BLOCK,
+
+        /**
+         * Reject the new document.
+         */
+        REJECT,
+
+        /**
+         * Drop the oldest waiting document to make room for the new document.
+         */
+        DROP_OLDEST
+    }
+
+    /**
+     * Prints a document for a <code>PrintQueue</code>.
+     */
+    @FunctionalInterface
+    public interface DocumentPrinter {
+
+        /**
+         * Print a document.  This method is always called by the worker thread of the queue.
+         *
+         * @param document the document that may contains ESC/P commands.
+         * @throws Exception if the document can't be printed.
+         */
+        void print(byte[] document) throws Exception;
+    }
+
+    /**
+     * A document waiting in a <code>PrintQueue</code>.
+     */
+    private static final class Job {
+
+        private final byte[] document;
+        private final long submitted = System.nanoTime();
+        private final CompletableFuture<PrintResult> future = new CompletableFuture<>();
+
+        /**
+         * Create a new instance of <code>Job</code>.
+         *
+         * @param document the document to print.
+         */
+        private Job(byte[] document) {
+            this.document = document;
+        }
+    }
+
+}
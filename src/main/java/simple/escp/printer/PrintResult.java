@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import java.time.Duration;
+
+/**
+ * The result of a document that has been printed by a <code>PrintQueue</code>.
+ */
+public final class PrintResult {
+
+    private final String printerName;
+    private final int size;
+    private final Duration waitTime;
+    private final Duration printTime;
+
+    /**
+     * Create a new instance of <code>PrintResult</code>.
+     *
+     * @param printerName the name of printer that printed the document.
+     * @param size the size of document in bytes.
+     * @param waitTime the time the document spent in the queue.
+     * @param printTime the time spent to send the document to the printer.
+     */
+    public PrintResult(String printerName, int size, Duration waitTime, Duration printTime) {
+        this.printerName = printerName;
+        this.size = size;
+        this.waitTime = waitTime;
+        this.printTime = printTime;
+    }
+
+    /**
+     * Get the name of printer that printed the document.
+     *
+     * @return the name of printer.
+     */
+    public String getPrinterName() {
+        return printerName;
+    }
+
+    /**
+     * Get the size of document.
+     *
+     * @return the size of document in bytes.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the time the document spent in the queue before it was printed.
+     *
+     * @return the wait time.
+     */
+    public Duration getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * Get the time spent to send the document to the printer.
+     *
+     * @return the print time.
+     */
+    public Duration getPrintTime() {
+        return printTime;
+    }
+
+    @Override
+    public String toString() {
+        return "PrintResult[printer=" + printerName + ", size=" + size + ", waitTime=" + waitTime +
+            ", printTime=" + printTime + "]";
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A destination for printed documents, such as a network printer or a device file.  Every document is written
+ * to its own stream that is returned by {@link #open()}, and the document is complete when that stream is closed.
+ *
+ * <p>For example, to fill a report directly to a network printer:
+ *
+ * <pre>
+ *     PrintSink sink = new SocketPrintSink("192.168.1.20");
+ *     new FillJob(report, dataSource).fill(sink);
+ * </pre>
+ *
+ * <p>Implementations must be thread-safe, but streams returned by <code>open()</code> are used by one thread only.
+ */
+public interface PrintSink {
+
+    /**
+     * Get a name that identifies this sink, for example in log messages and print queues.
+     *
+     * @return the name of this sink.
+     */
+    String getName();
+
+    /**
+     * Start a new document.  The caller must close the returned stream when the document has been written.
+     *
+     * @return a stream that receives the bytes of one document.
+     * @throws IOException if the destination can't be opened.
+     */
+    OutputStream open() throws IOException;
+
+    /**
+     * Write a whole document.
+     *
+     * @param document the bytes of the document.  They may contains ESC/P code.
+     * @throws IOException if an I/O error occurs.
+     */
+    default void write(byte[] document) throws IOException {
+        try (OutputStream out = open()) {
+            out.write(document);
+        }
+    }
+
+}
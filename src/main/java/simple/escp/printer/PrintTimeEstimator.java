@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import simple.escp.util.EscpUtil;
+import java.time.Duration;
+
+/**
+ * Predicts how long a dot-matrix printer needs to print a document.  The prediction is based on the number of
+ * printable characters, lines and pages in the document, and on the character pitch: the print head moves at a
+ * constant speed, so a denser pitch prints more characters per second.
+ *
+ * <p>ESC/P parameters are counted as printable characters, so the prediction is slightly pessimistic for documents
+ * with many commands.  It is only meant to compare documents with each other.
+ */
+public class PrintTimeEstimator {
+
+    /**
+     * The default printing speed in characters per second at 10 CPI.
+     */
+    public static final int DEFAULT_CHARACTERS_PER_SECOND = 300;
+
+    /**
+     * The default time to advance one line.
+     */
+    public static final Duration DEFAULT_LINE_FEED_TIME = Duration.ofMillis(30);
+
+    /**
+     * The default time to eject a page.
+     */
+    public static final Duration DEFAULT_FORM_FEED_TIME = Duration.ofMillis(1000);
+
+    /**
+     * The default time to start a document.
+     */
+    public static final Duration DEFAULT_DOCUMENT_OVERHEAD = Duration.ofMillis(500);
+
+    private static final int CR = 13;
+    private static final int FF = 12;
+    private static final int SPACE = 32;
+
+    private final int charactersPerSecond;
+    private final long lineFeedNanos;
+    private final long formFeedNanos;
+    private final long documentOverheadNanos;
+
+    /**
+     * Create a new instance of <code>PrintTimeEstimator</code> with default speed.
+     */
+    public PrintTimeEstimator() {
+        this(DEFAULT_CHARACTERS_PER_SECOND, DEFAULT_LINE_FEED_TIME, DEFAULT_FORM_FEED_TIME, DEFAULT_DOCUMENT_OVERHEAD);
+    }
+
+    /**
+     * Create a new instance of <code>PrintTimeEstimator</code>.
+     *
+     * @param charactersPerSecond printing speed in characters per second at 10 CPI.
+     * @param lineFeedTime time to advance one line.
+     * @param formFeedTime time to eject a page.
+     * @param documentOverhead time to start a document, such as opening a connection.
+     */
+    public PrintTimeEstimator(int charactersPerSecond, Duration lineFeedTime, Duration formFeedTime,
+                              Duration documentOverhead) {
+        if (charactersPerSecond < 1) {
+            throw new IllegalArgumentException("Characters per second must be at least 1.");
+        }
+        this.charactersPerSecond = charactersPerSecond;
+        this.lineFeedNanos = lineFeedTime.toNanos();
+        this.formFeedNanos = formFeedTime.toNanos();
+        this.documentOverheadNanos = documentOverhead.toNanos();
+    }
+
+    /**
+     * Predict the print time of a document.
+     *
+     * @param document the document that may contains ESC/P commands.
+     * @param characterPitch the character pitch used by the document.
+     * @return the predicted print time.
+     */
+    public Duration estimate(byte[] document, EscpUtil.CHARACTER_PITCH characterPitch) {
+        int characters = 0;
+        int carriageReturns = 0;
+        int formFeeds = 0;
+        for (byte b : document) {
+            final int c = b & 0xFF;
+            if (c >= SPACE) {
+                characters++;
+            } else if (c == CR) {
+                carriageReturns++;
+            } else if (c == FF) {
+                formFeeds++;
+            }
+        }
+        // every form feed follows a carriage return that doesn't end a line
+        final int lines = Math.max(0, carriageReturns - formFeeds);
+        return estimate(characters, lines, formFeeds, characterPitch);
+    }
+
+    /**
+     * Predict the print time of a document from its size.
+     *
+     * @param characters number of printable characters.
+     * @param lines number of lines.
+     * @param pages number of pages.
+     * @param characterPitch the character pitch used by the document.
+     * @return the predicted print time.
+     */
+    public Duration estimate(long characters, long lines, long pages, EscpUtil.CHARACTER_PITCH characterPitch) {
+        final int cpi = characterPitch == null ? 10 : characterPitch.getCharactersPerInch();
+        final long characterNanos = characters * 10_000_000_000L / ((long) charactersPerSecond * cpi);
+        return Duration.ofNanos(documentOverheadNanos + characterNanos + lines * lineFeedNanos +
+            pages * formFeedNanos);
+    }
+
+}
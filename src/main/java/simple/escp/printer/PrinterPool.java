@@ -0,0 +1,410 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import simple.escp.SimpleEscp;
+import simple.escp.fill.FillJob;
+import simple.escp.util.EscpUtil;
+import simple.escp.util.EscpWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A group of printers that print to the same paper stock.  Every document is sent to the printer with the least
+ * expected load, which is the predicted print time of every document waiting for or being printed by that printer.
+ * Every printer prints its waiting documents in order of their predicted print time, so short documents don't
+ * wait behind long ones.  To prevent long documents from waiting forever, the priority of a document is its
+ * predicted print time minus its waiting time multiplied by an aging factor.  Documents with the same priority
+ * are printed in submission order.
+ *
+ * <p>Documents are printed through the <code>PrintQueue</code> of every printer (see
+ * {@link SimpleEscp#getPrintQueue()}), so a printer in a pool can still be used with
+ * <code>SimpleEscp.printAsync()</code>: its documents are written by the same worker and never interleave with the
+ * documents of this pool.  The pool hands one document at a time to every print queue and keeps the others, so it
+ * can still choose which document is printed next.  Documents that were added to a print queue outside of this pool
+ * are part of the load of their printer, estimated by their number and the average print time of the queue.</p>
+ *
+ * <p>For example:
+ *
+ * <pre>
+ *     PrinterPool pool = new PrinterPool(Arrays.asList(new SimpleEscp("LX-310 #1"), new SimpleEscp("LX-310 #2")));
+ *     pool.submit(new FillJob(template.parse(), dataSource));
+ * </pre>
+ */
+public class PrinterPool implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger("simple.escp");
+
+    /**
+     * The default aging factor.  A document that has waited one second longer than another document is printed
+     * first unless the other document is predicted to print at least one second faster.
+     */
+    public static final double DEFAULT_AGING_FACTOR = 1.0;
+
+    private final List<Member> members;
+    private final PrintTimeEstimator estimator;
+    private final double agingFactor;
+    private final long created = System.nanoTime();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Create a new instance of <code>PrinterPool</code> with default <code>PrintTimeEstimator</code>.
+     *
+     * @param printers the printers in this pool.
+     */
+    public PrinterPool(List<SimpleEscp> printers) {
+        this(printers, new PrintTimeEstimator());
+    }
+
+    /**
+     * Create a new instance of <code>PrinterPool</code>.
+     *
+     * @param printers the printers in this pool.
+     * @param estimator predicts print time of documents.
+     */
+    public PrinterPool(List<SimpleEscp> printers, PrintTimeEstimator estimator) {
+        this(printers, estimator, DEFAULT_AGING_FACTOR);
+    }
+
+    /**
+     * Create a new instance of <code>PrinterPool</code>.
+     *
+     * @param printers the printers in this pool.
+     * @param estimator predicts print time of documents.
+     * @param agingFactor how much the waiting time of a document reduces its priority.  Use <code>0</code> to
+     *                    always print the shortest document first.
+     */
+    public PrinterPool(List<SimpleEscp> printers, PrintTimeEstimator estimator, double agingFactor) {
+        if (printers == null || printers.isEmpty()) {
+            throw new IllegalArgumentException("Printer pool must have at least one printer.");
+        }
+        if (estimator == null) {
+            throw new IllegalArgumentException("Estimator can't be null.");
+        }
+        if (agingFactor < 0 || Double.isNaN(agingFactor) || Double.isInfinite(agingFactor)) {
+            throw new IllegalArgumentException("Invalid aging factor [" + agingFactor + "].");
+        }
+        List<Member> result = new ArrayList<>(printers.size());
+        for (SimpleEscp printer : printers) {
+            result.add(new Member(printer));
+        }
+        this.members = Collections.unmodifiableList(result);
+        this.estimator = estimator;
+        this.agingFactor = agingFactor;
+    }
+
+    /**
+     * Fill a <code>FillJob</code> and add the result to this pool.  The report is filled by the calling thread,
+     * and the character pitch of its page format is used to predict print time.
+     *
+     * @param fillJob the <code>FillJob</code> that will be executed.
+     * @return a <code>CompletableFuture</code> that is completed when the report has been printed.
+     */
+    public CompletableFuture<PrintResult> submit(FillJob fillJob) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            fillJob.fill(out);
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Error while filling report.", e);
+            throw new RuntimeException("Error while filling report", e);
+        }
+        return submit(out.toByteArray(), fillJob.getReport().getPageFormat().getCharacterPitch());
+    }
+
+    /**
+     * Add a string to this pool.  It is assumed to be printed in 10 CPI.
+     *
+     * @param text the string to print.  This string may contains ESC/P code.
+     * @return a <code>CompletableFuture</code> that is completed when the string has been printed.
+     */
+    public CompletableFuture<PrintResult> submit(String text) {
+        return submit(EscpWriter.toBytes(text), EscpUtil.CHARACTER_PITCH.CPI_10);
+    }
+
+    /**
+     * Add a document to this pool.
+     *
+     * @param document the document that will be printed.  It should not be modified after submission.
+     * @param characterPitch the character pitch used by the document.
+     * @return a <code>CompletableFuture</code> that is completed when the document has been printed.  It is
+     *         completed exceptionally with <code>RejectedExecutionException</code> if this pool or the print queue
+     *         of its printer is closed.
+     */
+    public CompletableFuture<PrintResult> submit(byte[] document, EscpUtil.CHARACTER_PITCH characterPitch) {
+        final long expectedNanos = estimator.estimate(document, characterPitch).toNanos();
+        final long submitted = System.nanoTime();
+        // expected - factor * (now - submitted) only changes with the time every job shares, so the order of
+        // waiting jobs never changes and the priority can be computed once
+        final long priority = expectedNanos + (long) (agingFactor * (submitted - created));
+        final Job job = new Job(document, expectedNanos, priority, submitted, sequence.getAndIncrement());
+        if (closed) {
+            job.reject("Printer pool is closed.");
+            return job.future;
+        }
+        Member target;
+        synchronized (members) {
+            target = members.get(0);
+            long targetLoad = target.getExpectedLoad();
+            for (Member member : members) {
+                final long load = member.getExpectedLoad();
+                if (load < targetLoad || (load == targetLoad && member.getDepth() < target.getDepth())) {
+                    target = member;
+                    targetLoad = load;
+                }
+            }
+            target.load += job.expectedNanos;
+        }
+        LOG.fine("Send document [" + job.sequence + "] to [" + target.name + "]");
+        target.submit(job);
+        return job.future;
+    }
+
+    /**
+     * Get the number of printers in this pool.
+     *
+     * @return number of printers.
+     */
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * Get the name of a printer in this pool.
+     *
+     * @param printer the index of printer in the list given to the constructor.
+     * @return the name of its <code>PrintSink</code>.
+     */
+    public String getName(int printer) {
+        return members.get(printer).name;
+    }
+
+    /**
+     * Get the number of documents waiting for a printer, not including the document that is being printed.  This
+     * includes documents that were added to the print queue of the printer outside of this pool.
+     *
+     * @param printer the index of printer in the list given to the constructor.
+     * @return the depth of queue.
+     */
+    public int getDepth(int printer) {
+        return members.get(printer).getDepth();
+    }
+
+    /**
+     * Get the predicted time a printer needs to finish every document waiting for or being printed by it.
+     *
+     * @param printer the index of printer in the list given to the constructor.
+     * @return the expected load of printer.
+     */
+    public Duration getExpectedLoad(int printer) {
+        synchronized (members) {
+            return Duration.ofNanos(members.get(printer).getExpectedLoad());
+        }
+    }
+
+    /**
+     * Get how much the waiting time of a document reduces its priority.
+     *
+     * @return the aging factor.
+     */
+    public double getAgingFactor() {
+        return agingFactor;
+    }
+
+    /**
+     * Stop accepting new documents.  Documents that are already in this pool will still be printed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * A printer in a <code>PrinterPool</code>.  Its jobs wait in this member until the previous job has left the
+     * print queue of the printer, so the pool decides which job is printed next.
+     */
+    private final class Member {
+
+        private final SimpleEscp printer;
+        private final String name;
+        private final PriorityQueue<Job> jobs = new PriorityQueue<>();
+        private Job current;
+        private long load;
+
+        /**
+         * Create a new instance of <code>Member</code>.
+         *
+         * @param printer the printer.
+         */
+        private Member(SimpleEscp printer) {
+            this.printer = printer;
+            this.name = printer.getPrintSink().getName();
+        }
+
+        /**
+         * Get the load of this printer, including the estimated print time of documents that were added to its
+         * print queue outside of this pool.  Caller must hold the lock on <code>members</code>.
+         *
+         * @return the expected load in nanoseconds.
+         */
+        private long getExpectedLoad() {
+            final PrintQueue queue = printer.getPrintQueue();
+            int others = queue.getDepth();
+            synchronized (this) {
+                if (current != null) {
+                    others--;
+                }
+            }
+            return others > 0 ? load + others * queue.getAveragePrintTime().toNanos() : load;
+        }
+
+        /**
+         * Get the number of documents waiting in this member and in the print queue of the printer.
+         *
+         * @return the number of waiting documents.
+         */
+        private int getDepth() {
+            final int depth = printer.getPrintQueue().getDepth();
+            synchronized (this) {
+                return jobs.size() + depth;
+            }
+        }
+
+        /**
+         * Add a job to this printer.  It is sent to the print queue right away if no other job of this pool is
+         * waiting in or being printed by the print queue.
+         *
+         * @param job the job to add.
+         */
+        private void submit(Job job) {
+            synchronized (this) {
+                jobs.add(job);
+            }
+            dispatch();
+        }
+
+        /**
+         * Send the job with the highest priority to the print queue if no other job of this pool is in it.  The
+         * next job is sent once the print queue has completed this one.
+         */
+        private void dispatch() {
+            final Job job;
+            synchronized (this) {
+                if (current != null || jobs.isEmpty()) {
+                    return;
+                }
+                job = jobs.poll();
+                current = job;
+            }
+            final long dispatched = System.nanoTime();
+            CompletableFuture<PrintResult> result;
+            try {
+                result = printer.getPrintQueue().submit(job.document);
+            } catch (RuntimeException e) {
+                result = new CompletableFuture<>();
+                result.completeExceptionally(e);
+            }
+            // completes asynchronously, so a print queue that blocks callers never waits for its own worker
+            result.whenCompleteAsync((printResult, error) -> completed(job, dispatched, printResult, error));
+        }
+
+        /**
+         * Complete a job that has left the print queue and send the next one.  The load of the job is removed
+         * before its future is completed, so callers waiting for the document see the new load of this printer.
+         * If the print queue rejected the job, the remaining jobs are sent as well, so they are rejected too.
+         *
+         * @param job the job.
+         * @param dispatched the value of <code>System.nanoTime()</code> when the job was sent to the print queue.
+         * @param result the result of print queue or <code>null</code> if the job failed.
+         * @param error the reason the job failed or <code>null</code> if it has been printed.
+         */
+        private void completed(Job job, long dispatched, PrintResult result, Throwable error) {
+            synchronized (members) {
+                load -= job.expectedNanos;
+            }
+            synchronized (this) {
+                current = null;
+            }
+            if (error != null) {
+                job.future.completeExceptionally(error);
+            } else {
+                job.future.complete(new PrintResult(name, result.getSize(),
+                    Duration.ofNanos(dispatched - job.submitted).plus(result.getWaitTime()), result.getPrintTime()));
+            }
+            dispatch();
+        }
+    }
+
+    /**
+     * A document waiting in a <code>PrinterPool</code>.  Jobs are ordered by their priority, then by submission
+     * order.
+     */
+    private static final class Job implements Comparable<Job> {
+
+        private final byte[] document;
+        private final long expectedNanos;
+        private final long priority;
+        private final long submitted;
+        private final long sequence;
+        private final CompletableFuture<PrintResult> future = new CompletableFuture<>();
+
+        /**
+         * Create a new instance of <code>Job</code>.
+         *
+         * @param document the document to print.
+         * @param expectedNanos predicted print time in nanoseconds.
+         * @param priority the predicted print time reduced by the aging of this job.  Lower is printed first.
+         * @param submitted the value of <code>System.nanoTime()</code> when this job was submitted.
+         * @param sequence the submission order.
+         */
+        private Job(byte[] document, long expectedNanos, long priority, long submitted, long sequence) {
+            this.document = document;
+            this.expectedNanos = expectedNanos;
+            this.priority = priority;
+            this.submitted = submitted;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Complete this job exceptionally because it won't be printed.
+         *
+         * @param message the reason.
+         */
+        private void reject(String message) {
+            future.completeExceptionally(new RejectedExecutionException(message));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compareTo(Job other) {
+            final int result = Long.compare(priority, other.priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+}
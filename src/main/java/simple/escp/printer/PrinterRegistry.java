@@ -0,0 +1,280 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+import javax.print.attribute.AttributeSet;
+import javax.print.attribute.HashAttributeSet;
+import javax.print.attribute.standard.PrinterName;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A shared cache of <code>PrintService</code>.  Looking up print services may take hundreds of milliseconds on
+ * hosts with many printers, so this registry remembers the result of every lookup by its attribute set and
+ * refreshes them in a background thread.  A printer that fails should be passed to {@link #invalidate(PrintService)}
+ * so that it will be looked up again on next use.
+ *
+ * <p>Empty results are never cached, so a printer that is installed later will be found on next lookup.
+ */
+public class PrinterRegistry implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger("simple.escp");
+
+    /**
+     * The default interval between background refreshes.
+     */
+    public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofMinutes(1);
+
+    private static final AttributeSet ALL_PRINTERS = new HashAttributeSet();
+    private static final PrintService[] NO_SERVICES = new PrintService[0];
+
+    private static volatile PrinterRegistry defaultRegistry;
+
+    private final ServiceLookup lookup;
+    private final Duration refreshInterval;
+    private final Map<AttributeSet, PrintService[]> services = new ConcurrentHashMap<>();
+    private volatile PrintService defaultService;
+    private volatile ScheduledExecutorService scheduler;
+    private volatile boolean closed;
+
+    /**
+     * Create a new instance of <code>PrinterRegistry</code> that uses <code>PrintServiceLookup</code> and
+     * refreshes every {@link #DEFAULT_REFRESH_INTERVAL}.
+     */
+    public PrinterRegistry() {
+        this(ServiceLookup.SYSTEM, DEFAULT_REFRESH_INTERVAL);
+    }
+
+    /**
+     * Create a new instance of <code>PrinterRegistry</code>.
+     *
+     * @param lookup finds print services.
+     * @param refreshInterval interval between background refreshes or <code>null</code> to disable them.
+     */
+    public PrinterRegistry(ServiceLookup lookup, Duration refreshInterval) {
+        if (lookup == null) {
+            throw new IllegalArgumentException("Lookup can't be null.");
+        }
+        if (refreshInterval != null && (refreshInterval.isZero() || refreshInterval.isNegative())) {
+            throw new IllegalArgumentException("Refresh interval must be positive.");
+        }
+        this.lookup = lookup;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Get the registry that is shared by every <code>SimpleEscp</code>.
+     *
+     * @return the shared <code>PrinterRegistry</code>.
+     */
+    public static PrinterRegistry getDefault() {
+        PrinterRegistry registry = defaultRegistry;
+        if (registry == null) {
+            synchronized (PrinterRegistry.class) {
+                registry = defaultRegistry;
+                if (registry == null) {
+                    registry = new PrinterRegistry();
+                    defaultRegistry = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Find all printers that match an attribute set.
+     *
+     * @param attributeSet the attributes to match or <code>null</code> for all printers.
+     * @return a new array of matching printers.  It is empty if no printer is found.
+     */
+    public PrintService[] lookup(AttributeSet attributeSet) {
+        final AttributeSet key = attributeSet == null ? ALL_PRINTERS : new HashAttributeSet(attributeSet);
+        PrintService[] result = services.get(key);
+        if (result == null) {
+            result = find(key);
+            if (result.length > 0) {
+                services.put(key, result);
+            }
+            startRefresh();
+        }
+        return result.clone();
+    }
+
+    /**
+     * Find a printer by its name.
+     *
+     * @param printerName the name of printer.
+     * @return the first printer that has <code>printerName</code> or <code>null</code> if it is not found.
+     */
+    public PrintService lookup(String printerName) {
+        final HashAttributeSet attributeSet = new HashAttributeSet();
+        attributeSet.add(new PrinterName(printerName, null));
+        final PrintService[] result = lookup(attributeSet);
+        return result.length == 0 ? null : result[0];
+    }
+
+    /**
+     * Get the printer that was marked as default printer in operating system's control panel.
+     *
+     * @return the default printer or <code>null</code> if there is no default printer.
+     */
+    public PrintService getDefaultPrintService() {
+        PrintService result = defaultService;
+        if (result == null) {
+            result = lookup.lookupDefaultPrintService();
+            defaultService = result;
+            startRefresh();
+        }
+        return result;
+    }
+
+    /**
+     * Call the underlying lookup.
+     *
+     * @param key the attributes to match.
+     * @return matching printers, never <code>null</code>.
+     */
+    private PrintService[] find(AttributeSet key) {
+        final PrintService[] result = lookup.lookupPrintServices(key == ALL_PRINTERS ? null : key);
+        return result == null ? NO_SERVICES : result;
+    }
+
+    /**
+     * Remove a printer from this registry, usually because printing to it has failed.  Every cached lookup that
+     * contains this printer will be performed again on next use.
+     *
+     * @param printService the printer to remove.
+     */
+    public void invalidate(PrintService printService) {
+        if (printService == null) {
+            return;
+        }
+        services.values().removeIf(result -> Arrays.asList(result).contains(printService));
+        if (printService.equals(defaultService)) {
+            defaultService = null;
+        }
+    }
+
+    /**
+     * Remove all cached printers.
+     */
+    public void invalidateAll() {
+        services.clear();
+        defaultService = null;
+    }
+
+    /**
+     * Perform every cached lookup again.  This is called periodically by the background thread, but it can also
+     * be called directly, for example after installing a new printer.
+     */
+    public void refresh() {
+        for (AttributeSet key : services.keySet()) {
+            final PrintService[] result = find(key);
+            if (result.length == 0) {
+                services.remove(key);
+            } else {
+                services.put(key, result);
+            }
+        }
+        if (defaultService != null) {
+            defaultService = lookup.lookupDefaultPrintService();
+        }
+    }
+
+    /**
+     * Start the background refresh if it is enabled and hasn't been started.
+     */
+    private void startRefresh() {
+        if (refreshInterval == null || scheduler != null || closed) {
+            return;
+        }
+        synchronized (this) {
+            if (scheduler == null && !closed) {
+                final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    final Thread thread = new Thread(runnable, "simple-escp-printer-registry");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                final long interval = refreshInterval.toMillis();
+                executor.scheduleWithFixedDelay(() -> {
+                    try {
+                        refresh();
+                    } catch (RuntimeException e) {
+                        LOG.log(Level.WARNING, "Error while refreshing printers.", e);
+                    }
+                }, interval, interval, TimeUnit.MILLISECONDS);
+                scheduler = executor;
+            }
+        }
+    }
+
+    /**
+     * Stop the background refresh.  Cached printers can still be used.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Finds print services for a <code>PrinterRegistry</code>.
+     */
+    public interface ServiceLookup {
+
+        /**
+         * A lookup that delegates to <code>PrintServiceLookup</code>.
+         */
+        ServiceLookup SYSTEM = new ServiceLookup() {
+            @Override
+            public PrintService[] lookupPrintServices(AttributeSet attributeSet) {
+                return PrintServiceLookup.lookupPrintServices(null, attributeSet);
+            }
+
+            @Override
+            public PrintService lookupDefaultPrintService() {
+                return PrintServiceLookup.lookupDefaultPrintService();
+            }
+        };
+
+        /**
+         * Find printers that match an attribute set.
+         *
+         * @param attributeSet the attributes to match or <code>null</code> for all printers.
+         * @return matching printers.
+         */
+        PrintService[] lookupPrintServices(AttributeSet attributeSet);
+
+        /**
+         * Find the default printer.
+         *
+         * @return the default printer or <code>null</code> if there is none.
+         */
+        PrintService lookupDefaultPrintService();
+    }
+
+}
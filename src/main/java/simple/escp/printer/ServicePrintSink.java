@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import javax.print.Doc;
+import javax.print.DocFlavor;
+import javax.print.DocPrintJob;
+import javax.print.PrintException;
+import javax.print.PrintService;
+import javax.print.SimpleDoc;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A <code>PrintSink</code> that prints documents through <code>javax.print</code>.  Every document is kept in
+ * memory and sent to the <code>PrintService</code> when its stream is closed.  If printing fails, the printer is
+ * invalidated in the default {@link PrinterRegistry}.
+ */
+public class ServicePrintSink implements PrintSink {
+
+    private final PrintService printService;
+
+    /**
+     * Create a new instance of <code>ServicePrintSink</code>.
+     *
+     * @param printService the destination printer.
+     */
+    public ServicePrintSink(PrintService printService) {
+        if (printService == null) {
+            throw new IllegalArgumentException("Print service can't be null.");
+        }
+        this.printService = printService;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return printService.getName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OutputStream open() {
+        return new ByteArrayOutputStream() {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    ServicePrintSink.this.write(toByteArray());
+                }
+            }
+        };
+    }
+
+    /**
+     * Print a document.
+     *
+     * @param document the bytes of the document.  They may contains ESC/P code.
+     * @throws IOException if printing fails.  The cause is the <code>PrintException</code>.
+     */
+    @Override
+    public void write(byte[] document) throws IOException {
+        try {
+            print(document);
+        } catch (PrintException e) {
+            throw new IOException("Error during printing to [" + getName() + "].", e);
+        }
+    }
+
+    /**
+     * Print a document and return its print job.
+     *
+     * @param document the bytes of the document.  They may contains ESC/P code.
+     * @return a <code>DocPrintJob</code> that is associated with this operation.
+     * @throws PrintException if printing fails.
+     */
+    public DocPrintJob print(byte[] document) throws PrintException {
+        Doc doc = new SimpleDoc(new ByteArrayInputStream(document), DocFlavor.INPUT_STREAM.AUTOSENSE, null);
+        DocPrintJob job = printService.createPrintJob();
+        try {
+            job.print(doc, null);
+        } catch (PrintException e) {
+            PrinterRegistry.getDefault().invalidate(printService);
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Get the printer of this sink.
+     *
+     * @return the <code>PrintService</code>.
+     */
+    public PrintService getPrintService() {
+        return printService;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ServicePrintSink && printService.equals(((ServicePrintSink) o).printService);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return printService.hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ServicePrintSink[" + getName() + "]";
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import simple.escp.util.EscpWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Locale;
+
+/**
+ * A <code>PrintSink</code> that sends documents to a network printer through a raw TCP connection, usually on port
+ * <code>9100</code>.  A new connection is created for every document and closed when the document is complete.
+ * Bytes are buffered, so <code>TCP_NODELAY</code> is enabled by default: the buffer already avoids small packets
+ * and there is no reason to wait for acknowledgements.
+ */
+public class SocketPrintSink implements PrintSink {
+
+    /**
+     * The default port for raw printing.
+     */
+    public static final int DEFAULT_PORT = 9100;
+
+    /**
+     * The default connect and write timeout in milliseconds.
+     */
+    public static final int DEFAULT_TIMEOUT = 10000;
+
+    private final String host;
+    private final int port;
+    private final int timeout;
+    private final boolean tcpNoDelay;
+    private final int bufferSize;
+
+    /**
+     * Create a new instance of <code>SocketPrintSink</code> that connects to {@link #DEFAULT_PORT}.
+     *
+     * @param host the host name or address of printer.
+     */
+    public SocketPrintSink(String host) {
+        this(host, DEFAULT_PORT);
+    }
+
+    /**
+     * Create a new instance of <code>SocketPrintSink</code>.
+     *
+     * @param host the host name or address of printer.
+     * @param port the port of printer.
+     */
+    public SocketPrintSink(String host, int port) {
+        this(host, port, DEFAULT_TIMEOUT, true, EscpWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a new instance of <code>SocketPrintSink</code>.
+     *
+     * @param host the host name or address of printer.
+     * @param port the port of printer.
+     * @param timeout connect and write timeout in milliseconds, or <code>0</code> to wait forever.
+     * @param tcpNoDelay value for <code>TCP_NODELAY</code> socket option.
+     * @param bufferSize the size of buffer in bytes.
+     */
+    public SocketPrintSink(String host, int port, int timeout, boolean tcpNoDelay, int bufferSize) {
+        if (host == null || host.isEmpty()) {
+            throw new IllegalArgumentException("Host can't be empty.");
+        }
+        if (port < 1 || port > 65535) {
+            throw new IllegalArgumentException("Invalid port [" + port + "].");
+        }
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout can't be negative.");
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be at least 1.");
+        }
+        this.host = host;
+        this.port = port;
+        this.timeout = timeout;
+        this.tcpNoDelay = tcpNoDelay;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return host + ":" + port;
+    }
+
+    /**
+     * Connect to printer.  Closing the returned stream flushes the buffer and closes the connection.
+     *
+     * @return a buffered stream to printer.
+     * @throws IOException if the connection can't be created.
+     */
+    @Override
+    public OutputStream open() throws IOException {
+        final Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(tcpNoDelay);
+            socket.setSoTimeout(timeout);
+            socket.connect(new InetSocketAddress(host, port), timeout);
+            return new BufferedOutputStream(socket.getOutputStream(), bufferSize);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the host name or address of printer.
+     *
+     * @return the host of printer.
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Get the port of printer.
+     *
+     * @return the port of printer.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Check if <code>TCP_NODELAY</code> is enabled.
+     *
+     * @return value of <code>TCP_NODELAY</code> socket option.
+     */
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SocketPrintSink)) {
+            return false;
+        }
+        final SocketPrintSink other = (SocketPrintSink) o;
+        return host.equalsIgnoreCase(other.host) && port == other.port;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return 31 * host.toLowerCase(Locale.ROOT).hashCode() + port;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "SocketPrintSink[" + getName() + "]";
+    }
+
+}
@@ -19,10 +19,11 @@ import simple.escp.data.DataSource;
 import simple.escp.dom.PageFormat;
 import simple.escp.fill.FillJob;
 import simple.escp.SimpleEscp;
+import simple.escp.printer.PrinterRegistry;
 import simple.escp.Template;
 import simple.escp.data.DataSources;
 import javax.print.PrintService;
-import javax.print.PrintServiceLookup;
+import javax.print.attribute.AttributeSet;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JOptionPane;
@@ -75,9 +76,13 @@ public class PrintPreviewPane extends JPanel implements ActionListener {
         toolbar = new JToolBar();
         printButton = new JButton("Print");
         printButton.addActionListener(this);
-        PrintService[] printServices = PrintServiceLookup.lookupPrintServices(null, null);
+        PrinterRegistry printerRegistry = PrinterRegistry.getDefault();
+        PrintService[] printServices = printerRegistry.lookup((AttributeSet) null);
         Vector<String> printerName = new Vector<>();
-        printerName.add(PrintServiceLookup.lookupDefaultPrintService().getName());
+        PrintService defaultPrintService = printerRegistry.getDefaultPrintService();
+        if (defaultPrintService != null) {
+            printerName.add(defaultPrintService.getName());
+        }
         for (PrintService printService: printServices) {
             if (!printerName.contains(printService.getName())) {
                 printerName.add(printService.getName());
@@ -302,17 +302,20 @@ public class EscpUtil {
      * This enum represents available character pitchs.
      */
     public enum CHARACTER_PITCH {
-        CPI_5(32), CPI_6(33), CPI_10(0), CPI_12(1), CPI_17(4), CPI_20(5);
+        CPI_5(32, 5), CPI_6(33, 6), CPI_10(0, 10), CPI_12(1, 12), CPI_17(4, 17), CPI_20(5, 20);
 
         private int value;
+        private int charactersPerInch;
 
         /**
          * Create new instance of CHARACTER_PITCH.
          *
          * @param value a Master Select command's parameter to select this CPI.
+         * @param charactersPerInch number of characters per inch.
          */
-        CHARACTER_PITCH(int value) {
+        CHARACTER_PITCH(int value, int charactersPerInch) {
             this.value = value;
+            this.charactersPerInch = charactersPerInch;
         }
 
         /**
@@ -323,6 +326,15 @@ public class EscpUtil {
         public int getValue() {
             return value;
         }
+
+        /**
+         * Get number of characters per inch for this CPI.
+         *
+         * @return characters per inch, rounded down for 17.1 CPI.
+         */
+        public int getCharactersPerInch() {
+            return charactersPerInch;
+        }
     }
 
     /**
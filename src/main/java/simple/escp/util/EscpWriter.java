@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A buffered writer for ESC/P commands and text that writes bytes to an <code>OutputStream</code>.
+ *
+ * <p>ESC/P commands and CP437 box drawing characters, such as {@link EscpUtil#CP347_LIGHT_VERTICAL}, are
+ * stored as characters from <code>0</code> to <code>255</code> in strings.  This writer converts every character
+ * directly into one byte, which is the same as encoding them by using ISO-8859-1, but without creating an
+ * intermediate <code>String</code> or <code>ByteBuffer</code>.  Characters that don't fit in one byte are written
+ * as <code>?</code>.
+ *
+ * <p>This class is not thread-safe.  <code>close()</code> is not provided because this writer doesn't own the
+ * underlying stream; call {@link #flush()} when all bytes have been written.
+ */
+public class EscpWriter implements Flushable {
+
+    /**
+     * The default size of buffer in bytes.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final byte REPLACEMENT = '?';
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+
+    /**
+     * Create a new instance of <code>EscpWriter</code> that keeps all bytes in memory.  Use
+     * {@link #toByteArray()} to retrieve them.
+     */
+    public EscpWriter() {
+        this(new ByteArrayOutputStream(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a new instance of <code>EscpWriter</code>.
+     *
+     * @param out the destination of bytes.
+     */
+    public EscpWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a new instance of <code>EscpWriter</code>.
+     *
+     * @param out the destination of bytes.
+     * @param bufferSize the size of buffer in bytes.
+     */
+    public EscpWriter(OutputStream out, int bufferSize) {
+        if (out == null) {
+            throw new IllegalArgumentException("Output stream can't be null.");
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be at least 1.");
+        }
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Convert characters into bytes in the same way as {@link #write(CharSequence)}.
+     *
+     * @param text the characters to convert.
+     * @return the bytes of <code>text</code>.
+     */
+    public static byte[] toBytes(CharSequence text) {
+        final byte[] result = new byte[text.length()];
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c <= 0xFF) {
+                result[length++] = (byte) c;
+            } else {
+                result[length++] = REPLACEMENT;
+                if (isSurrogatePair(text, i)) {
+                    i++;
+                }
+            }
+        }
+        return length == result.length ? result : Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Check if the character at an index and the next character are a surrogate pair.
+     *
+     * @param text the characters.
+     * @param index the index of the first character.
+     * @return <code>true</code> if they are a surrogate pair that represents one code point.
+     */
+    private static boolean isSurrogatePair(CharSequence text, int index) {
+        return Character.isHighSurrogate(text.charAt(index)) && (index + 1 < text.length()) &&
+            Character.isLowSurrogate(text.charAt(index + 1));
+    }
+
+    /**
+     * Make sure the buffer has room for some bytes.
+     *
+     * @param length number of bytes.
+     * @throws IOException if an I/O error occurs while writing the buffer.
+     */
+    private void ensureCapacity(int length) throws IOException {
+        if (count + length > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Write the content of the buffer to the underlying stream.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    /**
+     * Write a byte.
+     *
+     * @param b the byte to write.  Only the lowest 8 bits are used.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(int b) throws IOException {
+        ensureCapacity(1);
+        buffer[count++] = (byte) b;
+    }
+
+    /**
+     * Write bytes.
+     *
+     * @param bytes the bytes to write.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length) {
+            flushBuffer();
+            out.write(bytes);
+            return;
+        }
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    /**
+     * Write characters, one byte for every character.
+     *
+     * @param text the characters to write.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(CharSequence text) throws IOException {
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            final char c = text.charAt(i);
+            if (c <= 0xFF) {
+                buffer[count++] = (byte) c;
+            } else {
+                buffer[count++] = REPLACEMENT;
+                if (isSurrogatePair(text, i)) {
+                    i++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write all buffered bytes and flush the underlying stream.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Get all bytes written to a writer that was created by {@link #EscpWriter()}.
+     *
+     * @return all written bytes.
+     * @throws IllegalStateException if this writer doesn't keep bytes in memory.
+     */
+    public byte[] toByteArray() {
+        if (!(out instanceof ByteArrayOutputStream)) {
+            throw new IllegalStateException("This writer doesn't keep bytes in memory.");
+        }
+        try {
+            flushBuffer();
+        } catch (IOException e) {
+            // Never happens because ByteArrayOutputStream doesn't throw IOException.
+            throw new IllegalStateException(e);
+        }
+        return ((ByteArrayOutputStream) out).toByteArray();
+    }
+
+    /**
+     * Get all bytes written to a writer that was created by {@link #EscpWriter()} as a <code>String</code>,
+     * one character for every byte.
+     *
+     * @return all written bytes as characters, or the default description if this writer doesn't keep bytes
+     *         in memory.
+     */
+    @Override
+    public String toString() {
+        if (!(out instanceof ByteArrayOutputStream)) {
+            return super.toString();
+        }
+        return new String(toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+}
@@ -25,6 +25,8 @@ public class StringUtil {
      */
     public enum ALIGNMENT { LEFT, RIGHT, CENTER };
 
+    private static final String SPACES = "                                                                ";
+
     /**
      * Create left-aligned text with a maximum <code>width</code> characters.
      *
@@ -110,4 +112,50 @@ public class StringUtil {
         }
         throw new IllegalArgumentException("Invalid alignment: " + alignment);
     }
+
+    /**
+     * Align the text at the end of a <code>StringBuilder</code> in place, with the same result as
+     * {@link #align(String, int, ALIGNMENT)} but without creating intermediate strings.
+     *
+     * @param buffer the builder that contains the text.
+     * @param start the index of the first character of the text.  The text ends at the end of
+     *              <code>buffer</code>.
+     * @param width maximum number of characters.  Text exceeds this limit will be truncated.
+     * @param alignment the <code>ALIGNMENT</code> type.
+     */
+    public static void align(StringBuilder buffer, int start, int width, ALIGNMENT alignment) {
+        if (alignment == null) {
+            throw new IllegalArgumentException("Invalid alignment: " + alignment);
+        }
+        final int length = buffer.length() - start;
+        if (length > width) {
+            buffer.setLength(start + width);
+            return;
+        }
+        final int padding = width - length;
+        if (alignment == ALIGNMENT.RIGHT) {
+            insertSpaces(buffer, start, padding);
+        } else if (alignment == ALIGNMENT.CENTER) {
+            insertSpaces(buffer, start, padding / 2);
+            insertSpaces(buffer, buffer.length(), padding - padding / 2);
+        } else {
+            insertSpaces(buffer, buffer.length(), padding);
+        }
+    }
+
+    /**
+     * Insert spaces into a <code>StringBuilder</code>.
+     *
+     * @param buffer the destination.
+     * @param index the position of spaces.
+     * @param count number of spaces.
+     */
+    private static void insertSpaces(StringBuilder buffer, int index, int count) {
+        int remaining = count;
+        while (remaining > 0) {
+            final int n = Math.min(remaining, SPACES.length());
+            buffer.insert(index, SPACES, 0, n);
+            remaining -= n;
+        }
+    }
 }
@@ -281,6 +281,65 @@ public class PageTest
         assertEquals(line3, page.removeLine(3));
     }
 
+    @Test
+    public void cachedLineNumbers()
+    {
+        final List<Line> content = new ArrayList<>();
+        final TextLine line1 = new TextLine("This is content 1");
+        content.add(line1);
+        final TextLine[] header = new TextLine[] { new TextLine("This is header 1") };
+        final TextLine[] footer = new TextLine[] { new TextLine("This is footer 1") };
+        final Page page = new Page(content, header, footer, 1, 5);
+        assertEquals(2, page.getLines()[1].getLineNumber().intValue());
+
+        // A stable layout is not numbered again
+        line1.setLineNumber(99);
+        assertEquals(99, page.getLines()[1].getLineNumber().intValue());
+
+        // Replacing a line keeps the numbering
+        final TextLine replacement = new TextLine("This is replacement");
+        page.setLine(2, replacement);
+        assertEquals(replacement, page.getLine(2));
+        assertEquals(2, replacement.getLineNumber().intValue());
+
+        // Changing the layout numbers lines again
+        final TextLine line0 = new TextLine("This is content 0");
+        page.insert(line0, 2);
+        assertEquals(line0, page.getLine(2));
+        assertEquals(2, page.getLines()[1].getLineNumber().intValue());
+        assertEquals(3, replacement.getLineNumber().intValue());
+        assertEquals(4, page.getLine(4).getLineNumber().intValue());
+        page.removeLine(line0);
+        assertEquals(2, page.getLines()[1].getLineNumber().intValue());
+        assertEquals("This is footer 1", page.getLine(3).toString());
+    }
+
+    @Test
+    public void overlay()
+    {
+        final List<Line> content = new ArrayList<>();
+        final TextLine line1 = new TextLine("This is content 1");
+        content.add(line1);
+        final TextLine[] header = new TextLine[] { new TextLine("This is header 1") };
+        final TextLine[] footer = new TextLine[] { new TextLine("This is footer 1") };
+        final Page page = new Page(content, header, footer, 1, 5);
+        final Page clone = new Page(page, 5);
+
+        final TextLine result = new TextLine("This is result 1");
+        clone.overlay(2, result);
+        assertEquals(result, clone.getLine(2));
+        assertEquals(line1, clone.getContent().get(0));
+        assertEquals(2, clone.getLineNumber(result).intValue());
+        assertNull(clone.getLineNumber(line1));
+        assertEquals(line1, page.getLine(2));
+
+        // Changing the layout discards the overlay
+        clone.append(new TextLine("This is content 2"));
+        assertEquals(line1, clone.getLine(2));
+        assertEquals(1, page.getContent().size());
+        assertThrows(IllegalArgumentException.class, () -> clone.overlay(5, result));
+    }
+
     @Test
     public void hasDynamicLine()
     {
@@ -19,6 +19,7 @@ package simple.escp;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static simple.escp.util.EscpUtil.CRFF;
@@ -317,6 +318,43 @@ public class ReportTest {
         assertEquals("This is footer.", page2.getLine(6).toString());
     }
 
+    @Test
+    public void splice() {
+        final PageFormat pageFormat = new PageFormat();
+        pageFormat.setPageLength(5);
+        pageFormat.setUsePrinterPageLength(false);
+        final TextLine[] header = new TextLine[] { new TextLine("This is header.") };
+        final TextLine[] footer = new TextLine[] { new TextLine("This is footer.") };
+        final Report spliced = new Report(pageFormat, header, footer);
+        final Report inserted = new Report(pageFormat, header, footer);
+        for (int i = 1; i <= 5; i++) {
+            spliced.append(new TextLine("Line " + i), false);
+            inserted.append(new TextLine("Line " + i), false);
+        }
+        final List<Line> lines = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            lines.add(new TextLine("Inserted " + i));
+        }
+
+        spliced.splice(1, 3, lines);
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            inserted.insert(lines.get(i), 1, 3);
+        }
+
+        assertEquals(4, spliced.getNumberOfPages());
+        assertEquals(inserted.getNumberOfPages(), spliced.getNumberOfPages());
+        for (int i = 1; i <= spliced.getNumberOfPages(); i++) {
+            assertEquals(inserted.getPage(i).getNumberOfLines(), spliced.getPage(i).getNumberOfLines());
+            for (int j = 1; j <= spliced.getPage(i).getNumberOfLines(); j++) {
+                assertEquals(inserted.getPage(i).getLine(j).toString(), spliced.getPage(i).getLine(j).toString());
+            }
+        }
+        assertEquals("Line 1", spliced.getPage(1).getLine(2).toString());
+        assertEquals("Inserted 1", spliced.getPage(1).getLine(3).toString());
+        assertEquals("Inserted 7", spliced.getPage(3).getLine(3).toString());
+        assertEquals("Line 5", spliced.getPage(4).getLine(4).toString());
+    }
+
     @Test
     public void insertLast() {
         final PageFormat pageFormat = new PageFormat();
@@ -461,6 +499,79 @@ public class ReportTest {
         assertEquals("This is footer.", report.getPage(1).getLine(3).toString());
     }
 
+    @Test
+    public void cloneReportCopyOnWrite() {
+        final PageFormat pageFormat = new PageFormat();
+        pageFormat.setPageLength(4);
+        pageFormat.setUsePrinterPageLength(false);
+        final TextLine[] header = new TextLine[] { new TextLine("This is header.") };
+        final TextLine[] footer = new TextLine[] { new TextLine("This is footer.") };
+        final Report report = new Report(pageFormat, header, footer);
+        report.append(new TextLine("This is line 1 in page 1."), false);
+        report.append(new TableLine("source"), false);
+        report.append(new TextLine("This is line 1 in page 2."), false);
+
+        final Report cloneReport = new Report(report);
+        assertSame(report.getPage(1).getLine(2), cloneReport.getPage(1).getLine(2));
+        assertEquals(cloneReport.getPage(1), cloneReport.getFirstPageWithTableLines());
+
+        // Modify the clone
+        cloneReport.getPage(1).setLine(1, new TextLine("This is new header."));
+        cloneReport.getPage(1).removeLine(3);
+        cloneReport.insert(new TextLine("Inserted line."), 2, 2);
+        assertNull(cloneReport.getFirstPageWithTableLines());
+        assertEquals("This is new header.", cloneReport.getPage(1).getLine(1).toString());
+        assertEquals("Inserted line.", cloneReport.getPage(2).getLine(2).toString());
+
+        // Modify the original
+        report.getPage(1).setLine(2, new TextLine("This is modified line."));
+
+        assertEquals(report.getPage(1), report.getFirstPageWithTableLines());
+        assertEquals("This is header.", report.getPage(1).getLine(1).toString());
+        assertEquals("This is modified line.", report.getPage(1).getLine(2).toString());
+        assertEquals(4, report.getPage(1).getNumberOfLines());
+        assertEquals(3, report.getPage(2).getNumberOfLines());
+        assertEquals("This is line 1 in page 1.", cloneReport.getPage(1).getLine(2).toString());
+        assertEquals(3, cloneReport.getPage(1).getNumberOfLines());
+        assertEquals(4, cloneReport.getPage(2).getNumberOfLines());
+    }
+
+    @Test
+    public void cloneReportNumbersSharedLines() {
+        final PageFormat pageFormat = new PageFormat();
+        pageFormat.setPageLength(4);
+        pageFormat.setUsePrinterPageLength(false);
+        final TextLine[] header = new TextLine[] { new TextLine("This is header.") };
+        final TextLine[] footer = new TextLine[] { new TextLine("This is footer.") };
+        final Report report = new Report(pageFormat, header, footer);
+        final TextLine line1 = new TextLine("This is line 1.");
+        final TextLine line2 = new TextLine("This is line 2.");
+        report.append(line1, false);
+        report.append(line2, false);
+        for (final Page page : report) {
+            assertEquals(4, page.getNumberOfLines());
+        }
+        assertEquals(3, line2.getLineNumber().intValue());
+        assertEquals(3, line2.getGlobalLineNumber().intValue());
+
+        final Report cloneReport = new Report(report);
+        cloneReport.insert(new TextLine("Inserted line."), 1, 2);
+        assertEquals(2, cloneReport.getNumberOfPages());
+        final Page secondPage = cloneReport.getPage(2);
+        assertSame(line2, secondPage.getLine(2));
+        assertSame(header[0], secondPage.getLine(1));
+        assertEquals(3, cloneReport.getPage(1).getLineNumber(line1).intValue());
+        assertEquals(2, secondPage.getLineNumber(line2).intValue());
+        assertEquals(6, secondPage.getGlobalLineNumber(2).intValue());
+
+        // Lines of the original report are not numbered by the clone
+        assertEquals(2, line1.getLineNumber().intValue());
+        assertEquals(3, line2.getLineNumber().intValue());
+        assertEquals(3, line2.getGlobalLineNumber().intValue());
+        assertEquals(1, report.getNumberOfPages());
+        assertSame(line2, report.getPage(1).getLine(3));
+    }
+
     @Test
     public void getFirstPageWithTableLines() {
         PageFormat pageFormat = new PageFormat();
@@ -487,6 +598,41 @@ public class ReportTest {
         assertEquals(report.getPage(2), report.getFirstPageWithTableLines());
     }
 
+    @Test
+    public void dynamicLineIndex() {
+        final PageFormat pageFormat = new PageFormat();
+        pageFormat.setPageLength(3);
+        pageFormat.setUsePrinterPageLength(false);
+        final Report report = new Report(pageFormat, null, null);
+        report.append(new TextLine("This is line 1 in page 1."), false);
+        final TableLine tableLine = new TableLine("source");
+        report.append(tableLine, false);
+        report.append(new TextLine("This is line 3 in page 1."), false);
+        final ListLine listLine = new ListLine("test", "line text", null, null);
+        report.append(listLine, false);
+        assertEquals(report.getPage(1), report.getFirstPageWithTableLines());
+        assertEquals(report.getPage(2), report.getFirstPageWithListLines());
+
+        report.insert(new TextLine("Inserted line."), 1, 1);
+        assertEquals(report.getPage(1), report.getFirstPageWithTableLines());
+        report.insert(new TextLine("Inserted line."), 1, 1);
+        assertEquals(report.getPage(2), report.getFirstPageWithTableLines());
+        assertTrue(report.getPage(2).hasTableLine());
+        assertFalse(report.getPage(1).hasTableLine());
+
+        report.getPage(2).removeLine(tableLine);
+        assertNull(report.getFirstPageWithTableLines());
+        assertTrue(report.hasDynamicLine());
+        report.getPage(2).getContent().remove(listLine);
+        assertNull(report.getFirstPageWithListLines());
+        assertFalse(report.hasDynamicLine());
+
+        report.getPage(1).getContent().set(0, listLine);
+        assertEquals(report.getPage(1), report.getFirstPageWithListLines());
+        final Report copy = new Report(report);
+        assertEquals(copy.getPage(1), copy.getFirstPageWithListLines());
+    }
+
     @Test
     public void getFirstPageWithListLines() {
         PageFormat pageFormat = new PageFormat();
@@ -17,6 +17,7 @@ package simple.escp.data;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -137,6 +138,34 @@ public class BeanDataSourceTest
         assertEquals("Line1 City", ds.get("address.@shortAddress"));
     }
 
+    @Test
+    public void sharedClassInfo()
+    {
+        final BeanDataSource first = new BeanDataSource(new Employee("first", 10.0, 24.0));
+        final BeanDataSource second = new BeanDataSource(new Employee("second", 20.0, 12.0));
+        assertSame(first.getProperty("name"), second.getProperty("name"));
+        assertEquals("first", first.get("name"));
+        assertEquals("second", second.get("name"));
+        assertEquals(240.0, second.get("@grossIncome"));
+    }
+
+    @Test
+    public void getFailingMember()
+    {
+        final BeanDataSource ds = new BeanDataSource(new Failing());
+        final InvalidPlaceholder exception = assertThrows(InvalidPlaceholder.class, () -> ds.get("value"));
+        assertEquals(IllegalStateException.class, exception.getCause().getClass());
+    }
+
+    public static class Failing
+    {
+
+        public String getValue()
+        {
+            throw new IllegalStateException("Failed");
+        }
+    }
+
     public static class Employee
     {
 
@@ -16,9 +16,11 @@
 package simple.escp.data;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.junit.jupiter.api.Test;
 
@@ -76,4 +78,26 @@ public class DataSourcesTest {
         assertEquals("", dataSource.get("anything"));
     }
 
+    @Test
+    public void registerFactory() {
+        final Function<StringBuilder, DataSource> factory = builder -> {
+            final Map<String, Object> map = new HashMap<>();
+            map.put("text", builder.toString());
+            return new MapDataSource(map);
+        };
+        final int size = DataSources.DATA_SOURCES.size();
+        DataSources.register(StringBuilder.class, factory);
+        try {
+            final DataSource ds = DataSources.from(new StringBuilder("solid"));
+            assertEquals(MapDataSource.class, ds.getClass());
+            assertEquals("solid", ds.get("text"));
+            assertEquals(size + 1, DataSources.DATA_SOURCES.size());
+        } finally {
+            DataSources.unregister(factory);
+        }
+        assertEquals(BeanDataSource.class, DataSources.from(new StringBuilder("solid")).getClass());
+        assertEquals(size, DataSources.DATA_SOURCES.size());
+        assertThrows(UnsupportedOperationException.class, () -> DataSources.DATA_SOURCES.clear());
+    }
+
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.fill;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static simple.escp.util.EscpUtil.CRFF;
+import static simple.escp.util.EscpUtil.CRLF;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import simple.escp.data.DataSource;
+import simple.escp.data.MapDataSource;
+import simple.escp.dom.Report;
+import simple.escp.json.JsonTemplate;
+import simple.escp.util.EscpUtil;
+
+public class BatchFillJobTest {
+
+    private final String INIT = EscpUtil.escInitalize();
+    private Report report;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setup() {
+        report = new JsonTemplate("{\"template\": [\"Document ${id} %{INC A}%{INC A}\"]}").parse();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private static DataSource[] source(final int id) {
+        final Map<String, Object> map = new HashMap<>();
+        map.put("id", id);
+        return new DataSource[] {new MapDataSource(map)};
+    }
+
+    private String expected(final int id) {
+        return INIT + "Document " + id + " 12" + CRLF + CRFF + INIT;
+    }
+
+    @Test
+    public void fillConcatenated() throws IOException {
+        final BatchFillJob batchFillJob = new BatchFillJob(report);
+        batchFillJob.setExecutor(executor);
+        batchFillJob.setMaxPending(3);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchFillJob.fill(IntStream.range(0, 100).mapToObj(BatchFillJobTest::source), out);
+
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            expected.append(expected(i));
+        }
+        assertArrayEquals(expected.toString().getBytes(StandardCharsets.ISO_8859_1), out.toByteArray());
+    }
+
+    @Test
+    public void fillPerDocument() throws IOException {
+        final List<DataSource[]> sources = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            sources.add(source(i));
+        }
+        final BatchFillJob batchFillJob = new BatchFillJob(report);
+        batchFillJob.setExecutor(executor);
+        final List<Integer> indexes = new ArrayList<>();
+        batchFillJob.fill(sources, (index, document) -> {
+            indexes.add(index);
+            assertEquals(expected(index), new String(document, StandardCharsets.ISO_8859_1));
+        });
+        assertEquals(50, indexes.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, indexes.get(i));
+        }
+    }
+
+    @Test
+    public void fillEmpty() {
+        assertEquals(0, new BatchFillJob(report).fill(Collections.emptyList()).size());
+    }
+
+    @Test
+    public void failure() {
+        final BatchFillJob batchFillJob = new BatchFillJob(report) {
+            @Override
+            protected byte[] fillDocument(final DataSource[] dataSources) {
+                throw new IllegalStateException("Failed");
+            }
+        };
+        batchFillJob.setExecutor(executor);
+        final List<DataSource[]> sources = Collections.singletonList(source(1));
+        assertThrows(IllegalStateException.class, () -> batchFillJob.fill(sources));
+    }
+
+    @Test
+    public void concurrentFillMatchesSequentialFill() {
+        final Report template = new JsonTemplate("""
+            {
+                "pageFormat": {"pageLength": 4},
+                "template": {
+                    "header": ["Page %{PAGE_NO} of ${id}"],
+                    "detail": [
+                        "%{BOLD}Document ${id}%{BOLD} %{INC A}",
+                        {"table": "rows", "columns": [{"source": "item", "width": 10, "caption": "Item"}]},
+                        "Line %{LINE_NO} global %{GLOBAL_LINE_NO} %{INC A}"
+                    ]
+                }
+            }
+            """).parse();
+        final List<DataSource[]> sources = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            final List<Map<String, Object>> rows = new ArrayList<>();
+            for (int j = 0; j < i % 7; j++) {
+                rows.add(Map.of("item", "Item " + j));
+            }
+            final Map<String, Object> map = new HashMap<>();
+            map.put("id", i);
+            map.put("rows", rows);
+            sources.add(new DataSource[] {new MapDataSource(map)});
+        }
+        final List<String> expected = new ArrayList<>();
+        for (DataSource[] dataSources : sources) {
+            expected.add(new FillJob(template, dataSources).fill());
+        }
+
+        final BatchFillJob batchFillJob = new BatchFillJob(template);
+        batchFillJob.setExecutor(executor);
+        batchFillJob.setMaxPending(16);
+        final List<byte[]> documents = batchFillJob.fill(sources);
+        assertEquals(expected.size(), documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            assertEquals(expected.get(i), new String(documents.get(i), StandardCharsets.ISO_8859_1));
+        }
+        assertEquals(expected.get(5), new FillJob(template, sources.get(5)).fill());
+    }
+
+    @Test
+    public void locale() {
+        final Report localized = new JsonTemplate("""
+            {
+                "pageFormat": {"pageLength": 3},
+                "template": [
+                    "Total ${total:number}",
+                    {"table": "rows", "columns": [{"source": "amount::number", "width": 10, "caption": "Amount"}]}
+                ]
+            }
+            """).parse();
+        final Map<String, Object> map = new HashMap<>();
+        map.put("total", 1234.5);
+        map.put("rows", List.of(Map.of("amount", 9876.5)));
+        final BatchFillJob batchFillJob = new BatchFillJob(localized);
+        batchFillJob.setExecutor(executor);
+        batchFillJob.setLocale(Locale.GERMANY);
+        final byte[] result = batchFillJob.fill(List.<DataSource[]>of(new DataSource[] {new MapDataSource(map)}))
+            .get(0);
+        assertEquals(INIT + "Total 1.234,5" + CRLF + "Amount    " + CRLF + "9.876,5   " + CRLF + CRFF + INIT,
+            new String(result, StandardCharsets.ISO_8859_1));
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.fill;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import simple.escp.data.BeanDataSource;
+import simple.escp.data.DataSource;
+import simple.escp.data.MapDataSource;
+
+public class DataSourceBindingTest {
+
+    @Test
+    public void lazyLookup() {
+        final Customer customer = new Customer();
+        final DataSourceBinding binding = new DataSourceBinding(new DataSource[] {new BeanDataSource(customer)});
+        assertEquals(0, customer.nameCount);
+        assertEquals(0, customer.ordersCount);
+
+        assertEquals("Jocki", binding.get("name"));
+        assertEquals("Jocki", binding.get("name"));
+        assertEquals(1, customer.nameCount);
+        assertEquals(0, customer.ordersCount);
+        assertSame(customer, binding.get("bean"));
+    }
+
+    @Test
+    public void withoutMemoize() {
+        final Customer customer = new Customer();
+        final DataSourceBinding binding = new DataSourceBinding(new DataSource[] {new BeanDataSource(customer)},
+            false);
+        binding.get("name");
+        binding.get("name");
+        assertEquals(2, customer.nameCount);
+    }
+
+    @Test
+    public void precedence() {
+        final Map<String, Object> first = new HashMap<>();
+        first.put("name", null);
+        first.put("city", "Pontianak");
+        final Map<String, Object> second = new HashMap<>();
+        second.put("name", "Jocki");
+        second.put("city", "Jakarta");
+        final DataSourceBinding binding = new DataSourceBinding(new DataSource[] {
+            new MapDataSource(first), new MapDataSource(second)});
+
+        assertEquals("Jocki", binding.get("name"));
+        assertEquals("Pontianak", binding.get("city"));
+        assertTrue(binding.containsKey("city"));
+        assertFalse(binding.containsKey("unknown"));
+        assertNull(binding.get("unknown"));
+
+        binding.put("city", "Bandung");
+        assertEquals("Bandung", binding.get("city"));
+        binding.remove("name");
+        assertFalse(binding.containsKey("name"));
+        assertEquals(2, binding.size());
+    }
+
+    public static class Customer {
+
+        private int nameCount;
+        private int ordersCount;
+
+        public String getName() {
+            nameCount++;
+            return "Jocki";
+        }
+
+        public int getOrders() {
+            ordersCount++;
+            return 10;
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.fill;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import simple.escp.dom.Line;
+import simple.escp.dom.Page;
+import simple.escp.dom.Report;
+import simple.escp.dom.line.TextLine;
+
+public class PagedLineWriterTest {
+
+    @Test
+    public void repeatHeaderAndFooter() {
+        final Report report = new Report(6, new TextLine[] {new TextLine("Page Header")}, null);
+        report.append(new TextLine("Line 1"), false);
+        report.append(new TextLine("Line 2"), false);
+
+        final PagedLineWriter writer = new PagedLineWriter(report, 1, 3,
+            new TextLine[] {new TextLine("Table Header")}, new TextLine[] {new TextLine("Table Footer")}, "table");
+        for (int i = 1; i <= 4; i++) {
+            writer.append(new TextLine("Row " + i));
+        }
+        final List<Line> lines = writer.close();
+
+        assertEquals(8, lines.size());
+        assertEquals(2, report.getNumberOfPages());
+        final Page first = report.getPage(1);
+        assertEquals("Page Header", first.getLine(1).toString());
+        assertEquals("Line 1", first.getLine(2).toString());
+        assertEquals("Table Header", first.getLine(3).toString());
+        assertEquals("Row 1", first.getLine(4).toString());
+        assertEquals("Row 2", first.getLine(5).toString());
+        assertEquals("Table Footer", first.getLine(6).toString());
+        final Page second = report.getPage(2);
+        assertEquals("Page Header", second.getLine(1).toString());
+        assertEquals("Table Header", second.getLine(2).toString());
+        assertEquals("Row 3", second.getLine(3).toString());
+        assertEquals("Row 4", second.getLine(4).toString());
+        assertEquals("Table Footer", second.getLine(5).toString());
+        assertEquals("Line 2", second.getLine(6).toString());
+    }
+
+    @Test
+    public void pageHeaderAndPageFooter() {
+        final Report report = new Report(5, null, null);
+        report.append(new TextLine("Line 1"), false);
+        final int[] pages = {1};
+        final PagedLineWriter.PageFiller filler = new PagedLineWriter.PageFiller() {
+            @Override
+            public TextLine fill(TextLine line) {
+                return new TextLine(line.getText() + " " + pages[0]);
+            }
+
+            @Override
+            public void endPage() {
+                pages[0]++;
+            }
+        };
+        final PagedLineWriter writer = new PagedLineWriter(report, 1, 1, new TextLine[] {new TextLine("Header")},
+            new TextLine[0], new TextLine[] {new TextLine("Continued")}, new TextLine[] {new TextLine("Subtotal")},
+            filler, "table");
+        for (int i = 1; i <= 4; i++) {
+            writer.append(new TextLine("Row " + i));
+        }
+        writer.close();
+
+        assertEquals(2, report.getNumberOfPages());
+        final Page first = report.getPage(1);
+        assertEquals("Header", first.getLine(1).toString());
+        assertEquals("Row 3", first.getLine(4).toString());
+        assertEquals("Subtotal 1", first.getLine(5).toString());
+        final Page second = report.getPage(2);
+        assertEquals("Header", second.getLine(1).toString());
+        assertEquals("Continued 2", second.getLine(2).toString());
+        assertEquals("Row 4", second.getLine(3).toString());
+        assertEquals("Subtotal 2", second.getLine(4).toString());
+        assertEquals("Line 1", second.getLine(5).toString());
+    }
+
+    @Test
+    public void notEnoughLines() {
+        final Report report = new Report(4, null, null);
+        report.append(new TextLine("Line 1"), false);
+        report.append(new TextLine("Line 2"), false);
+        report.append(new TextLine("Line 3"), false);
+        assertThrows(IllegalArgumentException.class, () -> new PagedLineWriter(report, 1, 4,
+            new TextLine[] {new TextLine("Header")}, new TextLine[] {new TextLine("Footer")}, "list"));
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.fill;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static simple.escp.util.EscpUtil.CRFF;
+import static simple.escp.util.EscpUtil.CRLF;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+
+import org.junit.jupiter.api.Test;
+
+import simple.escp.data.DataSource;
+import simple.escp.data.MapDataSource;
+import simple.escp.json.JsonTemplate;
+import simple.escp.placeholder.CompiledScriptCache;
+import simple.escp.util.EscpUtil;
+
+public class PooledScriptEngineProviderTest {
+
+    private final String INIT = EscpUtil.escInitalize();
+
+    @Test
+    public void reuseEngine() {
+        final PooledScriptEngineProvider provider = new PooledScriptEngineProvider(2, "groovy");
+        assertNotNull(provider.getFactory());
+        assertEquals(1, provider.getIdleCount());
+
+        final ScriptEngine engine = provider.acquire();
+        assertEquals(0, provider.getIdleCount());
+        engine.put("name", "Jocki");
+        provider.release(engine);
+
+        assertSame(engine, provider.acquire());
+        assertNull(engine.get("name"));
+        assertNull(engine.getBindings(ScriptContext.GLOBAL_SCOPE).get("name"));
+    }
+
+    @Test
+    public void maxIdle() {
+        final PooledScriptEngineProvider provider = new PooledScriptEngineProvider(2, "groovy");
+        provider.warmUp(5);
+        assertEquals(2, provider.getIdleCount());
+        final ScriptEngine first = provider.acquire();
+        final ScriptEngine second = provider.acquire();
+        final ScriptEngine third = provider.acquire();
+        provider.release(first);
+        provider.release(second);
+        provider.release(third);
+        assertEquals(2, provider.getIdleCount());
+        assertThrows(IllegalArgumentException.class, () -> new PooledScriptEngineProvider(0, "groovy"));
+    }
+
+    @Test
+    public void discardedEngineLeavesScriptCache() throws Exception {
+        final CompiledScriptCache defaultCache = CompiledScriptCache.getDefault();
+        final CompiledScriptCache cache = new CompiledScriptCache(10);
+        CompiledScriptCache.setDefault(cache);
+        try {
+            final PooledScriptEngineProvider provider = new PooledScriptEngineProvider(1, "groovy");
+            final ScriptEngine first = provider.acquire();
+            final ScriptEngine second = provider.acquire();
+            cache.get(first, "rate * 2");
+            cache.get(second, "rate * 2");
+            assertEquals(2, cache.size());
+            provider.release(first);
+            assertEquals(2, cache.size());
+            provider.release(second);
+            assertEquals(1, cache.size());
+        } finally {
+            CompiledScriptCache.setDefault(defaultCache);
+        }
+    }
+
+    @Test
+    public void retiredEngineIsReplaced() throws Exception {
+        final CompiledScriptCache defaultCache = CompiledScriptCache.getDefault();
+        final CompiledScriptCache cache = new CompiledScriptCache(2);
+        CompiledScriptCache.setDefault(cache);
+        try {
+            final PooledScriptEngineProvider provider = new PooledScriptEngineProvider(1, "groovy");
+            final ScriptEngine engine = provider.acquire();
+            cache.get(engine, "rate * 2");
+            cache.get(engine, "rate * 2");
+            provider.release(engine);
+            assertSame(engine, provider.acquire());
+
+            cache.get(engine, "rate * 3");
+            assertTrue(cache.isRetired(engine));
+            provider.release(engine);
+            assertEquals(0, provider.getIdleCount());
+            assertEquals(0, cache.size());
+            final ScriptEngine newEngine = provider.acquire();
+            assertNotNull(newEngine);
+            assertNotSame(engine, newEngine);
+            assertFalse(cache.isRetired(newEngine));
+        } finally {
+            CompiledScriptCache.setDefault(defaultCache);
+        }
+    }
+
+    @Test
+    public void unknownEngine() {
+        final PooledScriptEngineProvider provider = new PooledScriptEngineProvider(1, "unknown");
+        assertNull(provider.getFactory());
+        assertNull(provider.acquire());
+    }
+
+    @Test
+    public void fillWithProvider() {
+        final PooledScriptEngineProvider pool = new PooledScriptEngineProvider(1, "groovy");
+        final AtomicInteger acquired = new AtomicInteger();
+        final AtomicInteger released = new AtomicInteger();
+        final ScriptEngineProvider provider = new ScriptEngineProvider() {
+            @Override
+            public ScriptEngine acquire() {
+                acquired.incrementAndGet();
+                return pool.acquire();
+            }
+
+            @Override
+            public void release(final ScriptEngine engine) {
+                released.incrementAndGet();
+                pool.release(engine);
+            }
+        };
+        final String jsonString =
+        """
+            {\
+            "pageFormat": {\
+            "pageLength": 3\
+            },\
+            "template": [\
+            "First Line",\
+            {\
+            "list": "lines",\
+            "line": "This is ${line}"\
+            },\
+            "{{name}} {{custom}}"\
+            ]\
+            }""";
+        final Map<String, Object> line = new HashMap<>();
+        line.put("line", "Tom");
+        final Map<String, Object> source = new HashMap<>();
+        source.put("name", "Jocki");
+        source.put("lines", Collections.singletonList(line));
+
+        for (int i = 0; i < 3; i++) {
+            final FillJob fillJob = new FillJob(new JsonTemplate(jsonString).parse(),
+                new DataSource[] {new MapDataSource(source)});
+            fillJob.setScriptEngineProvider(provider);
+            fillJob.addScriptVariable("custom", "ABC" + i);
+            assertEquals(
+                INIT +
+                "First Line" + CRLF +
+                "This is Tom" + CRLF +
+                "Jocki ABC" + i + CRLF +
+                CRFF + INIT,
+                fillJob.fill()
+            );
+        }
+        assertEquals(3, acquired.get());
+        assertEquals(3, released.get());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+}
@@ -30,6 +30,11 @@ import static simple.escp.util.EscpUtil.escSelectSubscript;
 import static simple.escp.util.EscpUtil.escSelectSuperscript;
 import static simple.escp.util.EscpUtil.escSelectUnderline;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 
 import org.junit.jupiter.api.Test;
@@ -38,7 +43,9 @@ import simple.escp.dom.Line;
 import simple.escp.dom.Page;
 import simple.escp.dom.Report;
 import simple.escp.fill.FillJob;
+import simple.escp.fill.function.BoldFunction;
 import simple.escp.fill.function.Function;
+import simple.escp.fill.function.FunctionRegistry;
 import simple.escp.util.EscpUtil;
 
 public class FunctionTest {
@@ -371,6 +378,15 @@ public class FunctionTest {
         );
     }
 
+    @Test
+    public void contextFunctionOutsideOfFill() {
+        final Function bold = new BoldFunction();
+        final Matcher matcher = bold.getPattern().matcher("%{BOLD}");
+        matcher.find();
+        assertEquals(escSelectBoldFont(), bold.process(matcher, null, null, null));
+        assertEquals(escSelectBoldFont(), bold.process(matcher, null, null, null));
+    }
+
     @Test
     public void customFunction() {
         final Function function = new CustomFunction();
@@ -387,11 +403,99 @@ public class FunctionTest {
         assertEquals(INIT + "Result: %{MY_CUSTOM}" + CRLF + CRFF + INIT, new FillJob(jsonTemplate.parse()).fill());
     }
 
+    @Test
+    public void mixedFunctions() {
+        final String jsonString =
+        "{" +
+            "\"template\": [" +
+                "\"%{BOLD}%{ITALIC}Page %{PAGE_NO}%{ITALIC}%{BOLD} %{65} %{ UNKNOWN } %{INC A}%{INC A}\"" +
+            "]" +
+        "}";
+
+        final JsonTemplate jsonTemplate = new JsonTemplate(jsonString);
+        assertEquals(
+            INIT +
+            escSelectBoldFont() + escSelectItalicFont() + "Page 1" + escCancelItalicFont() + escCancelBoldFont() +
+            " A %{ UNKNOWN } 12" + CRLF +
+            CRFF + INIT,
+            new FillJob(jsonTemplate.parse()).fill()
+        );
+    }
+
+    @Test
+    public void customFunctionWithDuplicateKeyword() {
+        final Function function = new CustomFunction("%\\{\\s*(BOLD)\\s*(\\d+)\\s*\\}", "BOLD");
+        FillJob.addFunction(function);
+        try {
+            final String jsonString =
+            "{" +
+                "\"template\": [\"%{BOLD}Result: %{BOLD 1}%{BOLD}\"]" +
+            "}";
+
+            final JsonTemplate jsonTemplate = new JsonTemplate(jsonString);
+            assertEquals(
+                INIT + escSelectBoldFont() + "Result: MyCustomResult" + escCancelBoldFont() + CRLF + CRFF + INIT,
+                new FillJob(jsonTemplate.parse()).fill()
+            );
+        } finally {
+            FillJob.removeFunction(function);
+        }
+    }
+
+    @Test
+    public void functionsForOneFillJob() {
+        final Function function = new CustomFunction();
+        final String jsonString =
+        "{" +
+            "\"template\": [\"Result: %{MY_CUSTOM} %{BOLD}\"]" +
+        "}";
+
+        final JsonTemplate jsonTemplate = new JsonTemplate(jsonString);
+        final FillJob fillJob = new FillJob(jsonTemplate.parse());
+        fillJob.setFunctions(FunctionRegistry.DEFAULT.with(function).without(FunctionRegistry.DEFAULT.getFunction("BOLD")));
+        assertEquals(INIT + "Result: MyCustomResult %{BOLD}" + CRLF + CRFF + INIT, fillJob.fill());
+        assertEquals(INIT + "Result: %{MY_CUSTOM} " + escSelectBoldFont() + CRLF + CRFF + INIT,
+            new FillJob(jsonTemplate.parse()).fill());
+    }
+
+    @Test
+    public void concurrentFills() throws Exception {
+        final String jsonString =
+        "{" +
+            "\"template\": [" +
+                "\"%{BOLD}%{INC A}%{BOLD}\"," +
+                "\"%{ITALIC}%{INC A}%{ITALIC}\"" +
+            "]" +
+        "}";
+        final Report report = new JsonTemplate(jsonString).parse();
+        final String expected = INIT +
+            escSelectBoldFont() + "1" + escCancelBoldFont() + CRLF +
+            escSelectItalicFont() + "2" + escCancelItalicFont() + CRLF +
+            CRFF + INIT;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> new FillJob(report).fill()));
+            }
+            for (final Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     private static class CustomFunction extends Function {
 
         public CustomFunction() {
             super("%\\{\\s*(MY_CUSTOM)\\s*\\}");
         }
+
+        public CustomFunction(final String pattern, final String keyword) {
+            super(pattern, keyword);
+        }
         @Override
         public String process(final Matcher matcher, final Report report, final Page page, final Line line) {
             return "MyCustomResult";
@@ -15,6 +15,7 @@
  */
 package simple.escp.json;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static simple.escp.util.EscpUtil.CP347_LIGHT_DOWN_HORIZONTAL;
@@ -32,7 +33,12 @@ import static simple.escp.util.EscpUtil.CRFF;
 import static simple.escp.util.EscpUtil.CRLF;
 import static simple.escp.util.EscpUtil.escPageLength;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -137,6 +143,100 @@ public class JsonTemplateFillTest {
             new FillJob(jsonTemplate.parse(), new BeanDataSource(person)).fill());
     }
 
+    @Test
+    public void fillTableWithPageTotals() {
+        final Report report = new JsonTemplate("""
+            {
+                "pageFormat": {"pageLength": 6},
+                "template": [
+                    "Statement of ${name}",
+                    {
+                        "table": "rows",
+                        "columns": [
+                            {"source": "item", "width": 10},
+                            {"source": "amount::6::right", "width": 6, "caption": "Amount"}
+                        ],
+                        "totals": [
+                            {"name": "pageTotal", "source": "amount", "aggregate": "sum"},
+                            {"name": "pageCount", "source": "amount", "aggregate": "count"},
+                            {"name": "carried", "source": "amount", "aggregate": "sum", "running": true}
+                        ],
+                        "pageHeader": ["Brought forward${carried:integer:6:right}"],
+                        "pageFooter": [
+                            "Page total (${pageCount})${pageTotal:integer:6:right}",
+                            "Carried forward${carried:integer:6:right}"
+                        ]
+                    }
+                ]
+            }
+            """).parse();
+        final List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            rows.add(Map.of("item", "Item " + i, "amount", i * 10));
+        }
+        final Map<String, Object> source = new HashMap<>();
+        source.put("name", "Jocki");
+        source.put("rows", rows);
+        assertEquals(
+            INIT +
+            "Statement of Jocki" + CRLF +
+            "item      Amount" + CRLF +
+            "Item 1        10" + CRLF +
+            "Item 2        20" + CRLF +
+            "Page total (2)    30" + CRLF +
+            "Carried forward    30" + CRLF + CRFF +
+            "item      Amount" + CRLF +
+            "Brought forward    30" + CRLF +
+            "Item 3        30" + CRLF +
+            "Item 4        40" + CRLF +
+            "Page total (2)    70" + CRLF +
+            "Carried forward   100" + CRLF + CRFF +
+            "item      Amount" + CRLF +
+            "Brought forward   100" + CRLF +
+            "Item 5        50" + CRLF +
+            "Page total (1)    50" + CRLF +
+            "Carried forward   150" + CRLF +
+            CRFF + INIT,
+            new FillJob(report, DataSources.from(source)).fill());
+    }
+
+    @Test
+    public void fillSameTemplateTwiceWithLineNumbers() {
+        final Report report = new JsonTemplate("""
+            {
+                "pageFormat": {"pageLength": 3},
+                "template": [
+                    "Start",
+                    {
+                        "table": "rows",
+                        "columns": [{"source": "item", "width": 10}]
+                    },
+                    "X %{LINE_NO}",
+                    "Line %{LINE_NO} global %{GLOBAL_LINE_NO}",
+                    "Y %{LINE_NO} global %{GLOBAL_LINE_NO}"
+                ]
+            }
+            """).parse();
+        final List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            rows.add(Map.of("item", "Item " + i));
+        }
+        final String threeRows =
+            INIT +
+            "Start" + CRLF + "item      " + CRLF + "Item 1    " + CRLF + CRFF +
+            "item      " + CRLF + "Item 2    " + CRLF + "Item 3    " + CRLF + CRFF +
+            "X 1" + CRLF + "Line 2 global 8" + CRLF + "Y 3 global 9" + CRLF +
+            CRFF + INIT;
+        final String noRows =
+            INIT +
+            "Start" + CRLF + "item      " + CRLF + "X 3" + CRLF + CRFF +
+            "Line 1 global 4" + CRLF + "Y 2 global 5" + CRLF +
+            CRFF + INIT;
+        assertEquals(threeRows, new FillJob(report, DataSources.from(Map.of("rows", rows))).fill());
+        assertEquals(noRows, new FillJob(report, DataSources.from(Map.of("rows", List.of()))).fill());
+        assertEquals(threeRows, new FillJob(report, DataSources.from(Map.of("rows", rows))).fill());
+    }
+
     @Test
     public void fillOneTable() throws URISyntaxException, IOException {
         final JsonTemplate jsonTemplate = new JsonTemplate(getClass().getResource("/single_table.json").toURI());
@@ -161,6 +261,49 @@ public class JsonTemplateFillTest {
         );
     }
 
+    @Test
+    public void fillToStream() throws URISyntaxException, IOException {
+        final JsonTemplate jsonTemplate = new JsonTemplate(getClass().getResource("/single_table.json").toURI());
+        final List<Person> persons = new ArrayList<>();
+        persons.add(new Person("None", "David", "None"));
+        persons.add(new Person("David", "Solid", "Snake"));
+        persons.add(new Person("Snake", "Jocki", "Hendry"));
+        final Map<String, Object> source = new HashMap<>();
+        source.put("persons", persons);
+        final Report report = jsonTemplate.parse();
+        final byte[] expected = new FillJob(report, DataSources.from(source)).fill()
+            .getBytes(StandardCharsets.ISO_8859_1);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new FillJob(report, DataSources.from(source)).fill(out);
+        assertArrayEquals(expected, out.toByteArray());
+
+        final ByteArrayOutputStream channelOut = new ByteArrayOutputStream();
+        final List<Integer> writes = new ArrayList<>();
+        final WritableByteChannel channel = new WritableByteChannel() {
+            private final WritableByteChannel delegate = Channels.newChannel(channelOut);
+
+            @Override
+            public int write(final ByteBuffer src) throws IOException {
+                writes.add(src.remaining());
+                return delegate.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+                // do nothing
+            }
+        };
+        new FillJob(report, DataSources.from(source)).fill(channel, StandardCharsets.ISO_8859_1);
+        assertArrayEquals(expected, channelOut.toByteArray());
+        assertEquals(4, writes.size(), "Every page and the trailing commands should be written separately");
+    }
+
     @Test
     public void fillOneTableWithOverflowedString() throws URISyntaxException, IOException {
         final JsonTemplate jsonTemplate = new JsonTemplate(getClass().getResource("/single_table.json").toURI());
@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.placeholder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class AggregationTest {
+
+    @Test
+    public void integers() {
+        final Aggregation aggregation = Aggregation.of(Arrays.asList(10, 20L, (short) 30, (byte) -5));
+        assertEquals(new BigDecimal("55.0"), aggregation.getSum());
+        assertEquals(4, aggregation.getCount());
+        assertEquals(new BigDecimal("13.75"), aggregation.getAverage());
+        assertEquals((byte) -5, aggregation.getMin());
+        assertEquals((short) 30, aggregation.getMax());
+    }
+
+    @Test
+    public void overflow() {
+        final Aggregation aggregation = Aggregation.of(Arrays.asList(Long.MAX_VALUE, Long.MAX_VALUE, 2L));
+        assertEquals(new BigDecimal(BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.TWO).add(BigInteger.TWO))
+            .setScale(1), aggregation.getSum());
+    }
+
+    @Test
+    public void exactDecimals() {
+        final Aggregation aggregation = new Aggregation();
+        for (int i = 0; i < 1000; i++) {
+            aggregation.add(new BigDecimal("0.01"));
+        }
+        aggregation.add(new BigDecimal("12345678901234567890.12"));
+        assertEquals(new BigDecimal("12345678901234567900.12"), aggregation.getSum());
+        assertEquals(new BigDecimal("12345678901234567890.12"), aggregation.getMax());
+        assertEquals(new BigDecimal("0.01"), aggregation.getMin());
+    }
+
+    @Test
+    public void doubles() {
+        final Aggregation aggregation = new Aggregation();
+        for (int i = 0; i < 10; i++) {
+            aggregation.add(0.1);
+        }
+        assertEquals(new BigDecimal("1.0"), aggregation.getSum());
+        assertEquals(new BigDecimal("0.1"), aggregation.getAverage());
+
+        aggregation.add(new BigDecimal("2.25"));
+        aggregation.add(3);
+        assertEquals(new BigDecimal("6.25"), aggregation.getSum());
+        assertEquals(0.1, aggregation.getMin());
+        assertEquals(3, aggregation.getMax());
+    }
+
+    @Test
+    public void doublesAreSummedExactly() {
+        final Aggregation aggregation = Aggregation.of(Arrays.asList(0.1, 0.2));
+        assertEquals(new BigDecimal("0.3"), aggregation.getSum());
+        assertEquals(new BigDecimal("0.15"), aggregation.getAverage());
+        assertEquals("0.3", new BasicPlaceholder("items:sum").getFormatted(Arrays.asList(0.1, 0.2)).toString());
+        assertEquals(new BigDecimal("1.1"), Aggregation.of(Arrays.asList(1, 0.1f)).getSum());
+    }
+
+    @Test
+    public void emptyAndInvalid() {
+        final Aggregation empty = Aggregation.of(Collections.emptyList());
+        assertEquals(0, empty.get(Aggregate.COUNT));
+        assertEquals(BigDecimal.ZERO, empty.get(Aggregate.SUM));
+        assertEquals("0", new BasicPlaceholder("items:sum").getFormatted(Collections.emptyList()).toString());
+        assertNull(empty.get(Aggregate.AVG));
+        assertNull(empty.get(Aggregate.MIN));
+
+        final Aggregation invalid = Aggregation.of(Arrays.asList(1, "x", 2));
+        assertEquals(3, invalid.get(Aggregate.COUNT));
+        assertThrows(IllegalArgumentException.class, () -> invalid.get(Aggregate.SUM));
+        assertThrows(IllegalArgumentException.class, () -> invalid.get(Aggregate.MAX));
+
+        invalid.clear();
+        invalid.add(5);
+        assertEquals(new BigDecimal("5.0"), invalid.getSum());
+    }
+
+    @Test
+    public void placeholders() {
+        final CountingList items = new CountingList(Arrays.asList(10, 20, 30, 40));
+        final Aggregations aggregations = new Aggregations();
+        assertSame(aggregations.get(items), aggregations.get(items));
+        assertEquals(1, items.iterations);
+
+        final String[] texts = {"items:sum", "items:avg", "items:min", "items:max:5:right"};
+        final Object[] expected = {new BigDecimal("100.0"), new BigDecimal("25.0"), 10, "   40"};
+        for (int i = 0; i < texts.length; i++) {
+            final BasicPlaceholder placeholder = new BasicPlaceholder(texts[i]);
+            placeholder.setAggregations(aggregations);
+            assertEquals(expected[i], placeholder.getFormatted(items));
+        }
+        assertEquals(1, items.iterations);
+        assertEquals(Aggregate.AVG, new BasicPlaceholder("items:avg").getAggregate());
+        assertEquals(Aggregate.MIN, PlaceholderSpec.script("items::min::number").getAggregate());
+    }
+
+    private static class CountingList extends AbstractList<Object> {
+
+        private final List<Object> values;
+        private int iterations;
+
+        CountingList(List<Object> values) {
+            this.values = values;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            iterations++;
+            return values.iterator();
+        }
+
+        @Override
+        public Object get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+
+        @Override
+        public String toString() {
+            return "items";
+        }
+    }
+}
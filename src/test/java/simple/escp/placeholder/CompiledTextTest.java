@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.placeholder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class CompiledTextTest {
+
+    @Test
+    public void literalOnly() {
+        final CompiledText compiledText = CompiledText.compile("This is a literal text");
+        assertEquals(1, compiledText.getNumberOfSegments());
+        assertEquals(CompiledText.SegmentType.LITERAL, compiledText.getSegment(0).getType());
+        assertEquals("This is a literal text", compiledText.getSegment(0).getText());
+        assertFalse(compiledText.hasPlaceholder());
+        assertFalse(compiledText.hasFunction());
+    }
+
+    @Test
+    public void empty() {
+        assertEquals(0, CompiledText.compile("").getNumberOfSegments());
+        assertEquals(0, CompiledText.compile(null).getNumberOfSegments());
+    }
+
+    @Test
+    public void placeholders() {
+        final CompiledText compiledText = CompiledText.compile("Id ${id:10}, {{ name.toUpperCase() }}!");
+        assertTrue(compiledText.hasPlaceholder());
+        assertEquals(5, compiledText.getNumberOfSegments());
+        assertEquals(CompiledText.SegmentType.LITERAL, compiledText.getSegment(0).getType());
+        assertEquals("Id ", compiledText.getSegment(0).getText());
+        assertEquals(CompiledText.SegmentType.BASIC_PLACEHOLDER, compiledText.getSegment(1).getType());
+        assertEquals("id:10", compiledText.getSegment(1).getText());
+        assertEquals(3, compiledText.getSegment(1).getStart());
+        assertEquals(11, compiledText.getSegment(1).getEnd());
+        assertEquals(", ", compiledText.getSegment(2).getText());
+        assertEquals(CompiledText.SegmentType.SCRIPT_PLACEHOLDER, compiledText.getSegment(3).getType());
+        assertEquals(" name.toUpperCase() ", compiledText.getSegment(3).getText());
+        assertEquals("!", compiledText.getSegment(4).getText());
+    }
+
+    @Test
+    public void unclosedPlaceholders() {
+        final CompiledText compiledText = CompiledText.compile("$ {id} and { {name} } and ${name and {{ script");
+        assertFalse(compiledText.hasPlaceholder());
+        assertEquals(1, compiledText.getNumberOfSegments());
+    }
+
+    @Test
+    public void function() {
+        assertTrue(CompiledText.compile("Page %{PAGE_NO}").hasFunction());
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.placeholder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import simple.escp.util.StringUtil;
+
+public class PlaceholderSpecTest {
+
+    @Test
+    public void parseBasic() {
+        final PlaceholderSpec spec = PlaceholderSpec.basic(" total : sum : number : 12 : right ");
+        assertEquals("total", spec.getName());
+        assertTrue(spec.isSum());
+        assertFalse(spec.isCount());
+        assertEquals("number", spec.getFormatName());
+        assertEquals(12, spec.getWidth());
+        assertEquals(StringUtil.ALIGNMENT.RIGHT, spec.getAlignment());
+
+        final PlaceholderSpec simple = PlaceholderSpec.basic("name");
+        assertEquals("name", simple.getName());
+        assertEquals(0, simple.getWidth());
+        assertNull(simple.getFormatName());
+        assertNull(simple.getAlignment());
+        assertNull(simple.createFormat());
+    }
+
+    @Test
+    public void parseScript() {
+        final PlaceholderSpec spec = PlaceholderSpec.script("a > b ? 'x' : 'y'::count::99999999999::center");
+        assertEquals("a > b ? 'x' : 'y'", spec.getName());
+        assertTrue(spec.isCount());
+        assertEquals(0, spec.getWidth());
+        assertEquals(StringUtil.ALIGNMENT.CENTER, spec.getAlignment());
+    }
+
+    @Test
+    public void shared() {
+        assertSame(PlaceholderSpec.basic("price:currency:10"), PlaceholderSpec.basic("price:currency:10"));
+        assertNotSame(PlaceholderSpec.basic("price:10"), PlaceholderSpec.script("price:10"));
+        final PlaceholderSpec spec = PlaceholderSpec.basic("price:currency:10");
+        assertNotSame(spec.createFormat(), spec.createFormat());
+        assertNotSame(new BasicPlaceholder("price:currency:10").getFormat(),
+            new BasicPlaceholder("price:currency:10").getFormat());
+    }
+
+}
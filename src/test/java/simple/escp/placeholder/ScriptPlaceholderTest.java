@@ -16,6 +16,11 @@
 package simple.escp.placeholder;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
@@ -24,8 +29,12 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
 
 import org.junit.jupiter.api.Test;
 
@@ -131,6 +140,40 @@ public class ScriptPlaceholderTest {
         assertEquals("          ", placeholder.getValueAsString(null));
     }
 
+    @Test
+    public void compiledScriptCache() throws ScriptException {
+        final ScriptEngineManager scriptEngineManager = new ScriptEngineManager();
+        final ScriptEngine scriptEngine = scriptEngineManager.getEngineByName("groovy");
+        final ScriptEngine otherScriptEngine = scriptEngineManager.getEngineByName("groovy");
+        final CompiledScriptCache cache = new CompiledScriptCache(2);
+
+        final CompiledScript compiledScript = cache.get(scriptEngine, "rate * 2");
+        assertNotNull(compiledScript);
+        assertSame(compiledScript, cache.get(scriptEngine, "rate * 2"));
+        assertNotSame(compiledScript, cache.get(otherScriptEngine, "rate * 2"));
+        assertEquals(2, cache.size());
+
+        assertFalse(cache.isRetired(scriptEngine));
+        cache.get(scriptEngine, "rate * 3");
+        assertTrue(cache.isRetired(scriptEngine));
+        assertFalse(cache.isRetired(otherScriptEngine));
+        assertEquals(3, cache.size());
+        cache.get(scriptEngine, "rate * 4");
+        assertEquals(3, cache.size());
+        assertNotSame(compiledScript, cache.get(scriptEngine, "rate * 2"));
+
+        cache.remove(otherScriptEngine);
+        assertEquals(2, cache.size());
+
+        final SimpleBindings bindings = new SimpleBindings();
+        bindings.put("rate", 10);
+        scriptEngine.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+        final ScriptPlaceholder placeholder = new ScriptPlaceholder("rate * 2", scriptEngine);
+        assertEquals("20", placeholder.getValueAsString(null));
+        bindings.put("rate", 20);
+        assertEquals("40", placeholder.getValueAsString(null));
+    }
+
     public static class Student {
 
         private String name;
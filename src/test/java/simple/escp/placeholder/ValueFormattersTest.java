@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.placeholder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.DateFormat;
+import java.text.Format;
+import java.text.NumberFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import simple.escp.data.DataSource;
+import simple.escp.data.DataSources;
+import simple.escp.exception.InvalidPlaceholder;
+
+public class ValueFormattersTest {
+
+    @Test
+    public void shared() {
+        assertSame(ValueFormatters.get("number", Locale.GERMANY), ValueFormatters.get("number", Locale.GERMANY));
+        assertSame(ValueFormatters.get("number", null),
+            ValueFormatters.get("number", Locale.getDefault(Locale.Category.FORMAT)));
+        assertThrows(IllegalArgumentException.class, () -> ValueFormatters.get("unknown", Locale.US));
+    }
+
+    @Test
+    public void formatNumber() {
+        assertEquals(NumberFormat.getNumberInstance(Locale.GERMANY).format(1234567.891),
+            ValueFormatters.get("number", Locale.GERMANY).format(1234567.891));
+        assertEquals(NumberFormat.getCurrencyInstance(Locale.US).format(new BigDecimal("10.5")),
+            ValueFormatters.get("currency", Locale.US).format(new BigDecimal("10.5")));
+        assertThrows(IllegalArgumentException.class, () -> ValueFormatters.get("integer", Locale.US).format("x"));
+    }
+
+    @Test
+    public void formatTo() {
+        final Object[] values = {0, 7, -7, 1234567, -1234567, Long.MAX_VALUE, Long.MIN_VALUE, (short) 12, (byte) -3,
+            0.0, -0.0, 0.5, 1.5, 2.5, -2.5, 0.125, 0.135, 1.005, 2.675, 1234.5, -1234.5, 0.1, 0.29, 1e15, 1e20, 3e-7,
+            -0.0001, 1234567.891, Double.NaN, Double.POSITIVE_INFINITY, 12.5f, new BigDecimal("10.5"),
+            new BigDecimal("-0.0001"), new BigDecimal("0.125"), new BigDecimal("1.2E+3"),
+            new BigDecimal("123456789012345678.125"), new BigDecimal("99999.9999"), new BigInteger("42")};
+        final Random random = new java.util.Random(17);
+        for (Locale locale : new Locale[] {Locale.US, Locale.GERMANY, Locale.FRANCE, new Locale("ar", "EG"),
+            new Locale("th", "TH", "TH")}) {
+            for (String name : new String[] {"number", "integer", "currency"}) {
+                final ValueFormatter formatter = ValueFormatters.get(name, locale);
+                final Format expected = ValueFormatters.createFormat(name, locale);
+                for (Object value : values) {
+                    assertFormatTo(expected.format(value), formatter, value);
+                }
+                for (int i = 0; i < 1000; i++) {
+                    final double d = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12));
+                    assertFormatTo(expected.format(d), formatter, d);
+                    final long l = random.nextLong() >> random.nextInt(64);
+                    assertFormatTo(expected.format(l), formatter, l);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void formatToLargeDoubles() {
+        final double[] values = {1.189200798124629E13, -1.189200798124629E13, 4503599627370496.5, 9.007199254740993E15,
+            1.2345678901234567E17, 123456789012.3456, 99999999999999.99, 0.1 + 0.2};
+        assertFormatTo("11,892,007,981,246.29", ValueFormatters.get("number", Locale.US), 1.189200798124629E13);
+        final Random random = new Random(23);
+        for (String name : new String[] {"number", "integer", "currency"}) {
+            final ValueFormatter formatter = ValueFormatters.get(name, Locale.US);
+            final Format expected = ValueFormatters.createFormat(name, Locale.US);
+            for (double value : values) {
+                assertFormatTo(expected.format(value), formatter, value);
+            }
+            for (int i = 0; i < 1000; i++) {
+                final double d = (random.nextDouble() - 0.5) * Math.pow(10, 9 + random.nextInt(10));
+                assertFormatTo(expected.format(d), formatter, d);
+            }
+        }
+    }
+
+    private static void assertFormatTo(String expected, ValueFormatter formatter, Object value) {
+        final StringBuilder out = new StringBuilder("x");
+        formatter.formatTo(value, out);
+        assertEquals("x" + expected, out.toString(), "Formatting " + value);
+    }
+
+    @Test
+    public void appendFormatted() {
+        final BasicPlaceholder placeholder = new BasicPlaceholder("total:number:10:right");
+        placeholder.setLocale(Locale.GERMANY);
+        final StringBuilder out = new StringBuilder("Total ");
+        placeholder.appendFormatted(1234.5, out);
+        assertEquals("Total    1.234,5", out.toString());
+        assertEquals("   1.234,5", placeholder.getFormatted(1234.5));
+
+        final BasicPlaceholder truncated = new BasicPlaceholder("total:number:3");
+        truncated.setLocale(Locale.US);
+        out.setLength(0);
+        truncated.appendFormatted(-1234567L, out);
+        assertEquals("-1,", out.toString());
+
+        out.setLength(0);
+        assertThrows(InvalidPlaceholder.class, () -> truncated.appendFormatted("x", out));
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    public void formatDate() {
+        final LocalDate date = LocalDate.of(2024, 1, 2);
+        final ValueFormatter formatter = ValueFormatters.get("date_medium", Locale.US);
+        final DateTimeFormatter expected = DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM).withLocale(Locale.US);
+        assertEquals(expected.format(date), formatter.format(date));
+        assertEquals(expected.format(date), formatter.format(date.atTime(10, 30)));
+        final Instant instant = date.atStartOfDay(ZoneId.systemDefault()).toInstant();
+        assertEquals(expected.format(date), formatter.format(instant));
+        assertEquals(DateFormat.getDateInstance(DateFormat.MEDIUM, Locale.US).format(Date.from(instant)),
+            formatter.format(Date.from(instant)));
+        assertThrows(IllegalArgumentException.class, () -> formatter.format(LocalTime.NOON));
+    }
+
+    @Test
+    public void placeholderLocale() {
+        final Map<String, Object> map = new HashMap<>();
+        map.put("total", 1234.5);
+        map.put("date", LocalDateTime.of(2024, 1, 2, 10, 30));
+        final DataSource[] dataSources = new DataSource[] {DataSources.from(map)};
+
+        final BasicPlaceholder total = new BasicPlaceholder("total:number");
+        total.setLocale(Locale.GERMANY);
+        assertEquals("1.234,5", total.getValueAsString(dataSources));
+        total.setLocale(Locale.US);
+        assertEquals("1,234.5", total.getValueAsString(dataSources));
+
+        final BasicPlaceholder date = new BasicPlaceholder("date:date_short");
+        date.setLocale(Locale.US);
+        assertEquals(DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT).withLocale(Locale.US)
+            .format(LocalDate.of(2024, 1, 2)), date.getValueAsString(dataSources));
+        assertThrows(InvalidPlaceholder.class, () -> new BasicPlaceholder("total:date_short")
+            .getValueAsString(new DataSource[] {DataSources.from(Map.of("total", "x"))}));
+    }
+
+    @Test
+    public void concurrent() throws Exception {
+        final ValueFormatter formatter = ValueFormatters.get("number", Locale.US);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int offset = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        final long value = offset * 1000000L + i;
+                        if (!NumberFormat.getNumberInstance(Locale.US).format(value).equals(formatter.format(value))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertEquals(Boolean.TRUE, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import simple.escp.SimpleEscp;
+
+public class FilePrintSinkTest {
+
+    private Path directory;
+
+    @BeforeEach
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("simple-escp");
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void replace() throws IOException {
+        final Path file = directory.resolve("output.prn");
+        final FilePrintSink sink = new FilePrintSink(file, false);
+        sink.write(bytes("first document"));
+        sink.write(bytes("second"));
+        assertEquals("second", Files.readString(file, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void append() throws IOException {
+        final Path file = directory.resolve("output.prn");
+        final FilePrintSink sink = new FilePrintSink(file, true);
+        sink.write(bytes("first"));
+        sink.write(bytes("second"));
+        assertEquals("firstsecond", Files.readString(file, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void device() throws IOException {
+        final Path device = directory.resolve("lp0");
+        assertThrows(NoSuchFileException.class, () -> new DevicePrintSink(device).write(bytes("document")));
+
+        Files.write(device, bytes("0123456789"));
+        new DevicePrintSink(device).write(bytes("document"));
+        assertEquals("document89", Files.readString(device, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void samePathSharesPrintQueue() {
+        final FilePrintSink first = new FilePrintSink(directory.resolve("output.prn"), false);
+        final FilePrintSink second = new FilePrintSink(directory.resolve("sub/../output.prn"), true);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, new FilePrintSink(directory.resolve("other.prn"), false));
+        assertNotEquals(first, new DevicePrintSink(directory.resolve("output.prn")));
+        assertSame(new SimpleEscp(first).getPrintQueue(), new SimpleEscp(second).getPrintQueue());
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+}
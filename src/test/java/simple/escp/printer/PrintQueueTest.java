@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class PrintQueueTest {
+
+    @Test
+    public void printInOrder() throws Exception {
+        final List<Byte> printed = new CopyOnWriteArrayList<>();
+        try (PrintQueue queue = new PrintQueue("test", document -> printed.add(document[0]))) {
+            CompletableFuture<PrintResult> last = null;
+            for (int i = 0; i < 10; i++) {
+                last = queue.submit(new byte[] {(byte) i, 0});
+            }
+            final PrintResult result = last.get(5, TimeUnit.SECONDS);
+            assertEquals("test", result.getPrinterName());
+            assertEquals(2, result.getSize());
+            assertEquals(List.of((byte) 0, (byte) 1, (byte) 2, (byte) 3, (byte) 4, (byte) 5, (byte) 6, (byte) 7,
+                (byte) 8, (byte) 9), printed);
+            assertEquals(10, queue.getCompletedCount());
+            assertEquals(0, queue.getDepth());
+        }
+    }
+
+    @Test
+    public void reject() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try (PrintQueue queue = new PrintQueue("test", 1, PrintQueue.Backpressure.REJECT,
+                blockingPrinter(started, release))) {
+            final CompletableFuture<PrintResult> first = queue.submit(new byte[] {1});
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            final CompletableFuture<PrintResult> second = queue.submit(new byte[] {2});
+            final CompletableFuture<PrintResult> third = queue.submit(new byte[] {3});
+            assertEquals(1, queue.getDepth());
+            ExecutionException e = assertThrows(ExecutionException.class, third::get);
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+            assertEquals(1, queue.getRejectedCount());
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            assertEquals(2, queue.getCompletedCount());
+        }
+    }
+
+    @Test
+    public void dropOldest() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Byte> printed = new CopyOnWriteArrayList<>();
+        try (PrintQueue queue = new PrintQueue("test", 2, PrintQueue.Backpressure.DROP_OLDEST, document -> {
+                started.countDown();
+                release.await();
+                printed.add(document[0]);
+            })) {
+            queue.submit(new byte[] {1});
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            final CompletableFuture<PrintResult> second = queue.submit(new byte[] {2});
+            queue.submit(new byte[] {3});
+            final CompletableFuture<PrintResult> fourth = queue.submit(new byte[] {4});
+            assertThrows(CancellationException.class, second::get);
+            assertTrue(second.isCancelled());
+            assertEquals(1, queue.getDroppedCount());
+
+            release.countDown();
+            fourth.get(5, TimeUnit.SECONDS);
+            assertEquals(List.of((byte) 1, (byte) 3, (byte) 4), printed);
+        }
+    }
+
+    @Test
+    public void failureAndClose() throws Exception {
+        final PrintQueue queue = new PrintQueue("test", 10, PrintQueue.Backpressure.BLOCK, document -> {
+            if (document.length == 0) {
+                throw new IOException("Printer is offline.");
+            }
+        });
+        final CompletableFuture<PrintResult> failed = queue.submit(new byte[0]);
+        final CompletableFuture<PrintResult> printed = queue.submit(new byte[] {1});
+        queue.close();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IOException);
+        assertEquals(1, printed.get(5, TimeUnit.SECONDS).getSize());
+        assertEquals(1, queue.getFailedCount());
+
+        e = assertThrows(ExecutionException.class, () -> queue.submit(new byte[] {2}).get());
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertTrue(queue.getMaxWaitTime().compareTo(queue.getAverageWaitTime()) >= 0);
+    }
+
+    @Test
+    public void closeRejectsBlockedSubmitter() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try (PrintQueue queue = new PrintQueue("test", 1, PrintQueue.Backpressure.BLOCK,
+                blockingPrinter(started, release))) {
+            final CompletableFuture<PrintResult> first = queue.submit(new byte[] {1});
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            final CompletableFuture<PrintResult> second = queue.submit(new byte[] {2});
+            final CompletableFuture<CompletableFuture<PrintResult>> third =
+                CompletableFuture.supplyAsync(() -> queue.submit(new byte[] {3}));
+            Thread.sleep(100);
+            assertFalse(third.isDone());
+
+            queue.close();
+            ExecutionException e = assertThrows(ExecutionException.class,
+                () -> third.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            assertEquals(2, queue.getCompletedCount());
+        }
+    }
+
+    @Test
+    public void interruptedWorkerRejectsWaitingDocuments() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final PrintQueue queue = new PrintQueue("test", 10, PrintQueue.Backpressure.BLOCK, document -> {
+            started.countDown();
+            release.await();
+            Thread.currentThread().interrupt();
+        });
+        final CompletableFuture<PrintResult> first = queue.submit(new byte[] {1});
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final CompletableFuture<PrintResult> second = queue.submit(new byte[] {2});
+        final CompletableFuture<PrintResult> third = queue.submit(new byte[] {3});
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<PrintResult> future : List.of(second, third)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertTrue(queue.isClosed());
+        assertEquals(2, queue.getRejectedCount());
+    }
+
+    @Test
+    public void closeStopsIdleWorker() throws Exception {
+        final CompletableFuture<Thread> worker = new CompletableFuture<>();
+        final PrintQueue queue = new PrintQueue("test", 10, PrintQueue.Backpressure.BLOCK, document -> {
+            worker.complete(Thread.currentThread());
+            Thread.sleep(1);
+        });
+        queue.submit(new byte[] {1}).get(5, TimeUnit.SECONDS);
+        assertTrue(queue.getAveragePrintTime().compareTo(Duration.ofMillis(1)) >= 0);
+        final Thread thread = worker.get(5, TimeUnit.SECONDS);
+        assertTrue(thread.isAlive());
+
+        queue.close();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertEquals(1, queue.getCompletedCount());
+        assertEquals(0, queue.getRejectedCount());
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PrintQueue("test", 0,
+            PrintQueue.Backpressure.BLOCK, document -> { }));
+        assertThrows(IllegalArgumentException.class, () -> new PrintQueue("test", 1, null, document -> { }));
+        assertThrows(IllegalArgumentException.class, () -> new PrintQueue("test", 1,
+            PrintQueue.Backpressure.BLOCK, null));
+    }
+
+    private static PrintQueue.DocumentPrinter blockingPrinter(CountDownLatch started, CountDownLatch release) {
+        return document -> {
+            started.countDown();
+            release.await();
+        };
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import simple.escp.SimpleEscp;
+import simple.escp.util.EscpUtil;
+
+public class PrinterPoolTest {
+
+    private static final String SHORT = "Pick ticket\r\n\r\f";
+    private static final String LONG = "Statement line\r\n".repeat(100) + "\r\f";
+
+    @Test
+    public void estimate() {
+        final PrintTimeEstimator estimator = new PrintTimeEstimator(100, Duration.ofMillis(10), Duration.ofMillis(500),
+            Duration.ZERO);
+        assertEquals(Duration.ofMillis(1000 + 20 + 500),
+            estimator.estimate(bytes("x".repeat(50) + "\r\n" + "x".repeat(50) + "\r\n\r\f"),
+                EscpUtil.CHARACTER_PITCH.CPI_10));
+        assertEquals(Duration.ofMillis(500 + 20 + 500),
+            estimator.estimate(bytes("x".repeat(50) + "\r\n" + "x".repeat(50) + "\r\n\r\f"),
+                EscpUtil.CHARACTER_PITCH.CPI_20));
+    }
+
+    @Test
+    public void routeToLeastLoaded() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingSink first = new RecordingSink("first", release);
+        final RecordingSink second = new RecordingSink("second", release);
+        try (PrinterPool pool = new PrinterPool(Arrays.asList(new SimpleEscp(first), new SimpleEscp(second)))) {
+            assertEquals(2, pool.size());
+            final CompletableFuture<PrintResult> statement = pool.submit(LONG);
+            final CompletableFuture<PrintResult> ticket1 = pool.submit(SHORT);
+            final CompletableFuture<PrintResult> ticket2 = pool.submit(SHORT);
+            assertTrue(pool.getExpectedLoad(0).compareTo(pool.getExpectedLoad(1)) > 0);
+
+            release.countDown();
+            assertEquals("first", statement.get(5, TimeUnit.SECONDS).getPrinterName());
+            assertEquals("second", ticket1.get(5, TimeUnit.SECONDS).getPrinterName());
+            assertEquals("second", ticket2.get(5, TimeUnit.SECONDS).getPrinterName());
+        }
+    }
+
+    @Test
+    public void shortestJobFirst() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingSink sink = new RecordingSink("printer", release);
+        try (PrinterPool pool = new PrinterPool(List.of(new SimpleEscp(sink)))) {
+            pool.submit("first" + LONG);
+            assertTrue(sink.started.await(5, TimeUnit.SECONDS));
+            pool.submit("second" + LONG);
+            pool.submit("third" + SHORT);
+            final CompletableFuture<PrintResult> last = pool.submit("fourth" + LONG);
+            assertEquals(3, pool.getDepth(0));
+
+            release.countDown();
+            last.get(5, TimeUnit.SECONDS);
+            assertEquals(List.of("first", "third", "second", "fourth"), sink.printed);
+            assertEquals(Duration.ZERO, pool.getExpectedLoad(0));
+        }
+    }
+
+    @Test
+    public void agingPrintsLongWaitingDocumentFirst() throws Exception {
+        for (double agingFactor : new double[] {0, 1000}) {
+            final CountDownLatch release = new CountDownLatch(1);
+            final RecordingSink sink = new RecordingSink("printer", release);
+            try (PrinterPool pool = new PrinterPool(List.of(new SimpleEscp(sink)), new PrintTimeEstimator(),
+                    agingFactor)) {
+                pool.submit("first" + LONG);
+                assertTrue(sink.started.await(5, TimeUnit.SECONDS));
+                final CompletableFuture<PrintResult> second = pool.submit("second" + LONG);
+                Thread.sleep(50);
+                final CompletableFuture<PrintResult> third = pool.submit("third" + SHORT);
+
+                release.countDown();
+                CompletableFuture.allOf(second, third).get(5, TimeUnit.SECONDS);
+                assertEquals(agingFactor == 0 ? List.of("first", "third", "second") :
+                    List.of("first", "second", "third"), sink.printed);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new PrinterPool(
+            List.of(new SimpleEscp(new RecordingSink("printer", null))), new PrintTimeEstimator(), -1));
+    }
+
+    @Test
+    public void sharePrintQueueOfPrinter() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingSink first = new RecordingSink("first", release);
+        final SimpleEscp printer = new SimpleEscp(first);
+        try (PrinterPool pool = new PrinterPool(List.of(printer, new SimpleEscp(new RecordingSink("second", null))));
+                PrinterPool single = new PrinterPool(List.of(printer))) {
+            final CompletableFuture<PrintResult> outside = printer.printAsync("outside" + LONG);
+            assertTrue(first.started.await(5, TimeUnit.SECONDS));
+            printer.printAsync("waiting" + SHORT);
+            assertEquals(1, pool.getDepth(0));
+            assertEquals("second", pool.submit("ticket" + SHORT).get(5, TimeUnit.SECONDS).getPrinterName());
+
+            single.submit("statement" + LONG);
+            final CompletableFuture<PrintResult> last = single.submit("last" + SHORT);
+            assertEquals(3, single.getDepth(0));
+
+            release.countDown();
+            outside.get(5, TimeUnit.SECONDS);
+            last.get(5, TimeUnit.SECONDS);
+            assertEquals(List.of("outside", "waiting", "statement", "last"), first.printed);
+            assertEquals(1, first.writers.size());
+            assertEquals(4, printer.getPrintQueue().getCompletedCount());
+        }
+    }
+
+    @Test
+    public void interruptedWorkerRejectsWaitingDocuments() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingSink sink = new RecordingSink("printer", release) {
+            @Override
+            public OutputStream open() {
+                final OutputStream out = super.open();
+                return new ByteArrayOutputStream() {
+                    @Override
+                    public void close() throws IOException {
+                        out.write(toByteArray());
+                        out.close();
+                        Thread.currentThread().interrupt();
+                    }
+                };
+            }
+        };
+        final PrinterPool pool = new PrinterPool(List.of(new SimpleEscp(sink)));
+        final CompletableFuture<PrintResult> first = pool.submit("first" + SHORT);
+        assertTrue(sink.started.await(5, TimeUnit.SECONDS));
+        final CompletableFuture<PrintResult> second = pool.submit("second" + SHORT);
+        final CompletableFuture<PrintResult> third = pool.submit("third" + LONG);
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<PrintResult> future : List.of(second, third)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(Duration.ZERO, pool.getExpectedLoad(0));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> pool.submit(SHORT).get());
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void closed() {
+        final PrinterPool pool = new PrinterPool(List.of(new SimpleEscp(new RecordingSink("printer", null))));
+        pool.close();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> pool.submit(SHORT).get());
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertThrows(IllegalArgumentException.class, () -> new PrinterPool(List.of()));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static class RecordingSink implements PrintSink {
+
+        private final String name;
+        private final CountDownLatch release;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final List<String> printed = new CopyOnWriteArrayList<>();
+        private final Set<Thread> writers = ConcurrentHashMap.newKeySet();
+
+        RecordingSink(String name, CountDownLatch release) {
+            this.name = name;
+            this.release = release;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public OutputStream open() {
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    writers.add(Thread.currentThread());
+                    started.countDown();
+                    try {
+                        if (release != null) {
+                            release.await();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    final String text = toString(StandardCharsets.ISO_8859_1);
+                    printed.add(text.substring(0, text.indexOf(text.contains("Pick") ? "Pick" : "Statement")));
+                }
+            };
+        }
+    }
+
+}
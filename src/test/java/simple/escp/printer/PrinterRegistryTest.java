@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.print.PrintService;
+import javax.print.attribute.AttributeSet;
+import javax.print.attribute.standard.PrinterName;
+
+import org.junit.jupiter.api.Test;
+
+public class PrinterRegistryTest {
+
+    private final PrintService epson = printService("EPSON LX-310");
+    private final PrintService oki = printService("OKI ML-1190");
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    @Test
+    public void cacheByName() {
+        try (PrinterRegistry registry = new PrinterRegistry(new FakeLookup(), null)) {
+            assertSame(epson, registry.lookup("EPSON LX-310"));
+            assertSame(epson, registry.lookup("EPSON LX-310"));
+            assertSame(oki, registry.lookup("OKI ML-1190"));
+            assertEquals(2, lookups.get());
+
+            assertEquals(2, registry.lookup((AttributeSet) null).length);
+            assertEquals(2, registry.lookup((AttributeSet) null).length);
+            assertEquals(3, lookups.get());
+
+            assertSame(epson, registry.getDefaultPrintService());
+            assertSame(epson, registry.getDefaultPrintService());
+            assertEquals(4, lookups.get());
+        }
+    }
+
+    @Test
+    public void doNotCacheMissingPrinter() {
+        try (PrinterRegistry registry = new PrinterRegistry(new FakeLookup(), null)) {
+            assertNull(registry.lookup("unknown"));
+            assertNull(registry.lookup("unknown"));
+            assertEquals(2, lookups.get());
+        }
+    }
+
+    @Test
+    public void invalidate() {
+        try (PrinterRegistry registry = new PrinterRegistry(new FakeLookup(), null)) {
+            registry.lookup("EPSON LX-310");
+            registry.lookup("OKI ML-1190");
+            registry.lookup((AttributeSet) null);
+            assertEquals(3, lookups.get());
+
+            registry.invalidate(epson);
+            registry.lookup("OKI ML-1190");
+            assertEquals(3, lookups.get());
+            registry.lookup("EPSON LX-310");
+            registry.lookup((AttributeSet) null);
+            assertEquals(5, lookups.get());
+
+            registry.refresh();
+            assertEquals(8, lookups.get());
+            registry.invalidateAll();
+            registry.lookup("OKI ML-1190");
+            assertEquals(9, lookups.get());
+        }
+    }
+
+    @Test
+    public void backgroundRefresh() throws Exception {
+        try (PrinterRegistry registry = new PrinterRegistry(new FakeLookup(), Duration.ofMillis(10))) {
+            registry.lookup("EPSON LX-310");
+            final long timeout = System.currentTimeMillis() + 5000;
+            while (lookups.get() < 3 && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            assertTrue(lookups.get() >= 3);
+        }
+    }
+
+    private static PrintService printService(String name) {
+        return (PrintService) Proxy.newProxyInstance(PrintService.class.getClassLoader(),
+            new Class<?>[] {PrintService.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getName":
+                    case "toString":
+                        return name;
+                    case "hashCode":
+                        return name.hashCode();
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                }
+            });
+    }
+
+    private class FakeLookup implements PrinterRegistry.ServiceLookup {
+
+        @Override
+        public PrintService[] lookupPrintServices(AttributeSet attributeSet) {
+            lookups.incrementAndGet();
+            if (attributeSet == null) {
+                return new PrintService[] {epson, oki};
+            }
+            final String name = ((PrinterName) attributeSet.get(PrinterName.class)).getValue();
+            for (PrintService printService : new PrintService[] {epson, oki}) {
+                if (printService.getName().equals(name)) {
+                    return new PrintService[] {printService};
+                }
+            }
+            return new PrintService[0];
+        }
+
+        @Override
+        public PrintService lookupDefaultPrintService() {
+            lookups.incrementAndGet();
+            return epson;
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.printer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import simple.escp.SimpleEscp;
+import simple.escp.fill.FillJob;
+import simple.escp.json.JsonTemplate;
+
+public class SocketPrintSinkTest {
+
+    @Test
+    public void writeDocuments() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final SocketPrintSink sink = new SocketPrintSink("127.0.0.1", server.getLocalPort());
+            assertTrue(sink.isTcpNoDelay());
+            assertEquals("127.0.0.1:" + server.getLocalPort(), sink.getName());
+
+            CompletableFuture<byte[]> received = receive(server);
+            try (OutputStream out = sink.open()) {
+                out.write("first".getBytes(StandardCharsets.ISO_8859_1));
+                out.write(" document".getBytes(StandardCharsets.ISO_8859_1));
+            }
+            assertEquals("first document", new String(received.get(5, TimeUnit.SECONDS),
+                StandardCharsets.ISO_8859_1));
+
+            received = receive(server);
+            assertNull(new SimpleEscp(sink).print("second document"));
+            assertEquals("second document", new String(received.get(5, TimeUnit.SECONDS),
+                StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    @Test
+    public void fillJob() throws Exception {
+        final JsonTemplate template = new JsonTemplate("""
+            {
+                "pageFormat": {"pageLength": 2},
+                "template": ["Line 1", "Line 2", "Line 3"]
+            }
+            """);
+        final FillJob fillJob = new FillJob(template.parse());
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        fillJob.fill(expected);
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final CompletableFuture<byte[]> received = receive(server);
+            fillJob.fill(new SocketPrintSink("127.0.0.1", server.getLocalPort(), 1000, false, 4));
+            assertArrayEquals(expected.toByteArray(), received.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new SocketPrintSink(""));
+        assertThrows(IllegalArgumentException.class, () -> new SocketPrintSink("localhost", 0));
+        assertThrows(IllegalArgumentException.class, () -> new SocketPrintSink("localhost", 9100, -1, true, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SocketPrintSink("localhost", 9100, 0, true, 0));
+    }
+
+    @Test
+    public void sameAddressSharesPrintQueue() {
+        final SocketPrintSink first = new SocketPrintSink("printer.local", 9100);
+        final SocketPrintSink second = new SocketPrintSink("PRINTER.local", 9100, 500, false, 16);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, new SocketPrintSink("printer.local", 9101));
+        assertSame(new SimpleEscp(first).getPrintQueue(), new SimpleEscp(second).getPrintQueue());
+    }
+
+    @Test
+    public void connectionRefused() throws IOException {
+        final int port;
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = server.getLocalPort();
+        }
+        assertThrows(IOException.class, () -> new SocketPrintSink("127.0.0.1", port, 1000, true, 16).open());
+    }
+
+    private static CompletableFuture<byte[]> receive(ServerSocket server) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Socket socket = server.accept(); InputStream in = socket.getInputStream()) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simple.escp.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import simple.escp.dom.PageFormat;
+
+public class EscpWriterTest {
+
+    @Test
+    public void write() throws IOException {
+        final String text = "A" + EscpUtil.CP347_LIGHT_VERTICAL + "é€😀" + EscpUtil.CRLF;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final EscpWriter writer = new EscpWriter(out, 2);
+        writer.write(text);
+        writer.flush();
+
+        assertArrayEquals(text.getBytes(StandardCharsets.ISO_8859_1), out.toByteArray());
+        assertArrayEquals(text.getBytes(StandardCharsets.ISO_8859_1), EscpWriter.toBytes(text));
+    }
+
+    @Test
+    public void inMemory() throws IOException {
+        final PageFormat pageFormat = new PageFormat();
+        pageFormat.setPageLength(10);
+        pageFormat.setUsePrinterPageLength(false);
+        final EscpWriter writer = new EscpWriter();
+        pageFormat.build(writer);
+        assertEquals(pageFormat.build(), writer.toString());
+
+        pageFormat.setPageLength(20);
+        pageFormat.build(writer);
+        assertEquals(EscpUtil.escInitalize() + EscpUtil.escPageLength(10) + EscpUtil.escInitalize() +
+            EscpUtil.escPageLength(20), writer.toString());
+
+        assertThrows(IllegalStateException.class,
+            () -> new EscpWriter(OutputStream.nullOutputStream()).toByteArray());
+        assertThrows(IllegalArgumentException.class, () -> new EscpWriter(null));
+    }
+
+}
@@ -45,4 +45,19 @@ public class StringUtilTest {
         assertEquals("  1234  ", StringUtil.align("1234", 8, StringUtil.ALIGNMENT.CENTER));
         assertEquals("    1234", StringUtil.align("1234", 8, StringUtil.ALIGNMENT.RIGHT));
     }
+
+    @Test
+    public void alignBuilder() {
+        for (StringUtil.ALIGNMENT alignment : StringUtil.ALIGNMENT.values()) {
+            for (String text : new String[] {"", "123", "1234", "1234567890"}) {
+                final StringBuilder buffer = new StringBuilder("ab");
+                buffer.append(text);
+                StringUtil.align(buffer, 2, 8, alignment);
+                assertEquals("ab" + StringUtil.align(text, 8, alignment), buffer.toString());
+            }
+        }
+        final StringBuilder buffer = new StringBuilder("1");
+        StringUtil.align(buffer, 0, 100, StringUtil.ALIGNMENT.RIGHT);
+        assertEquals(StringUtil.alignRight("1", 100), buffer.toString());
+    }
 }